@@ -0,0 +1,217 @@
+package com.ag777.util.db;
+
+import com.ag777.util.db.interf.ColConverter;
+import com.ag777.util.lang.ObjectUtils;
+import com.ag777.util.lang.StringUtils;
+import com.ag777.util.lang.reflection.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 结果集转对象的转换器
+ * <p>
+ * 按(类型, 列名列表)缓存,列与字段的对应关系、字段setter(MethodHandle)以及类型转换只在第一次创建时解析,
+ * 之后每行只做取值和赋值。列名匹配规则与原先的DbHelper.convert2List(rs, clazz)一致:
+ * 列名转驼峰后与类中声明的字段名忽略大小写比较,Boolean/boolean字段经ObjectUtils.toBoolean转换,Date字段经ObjectUtils.toDate转换。
+ * </p>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 10:40
+ */
+public class BeanConverter<T> implements ColConverter<T> {
+
+	private static final Map<CacheKey, BeanConverter<?>> CACHE = new ConcurrentHashMap<>();
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+	private final Class<T> clazz;
+	private final MethodHandle constructor;	//为null时通过ReflectionUtils.newInstace实例化(非静态内部类)
+	private final int[] columnIndexes;			//需要赋值的列(从1开始)
+	private final MethodHandle[] setters;		//与columnIndexes一一对应
+	private final Function<Object, Object>[] converters;	//与columnIndexes一一对应,不需要转换时为null
+	private final String[] fieldNames;			//与columnIndexes一一对应
+	private final boolean[] primitives;			//与columnIndexes一一对应,是否为原始类型字段
+
+	private BeanConverter(Class<T> clazz, String[] cols) throws ReflectiveOperationException {
+		this.clazz = clazz;
+		this.constructor = findConstructor(clazz);
+
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		Field[] fields = clazz.getDeclaredFields();
+		List<Integer> indexList = new ArrayList<>();
+		List<MethodHandle> setterList = new ArrayList<>();
+		List<Function<Object, Object>> converterList = new ArrayList<>();
+		List<Field> fieldList = new ArrayList<>();
+		for (int i = 0; i < cols.length; i++) {
+			for (Field field : fields) {
+				if(Modifier.isStatic(field.getModifiers()) || !field.getName().equalsIgnoreCase(cols[i])) {
+					continue;
+				}
+				field.setAccessible(true);
+				//原始类型字段自动拆箱,只允许拓宽转换(如Integer赋给long),与Field.set一致,类型不符时抛出ClassCastException
+				MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+				indexList.add(i+1);
+				setterList.add(setter);
+				converterList.add(converterOf(field.getType()));
+				fieldList.add(field);
+			}
+		}
+		columnIndexes = indexList.stream().mapToInt(Integer::intValue).toArray();
+		setters = setterList.toArray(new MethodHandle[0]);
+		converters = toFunctionArray(converterList);
+		fieldNames = new String[fieldList.size()];
+		primitives = new boolean[fieldList.size()];
+		for (int i = 0; i < fieldNames.length; i++) {
+			fieldNames[i] = fieldList.get(i).getName();
+			primitives[i] = fieldList.get(i).getType().isPrimitive();
+		}
+	}
+
+	/**
+	 * 获取转换器(带缓存)
+	 * @param clazz 目标类型
+	 * @param md 结果集元数据
+	 * @param <T> 类型T
+	 * @return BeanConverter
+	 * @throws SQLException 读取元数据失败或者无法访问目标类型的字段
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T>BeanConverter<T> of(Class<T> clazz, ResultSetMetaData md) throws SQLException {
+		int columnCount = md.getColumnCount();
+		String[] cols = new String[columnCount];
+		for (int i = 1; i <= columnCount; i++) {
+			cols[i-1] = StringUtils.underline2Camel(md.getColumnName(i), false);	//首字母大写，驼峰
+		}
+		CacheKey key = new CacheKey(clazz, cols);
+		BeanConverter<?> converter = CACHE.get(key);
+		if(converter == null) {
+			try {
+				converter = new BeanConverter<>(clazz, cols);
+			} catch (ReflectiveOperationException|RuntimeException ex) {
+				throw new SQLException("解析类型"+clazz.getName()+"失败", ex);
+			}
+			BeanConverter<?> old = CACHE.putIfAbsent(key, converter);
+			if(old != null) {
+				converter = old;
+			}
+		}
+		return (BeanConverter<T>) converter;
+	}
+
+	/**
+	 * 清除缓存(热部署等类被重新加载的场景使用)
+	 */
+	public static void clearCache() {
+		CACHE.clear();
+	}
+
+	/**
+	 * 将结果集当前行转换为对象
+	 * @param rs ResultSet
+	 * @return 对象
+	 * @throws SQLException 取值失败或者赋值失败(包括将null赋给原始类型字段,以及long赋给int等有损转换)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T apply(ResultSet rs) throws SQLException {
+		try {
+			T rowData = constructor != null ? (T) constructor.invokeExact() : ReflectionUtils.newInstace(clazz);
+			for (int i = 0; i < columnIndexes.length; i++) {
+				Object value = rs.getObject(columnIndexes[i]);
+				if(converters[i] != null) {
+					value = converters[i].apply(value);
+				}
+				if(value == null && primitives[i]) {
+					throw new IllegalArgumentException("无法将null赋值给原始类型字段"+fieldNames[i]);
+				}
+				try {
+					setters[i].invokeExact((Object) rowData, value);
+				} catch (ClassCastException ex) {	//如BIGINT赋给int字段,不做有损转换
+					throw new IllegalArgumentException("无法将"+value.getClass().getName()+"赋值给字段"+fieldNames[i], ex);
+				}
+			}
+			return rowData;
+		} catch (SQLException ex) {
+			throw ex;
+		} catch (Throwable t) {
+			throw new SQLException("转换结果为对象失败", t);
+		}
+	}
+
+	/*----内部工具方法------*/
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Function<Object, Object>[] toFunctionArray(List<Function<Object, Object>> list) {
+		return list.toArray(new Function[0]);
+	}
+
+	/**
+	 * @param clazz 目标类型
+	 * @return 无参构造函数,非静态内部类返回null
+	 */
+	private static MethodHandle findConstructor(Class<?> clazz) throws ReflectiveOperationException {
+		if(clazz.getEnclosingClass() != null && !Modifier.isStatic(clazz.getModifiers())) {
+			return null;
+		}
+		Constructor<?> c = clazz.getDeclaredConstructor();
+		c.setAccessible(true);
+		return MethodHandles.lookup().unreflectConstructor(c).asType(CONSTRUCTOR_TYPE);
+	}
+
+	/**
+	 * @param fieldType 字段类型
+	 * @return 值转换方法,不需要转换时返回null
+	 */
+	private static Function<Object, Object> converterOf(Class<?> fieldType) {
+		if(fieldType == Boolean.class || fieldType == boolean.class) {
+			return ObjectUtils::toBoolean;
+		} else if(fieldType == Date.class) {
+			return ObjectUtils::toDate;
+		}
+		return null;
+	}
+
+	private static class CacheKey {
+		private final Class<?> clazz;
+		private final String[] cols;
+		private final int hash;
+
+		CacheKey(Class<?> clazz, String[] cols) {
+			this.clazz = clazz;
+			this.cols = cols;
+			this.hash = 31 * clazz.hashCode() + Arrays.hashCode(cols);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(!(o instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) o;
+			return clazz == other.clazz && Arrays.equals(cols, other.cols);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
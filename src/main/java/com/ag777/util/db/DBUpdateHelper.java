@@ -3,11 +3,16 @@ package com.ag777.util.db;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 
+import com.ag777.util.db.model.MigrationStep;
 import com.ag777.util.db.model.VersionSqlPojo;
 import com.ag777.util.db.model.VersionSqlPojo.DdlListBean;
 import com.ag777.util.lang.Console;
@@ -23,9 +28,15 @@ import com.ag777.util.lang.interf.Disposable;
  * 		直接引入项目可以作为数据库版本控制模块使用,
  * 		支持多级版本号x.xx.xx, xx.xxx等
  * </p>
+ * <p>
+ * 		每个版本依次执行: ddlList(逐条自动提交) → parallelDmlList(每块一个事务,提供连接池时并行) → dmlList(一个事务,含版本号更新)。
+ * 		通过checkpoint(tableName)开启检查点后,每条ddl和每个dml块完成时记录到检查点表,
+ * 		升级中途失败后再次调用update会跳过已完成的步骤,版本升级完成时(dmlList提交时)清除该版本的记录。
+ * 		每个步骤的耗时通过logStep输出,也可以在升级后通过getStepList()获取。
+ * </p>
  * 
  * @author ag777
- * @version create on 2017年09月06日,last modify at 2020年10月09日
+ * @version create on 2017年09月06日,last modify at 2026年10月18日
  */
 public abstract class DBUpdateHelper implements Disposable {
 
@@ -37,6 +48,8 @@ public abstract class DBUpdateHelper implements Disposable {
 	private static Pattern p_classPath = Pattern.compile("^([\\w\\d_]+\\.)+[\\w\\d_]+$");
 
 	private List<VersionSqlPojo> versionSqlPojoList;	//版本号及对应sql列表
+	private String checkpointTable;	//检查点表名,为null代表不记录进度
+	private final List<MigrationStep> stepList = Collections.synchronizedList(new ArrayList<>());	//最近一次升级执行的步骤
 
 	public DBUpdateHelper(List<VersionSqlPojo> versionSqlPojoList) {
 		this.versionSqlPojoList = versionSqlPojoList;
@@ -49,6 +62,25 @@ public abstract class DBUpdateHelper implements Disposable {
 	 * @throws SQLException	主要抛出sql执行异常,其他异常也包装成SQLException,通过getMessage()方法获取错误信息
 	 */
 	public void update(String versionCodeOld, Connection conn) throws SQLException {
+		update(versionCodeOld, conn, null);
+	}
+
+	/**
+	 * 根据版本号和对应的sql列表升级数据库,parallelDmlList中的块从连接池借连接并行执行
+	 * <p>
+	 * 	并行执行的块会在其它线程中调用logSql/logStep,子类重写时注意线程安全;
+	 * 	conn如果也来自该连接池,连接池的最大连接数至少为2
+	 * </p>
+	 * @param versionCodeOld 当前版本号(支持多级，如33或1.25.345)
+	 * @param conn				数据库连接,执行ddl和dmlList
+	 * @param pool				连接池,为null时parallelDmlList在conn上串行执行
+	 * @throws SQLException	主要抛出sql执行异常,其他异常也包装成SQLException,通过getMessage()方法获取错误信息
+	 */
+	public void update(String versionCodeOld, Connection conn, DbPool pool) throws SQLException {
+		stepList.clear();
+		if(checkpointTable != null) {
+			initCheckpointTable(conn);
+		}
 
 		for (int i = 0; i < versionSqlPojoList.size(); i++) {
 			VersionSqlPojo verionSql = versionSqlPojoList.get(i);
@@ -58,13 +90,15 @@ public abstract class DBUpdateHelper implements Disposable {
 				logVersionUpgrade(versionCodeOld, versionCodeNew);
 
 				List<DdlListBean> ddlList = verionSql.getDdlList();
-				List<String> dmlList = verionSql.getDmlList();
+				List<String> dmlList = new ArrayList<>(verionSql.getDmlList());	//复制一份,避免重试时重复追加版本号更新语句
 
 				additionalSql(i, versionCodeNew, dmlList);
 
 				try {
-					executeDdlList(ddlList, conn, versionCodeNew);
-					executeDmlList(dmlList, conn, versionCodeNew);	//这里面带上了数据库版本号的更新
+					Set<String> doneSteps = loadCheckpoint(conn, versionCodeNew);
+					executeDdlList(ddlList, conn, versionCodeNew, doneSteps);
+					executeParallelDmlList(verionSql.getParallelDmlList(), conn, pool, versionCodeNew, doneSteps);
+					executeDml(dmlList, conn, versionCodeNew, MigrationStep.TYPE_DML, 0);	//这里面带上了数据库版本号的更新
 					versionCodeOld = versionCodeNew;
 				} catch(SQLException ex) {
 					String errMsg = new StringBuilder()
@@ -75,7 +109,7 @@ public abstract class DBUpdateHelper implements Disposable {
 							.append(ex.getMessage())
 							.append(']')
 							.toString();
-					throw new SQLException(errMsg);
+					throw new SQLException(errMsg, ex);
 				}
 			}
 		}
@@ -83,6 +117,25 @@ public abstract class DBUpdateHelper implements Disposable {
 
 	}
 
+	/**
+	 * 开启检查点,记录每个步骤的完成情况,失败后再次升级时从失败的步骤继续
+	 * @param tableName 检查点表名,不存在时自动创建,为null则关闭
+	 * @return DBUpdateHelper
+	 */
+	public DBUpdateHelper checkpoint(String tableName) {
+		this.checkpointTable = tableName;
+		return this;
+	}
+
+	/**
+	 * @return 最近一次update执行(或跳过)的步骤及耗时
+	 */
+	public List<MigrationStep> getStepList() {
+		synchronized (stepList) {
+			return new ArrayList<>(stepList);
+		}
+	}
+
 	/**
 	 * 需要提供升级数据库版本的sql,在版本升级sql都执行完后将版本写进数据库（业务默认数据库版本独立放在数据库里，可以简单改造该类，改为其他方式存储,以现有方式升级数据库版本操作会融入事务）
 	 * @param versionCodeNew 将要变成的版本号
@@ -163,55 +216,126 @@ public abstract class DBUpdateHelper implements Disposable {
 	 * @param ddlList ddlList
 	 * @param conn conn
 	 * @param versionCodeNew versionCodeNew
+	 * @param doneSteps 检查点中已完成的步骤
 	 * @throws SQLException SQLException
 	 */
-	private void executeDdlList(List<DdlListBean> ddlList, Connection conn, String versionCodeNew) throws SQLException {
+	private void executeDdlList(List<DdlListBean> ddlList, Connection conn, String versionCodeNew, Set<String> doneSteps) throws SQLException {
 		conn.setAutoCommit(true);
-		Statement stmt = conn.createStatement();
-		for (DdlListBean ddl : ddlList) {
-			String sql = toSql(ddl.getSql(), conn, stmt, versionCodeNew);
-			if(sql == null) {
+		try (Statement stmt = conn.createStatement()) {
+			for (int i = 0; i < ddlList.size(); i++) {
+				DdlListBean ddl = ddlList.get(i);
+				if(isDone(doneSteps, versionCodeNew, MigrationStep.TYPE_DDL, i, ddl.getSql())) {
+					continue;
+				}
+				String sql = toSql(ddl.getSql(), conn, stmt, versionCodeNew);
+				if(sql == null) {
+					continue;
+				}
+				long start = System.currentTimeMillis();
+				try {
+					logSql("ddl", sql);
+					stmt.executeUpdate(sql);
+				} catch(SQLException ex) {
+
+					if(ddl.getRollback() != null && !ddl.getRollback().isEmpty()) {	//执行回滚语句
+						stmt.execute(ddl.getRollback());
+					}
+					if(ddl.getIsForce() != null && ddl.getIsForce()) {
+						throw new SQLException(getErrMsg(sql, ex), ex);
+					}
+				}
+				long cost = System.currentTimeMillis()-start;
+				saveCheckpoint(conn, versionCodeNew, MigrationStep.TYPE_DDL, i, cost);
+				addStep(new MigrationStep(versionCodeNew, MigrationStep.TYPE_DDL, i, sql, cost, false));
+			}
+		}
+	}
+
+	/**
+	 * 执行互相独立的dml块,提供连接池时并行执行,等待所有块结束后抛出第一个异常
+	 * @param blockList 块列表
+	 * @param conn conn
+	 * @param pool 连接池,为null时在conn上串行执行
+	 * @param versionCodeNew versionCodeNew
+	 * @param doneSteps 检查点中已完成的步骤
+	 * @throws SQLException SQLException
+	 */
+	private void executeParallelDmlList(List<List<String>> blockList, Connection conn, DbPool pool, String versionCodeNew, Set<String> doneSteps) throws SQLException {
+		if(blockList == null || blockList.isEmpty()) {
+			return;
+		}
+		List<CompletableFuture<Void>> futureList = new ArrayList<>(blockList.size());
+		for (int i = 0; i < blockList.size(); i++) {
+			List<String> block = blockList.get(i);
+			if(block.isEmpty() || isDone(doneSteps, versionCodeNew, MigrationStep.TYPE_BLOCK, i, block.get(0))) {
 				continue;
 			}
+			int index = i;
+			if(pool == null) {
+				executeDml(block, conn, versionCodeNew, MigrationStep.TYPE_BLOCK, index);
+			} else {
+				futureList.add(pool.async().submit(helper -> {
+					executeDml(block, helper.getConn(), versionCodeNew, MigrationStep.TYPE_BLOCK, index);
+					return null;
+				}));
+			}
+		}
+		SQLException error = null;
+		for (CompletableFuture<Void> future : futureList) {
 			try {
-				logSql("ddl", ddl.getSql());
-				stmt.executeUpdate(ddl.getSql());
-			} catch(SQLException ex) {
-
-				if(ddl.getRollback() != null && !ddl.getRollback().isEmpty()) {	//执行回滚语句
-					stmt.execute(ddl.getRollback());
-				}
-				if(ddl.getIsForce() != null && ddl.getIsForce()) {
-					throw new SQLException(getErrMsg(ddl.getSql(), ex));
+				future.join();
+			} catch (CompletionException ex) {
+				if(error == null) {
+					Throwable cause = ex.getCause();
+					error = cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
 				}
 			}
 		}
+		if(error != null) {
+			throw error;
+		}
 	}
 
 	/**
 	 * 执行dml语句(事务)
+	 * <p>
+	 * 检查点记录与语句在同一个事务中提交:dml块提交时记录该块已完成,dmlList提交时清除该版本的所有记录
+	 * </p>
 	 * @param dmlList dmlList
 	 * @param conn conn
 	 * @param versionCodeNew versionCodeNew
+	 * @param type MigrationStep.TYPE_BLOCK或MigrationStep.TYPE_DML
+	 * @param index 块下标
 	 * @throws SQLException SQLException
 	 */
-	private void executeDmlList(List<String> dmlList, Connection conn, String versionCodeNew) throws SQLException {
-		try {
+	private void executeDml(List<String> dmlList, Connection conn, String versionCodeNew, String type, int index) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
 			conn.setAutoCommit(false);
-			Statement stmt = conn.createStatement();
+			long start = System.currentTimeMillis();
+			String firstSql = null;
 			for (String sql : dmlList) {
 				sql = toSql(sql, conn, stmt, versionCodeNew);
 				if(sql == null) {
 					continue;
 				}
+				if(firstSql == null) {
+					firstSql = sql;
+				}
 				try {
-					logSql("dml", sql);
+					logSql(type, sql);
 					stmt.executeUpdate(sql);
 				} catch(SQLException ex) {
-					throw new SQLException(getErrMsg(sql, ex));
+					throw new SQLException(getErrMsg(sql, ex), ex);
 				}
 			}
+			long cost = System.currentTimeMillis()-start;
+			if(MigrationStep.TYPE_DML.equals(type)) {
+				clearCheckpoint(conn, versionCodeNew);
+			} else {
+				saveCheckpoint(conn, versionCodeNew, type, index, cost);
+			}
 			conn.commit();
+			addStep(new MigrationStep(versionCodeNew, type, index, firstSql, cost, false));
 		} catch(SQLException ex) {
 			conn.rollback();
 			throw ex;
@@ -220,6 +344,91 @@ public abstract class DBUpdateHelper implements Disposable {
 		}
 	}
 
+	/*----检查点------*/
+
+	/**
+	 * 检查点表不存在时创建
+	 * @param conn conn
+	 * @throws SQLException SQLException
+	 */
+	private void initCheckpointTable(Connection conn) throws SQLException {
+		conn.setAutoCommit(true);
+		try (Statement stmt = conn.createStatement()) {
+			try {
+				stmt.executeQuery("SELECT step FROM "+checkpointTable+" WHERE 1=0").close();
+				return;
+			} catch (SQLException ignored) {	//表不存在
+			}
+			stmt.executeUpdate("CREATE TABLE "+checkpointTable+" ("
+					+ "version VARCHAR(64) NOT NULL, "
+					+ "step VARCHAR(32) NOT NULL, "
+					+ "cost_ms BIGINT, "
+					+ "finish_time BIGINT, "
+					+ "PRIMARY KEY (version, step))");
+		}
+	}
+
+	/**
+	 * @param conn conn
+	 * @param versionCode 版本号
+	 * @return 该版本已完成的步骤,未开启检查点时返回空集合
+	 * @throws SQLException SQLException
+	 */
+	private Set<String> loadCheckpoint(Connection conn, String versionCode) throws SQLException {
+		Set<String> set = new HashSet<>();
+		if(checkpointTable == null) {
+			return set;
+		}
+		try (PreparedStatement pstmt = conn.prepareStatement("SELECT step FROM "+checkpointTable+" WHERE version = ?")) {
+			pstmt.setString(1, versionCode);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					set.add(rs.getString(1));
+				}
+			}
+		}
+		return set;
+	}
+
+	private void saveCheckpoint(Connection conn, String versionCode, String type, int index, long costMillis) throws SQLException {
+		if(checkpointTable == null) {
+			return;
+		}
+		try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO "+checkpointTable+" (version, step, cost_ms, finish_time) VALUES (?, ?, ?, ?)")) {
+			pstmt.setString(1, versionCode);
+			pstmt.setString(2, type+'#'+index);
+			pstmt.setLong(3, costMillis);
+			pstmt.setLong(4, System.currentTimeMillis());
+			pstmt.executeUpdate();
+		}
+	}
+
+	private void clearCheckpoint(Connection conn, String versionCode) throws SQLException {
+		if(checkpointTable == null) {
+			return;
+		}
+		try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM "+checkpointTable+" WHERE version = ?")) {
+			pstmt.setString(1, versionCode);
+			pstmt.executeUpdate();
+		}
+	}
+
+	/**
+	 * 判断步骤是否已在检查点中完成,是的话记录一条跳过的步骤
+	 */
+	private boolean isDone(Set<String> doneSteps, String versionCode, String type, int index, String sql) {
+		if(!doneSteps.contains(type+'#'+index)) {
+			return false;
+		}
+		addStep(new MigrationStep(versionCode, type, index, sql, 0, true));
+		return true;
+	}
+
+	private void addStep(MigrationStep step) {
+		stepList.add(step);
+		logStep(step);
+	}
+
 	/**
 	 * @param versionCodeOld versionCodeOld
 	 * @param versionCodeNew versionCodeNew
@@ -271,6 +480,14 @@ public abstract class DBUpdateHelper implements Disposable {
 		log(sql);
 	}
 
+	/**
+	 * 打印步骤耗时(或跳过),子类重写
+	 * @param step 步骤
+	 */
+	protected void logStep(MigrationStep step) {
+		log(step.toString());
+	}
+
 	/**
 	 * 统一打印出口, 子类重写
 	 * @param msg 信息
@@ -0,0 +1,215 @@
+package com.ag777.util.db;
+
+import com.ag777.util.db.interf.ColConverter;
+import com.ag777.util.db.interf.DbTask;
+import com.ag777.util.lang.interf.Disposable;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据库异步执行器
+ * <p>
+ * 每个任务在执行期间独占一个连接(来自连接池时任务结束即归还),同时执行的任务数不超过parallelism,
+ * 超出时submit在调用线程上阻塞等待(背压),而不是无限堆积任务或把连接池压垮。
+ * 运行在JDK21及以上时使用虚拟线程,否则使用固定大小的守护线程池。
+ * </p>
+ * <pre>{@code
+ *  DbAsyncExecutor async = pool.async();
+ *  CompletableFuture<List<Map<String, Object>>> a = async.queryMapList(sqlA, null);
+ *  CompletableFuture<Integer> b = async.getObject(sqlB, null, Integer.class);
+ *  CompletableFuture.allOf(a, b).join();
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 11:20
+ */
+public class DbAsyncExecutor implements Disposable, Closeable {
+
+	private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+	private static final long CLOSE_TIMEOUT_SECONDS = 30;	//close()等待已提交任务的最长时间
+
+	private final DbPool pool;			//连接池,不为null时每个任务借出一个连接
+	private final DbHelper helper;		//单连接模式下共用的DbHelper
+	private final int parallelism;
+	private final Semaphore permits;
+	private final ExecutorService executor;
+	private final boolean virtual;
+	private volatile boolean closed;
+
+	/**
+	 * 连接池模式,并发数为连接池的最大连接数
+	 */
+	DbAsyncExecutor(DbPool pool) {
+		this(pool, null, pool.getConfig().getMaxSize());
+	}
+
+	/**
+	 * 单连接模式,任务串行执行
+	 */
+	DbAsyncExecutor(DbHelper helper) {
+		this(null, helper, 1);
+	}
+
+	private DbAsyncExecutor(DbPool pool, DbHelper helper, int parallelism) {
+		this.pool = pool;
+		this.helper = helper;
+		this.parallelism = parallelism;
+		this.permits = new Semaphore(parallelism, true);
+		ExecutorService virtualExecutor = newVirtualThreadExecutor();
+		this.virtual = virtualExecutor != null;
+		this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(parallelism, r -> {
+			Thread t = new Thread(r, "DbAsync-"+THREAD_INDEX.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * @return 最大并发任务数
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @return 正在执行(占用连接)的任务数
+	 */
+	public int getActiveCount() {
+		return parallelism - permits.availablePermits();
+	}
+
+	/**
+	 * @return 是否使用虚拟线程执行任务
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * 提交任务
+	 * <p>
+	 * 并发任务数已满时阻塞当前线程,直到有任务完成;线程被中断或执行器已关闭时返回异常结束的future
+	 * </p>
+	 * @param task 任务,参数为本次任务独占的DbHelper,不要在任务外保留或关闭它
+	 * @param <T> 返回类型
+	 * @return CompletableFuture
+	 */
+	public <T>CompletableFuture<T> submit(DbTask<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		if(closed) {
+			future.completeExceptionally(new SQLException("异步执行器已关闭"));
+			return future;
+		}
+		try {
+			permits.acquire();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			future.completeExceptionally(new SQLException("等待执行被中断", ex));
+			return future;
+		}
+		try {
+			executor.execute(() -> run(task, future));
+		} catch (RejectedExecutionException ex) {
+			permits.release();
+			future.completeExceptionally(new SQLException("异步执行器已关闭", ex));
+		}
+		return future;
+	}
+
+	public CompletableFuture<List<Map<String, Object>>> queryMapList(String sql, Object[] params) {
+		return submit(h -> h.queryMapList(sql, params));
+	}
+
+	public <K, V>CompletableFuture<Map<K, V>> queryMap(String sql, Object[] params, ColConverter<K> getKey, ColConverter<V> getVal) {
+		return submit(h -> h.queryMap(sql, params, getKey, getVal));
+	}
+
+	public <T>CompletableFuture<List<T>> queryObjectList(String sql, Object[] params, Class<T> clazz) {
+		return submit(h -> h.queryObjectList(sql, params, clazz));
+	}
+
+	public <T>CompletableFuture<T> getObject(String sql, Object[] params, Class<T> clazz) {
+		return submit(h -> h.getObject(sql, params, clazz));
+	}
+
+	public CompletableFuture<Integer> update(String sql, Object[] params) {
+		return submit(h -> h.update(sql, params));
+	}
+
+	public CompletableFuture<Integer> insertAndGetKey(String sql, Object[] params) {
+		return submit(h -> h.insertAndGetKey(sql, params));
+	}
+
+	/**
+	 * 关闭执行器,不再接受新任务,并等待已提交的任务执行完毕(最多30秒)
+	 */
+	@Override
+	public void close() {
+		dispose();
+	}
+
+	@Override
+	public void dispose() {
+		close(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 关闭执行器,不再接受新任务,并等待已提交的任务执行完毕
+	 * <p>
+	 * 超时或被中断时直接返回,之后释放连接时未完成的任务会因连接关闭而失败
+	 * </p>
+	 * @param timeout 最长等待时间
+	 * @param unit 时间单位
+	 * @return 是否所有任务都已执行完毕
+	 */
+	public boolean close(long timeout, TimeUnit unit) {
+		closed = true;
+		executor.shutdown();
+		try {
+			return executor.awaitTermination(timeout, unit);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private <T>void run(DbTask<T> task, CompletableFuture<T> future) {
+		try {
+			if(pool != null) {
+				try (DbHelper h = pool.borrow()) {
+					future.complete(task.apply(h));
+				}
+			} else {
+				synchronized (helper) {
+					future.complete(task.apply(helper));
+				}
+			}
+		} catch (Throwable t) {
+			future.completeExceptionally(t);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * 通过反射调用Executors.newVirtualThreadPerTaskExecutor(),JDK21以下返回null
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (Exception ex) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,443 @@
+package com.ag777.util.db;
+
+import com.ag777.util.db.interf.RowWriter;
+import com.ag777.util.db.model.BulkLoadResult;
+import com.ag777.util.db.model.DbPojo;
+import com.ag777.util.lang.interf.ProgressListener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 批量导入辅助类
+ * <p>
+ * 将数据源按chunkSize分块,每块一个事务提交,数据源可以是迭代器/流,不需要一次性加载到内存。
+ * 基于DbPool创建时可以多个连接并行写入(parallelism),基于DbHelper创建时在该连接上串行写入。
+ * mysql下可以开启rewrite,将单行insert改写为多行VALUES,效果等同于驱动参数rewriteBatchedStatements=true。
+ * </p>
+ * <p>
+ * 注意:每块单独提交,导入中途失败时已提交的块不会回滚。
+ * 如果DbHelper的连接已关闭自动提交(调用方开启了事务),则不会逐块提交,由调用方自行提交或回滚。
+ * </p>
+ * <pre>{@code
+ *  BulkLoadResult result = pool.bulkLoader()
+ *          .chunkSize(5000)
+ *          .parallelism(4)
+ *          .rewrite(true)
+ *          .listener((cur, total, done)->Console.log(cur))
+ *          .load("INSERT INTO t(a, b) VALUES(?, ?)", rowIterator);
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 00:20
+ */
+public class DbBulkLoader {
+
+	private static final Pattern P_INSERT_VALUES = Pattern.compile("^\\s*(INSERT\\s+.+?\\s+VALUES)\\s*(\\(.*\\))\\s*;?\\s*$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final int MAX_PARAMS = 65535;	//mysql单条语句最多支持的占位符数
+	private static final RowWriter<Object[]> OBJECT_ARRAY_WRITER = (row, binder) -> binder.setAll(row);
+
+	private final DbHelper helper;
+	private final DbPool pool;
+
+	private int chunkSize = 1000;
+	private int parallelism = 1;
+	private boolean rewrite;
+	private int total = -1;
+	private ProgressListener listener;
+
+	/**
+	 * 在单个连接上串行导入
+	 * @param helper DbHelper
+	 */
+	public DbBulkLoader(DbHelper helper) {
+		this.helper = helper;
+		this.pool = null;
+	}
+
+	/**
+	 * 从连接池借出连接并行导入
+	 * @param pool 连接池
+	 */
+	public DbBulkLoader(DbPool pool) {
+		this.helper = null;
+		this.pool = pool;
+	}
+
+	/**
+	 * @param chunkSize 每块行数,每块提交一次事务
+	 * @return DbBulkLoader
+	 */
+	public DbBulkLoader chunkSize(int chunkSize) {
+		if(chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize必须大于0");
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * @param parallelism 并行写入的连接数,只对基于连接池创建的导入有效,实际并行数不超过连接池的最大连接数
+	 * @return DbBulkLoader
+	 */
+	public DbBulkLoader parallelism(int parallelism) {
+		if(parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism必须大于0");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * @param rewrite 是否将单行insert改写为多行VALUES(仅mysql且sql为INSERT ... VALUES(...)形式时生效)
+	 * @return DbBulkLoader
+	 */
+	public DbBulkLoader rewrite(boolean rewrite) {
+		this.rewrite = rewrite;
+		return this;
+	}
+
+	/**
+	 * @param total 总行数,传给进度监听,未知时为-1
+	 * @return DbBulkLoader
+	 */
+	public DbBulkLoader total(int total) {
+		this.total = total;
+		return this;
+	}
+
+	/**
+	 * @param listener 进度监听,每提交一块回调一次,cur和total的单位为行
+	 * @return DbBulkLoader
+	 */
+	public DbBulkLoader listener(ProgressListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	public BulkLoadResult load(String sql, List<Object[]> rows) throws SQLException {
+		return load(sql, rows, OBJECT_ARRAY_WRITER);
+	}
+
+	/**
+	 * 导入,流会在导入结束后关闭
+	 */
+	public BulkLoadResult load(String sql, Stream<Object[]> rows) throws SQLException {
+		return load(sql, rows, OBJECT_ARRAY_WRITER);
+	}
+
+	/**
+	 * 导入
+	 * @param sql 带占位符的sql,如INSERT INTO t(a, b) VALUES(?, ?)
+	 * @param rows 参数迭代器,每个元素对应一行
+	 * @return 导入结果
+	 * @throws SQLException 任意一块执行失败时抛出,已提交的块不会回滚
+	 */
+	public BulkLoadResult load(String sql, Iterator<Object[]> rows) throws SQLException {
+		return load(sql, rows, OBJECT_ARRAY_WRITER);
+	}
+
+	public <T>BulkLoadResult load(String sql, List<T> rows, RowWriter<T> writer) throws SQLException {
+		return load(sql, rows.iterator(), writer, total < 0 ? rows.size() : total);
+	}
+
+	/**
+	 * 导入,流会在导入结束后关闭
+	 */
+	public <T>BulkLoadResult load(String sql, Stream<T> rows, RowWriter<T> writer) throws SQLException {
+		try (Stream<T> s = rows) {
+			return load(sql, s.iterator(), writer, total);
+		}
+	}
+
+	/**
+	 * 导入,通过writer按类型绑定每行参数,不需要把每行数据转换为Object[]
+	 * @param sql 带占位符的sql,如INSERT INTO t(a, b) VALUES(?, ?)
+	 * @param rows 数据迭代器,每个元素对应一行
+	 * @param writer 将一行数据写入参数,如:(user, binder)->binder.setLong(user.getId()).setString(user.getName())
+	 * @param <T> 行类型
+	 * @return 导入结果
+	 * @throws SQLException 任意一块执行失败时抛出,已提交的块不会回滚
+	 */
+	public <T>BulkLoadResult load(String sql, Iterator<T> rows, RowWriter<T> writer) throws SQLException {
+		return load(sql, rows, writer, total);
+	}
+
+	/*----内部工具方法------*/
+
+	private <T>BulkLoadResult load(String sql, Iterator<T> rows, RowWriter<T> writer, int total) throws SQLException {
+		long start = System.currentTimeMillis();
+		String[] rewriteParts = rewrite && isMysql() ? splitInsertValues(sql) : null;
+		Progress progress = new Progress(total);
+		if(pool == null || parallelism == 1) {
+			loadSerial(sql, rewriteParts, rows, writer, progress);
+		} else {
+			loadParallel(sql, rewriteParts, rows, writer, progress);
+		}
+		notifyListener(progress, true);
+		return new BulkLoadResult(progress.rows.get(), progress.chunks.get(), System.currentTimeMillis()-start);
+	}
+
+	private <T>void loadSerial(String sql, String[] rewriteParts, Iterator<T> rows, RowWriter<T> writer, Progress progress) throws SQLException {
+		DbHelper h = helper != null ? helper : pool.borrow();
+		try {
+			synchronized (h) {	//与DbHelper.batchUpdate/doTransaction共用同一把锁
+				List<T> chunk;
+				while(!(chunk = nextChunk(rows)).isEmpty()) {
+					executeChunk(h.getConn(), sql, rewriteParts, chunk, writer);
+					onChunkDone(chunk.size(), progress);
+				}
+			}
+		} finally {
+			if(helper == null) {
+				h.dispose();
+			}
+		}
+	}
+
+	/**
+	 * 调用线程读取数据源并分块,工作线程借出连接写入;
+	 * 同时在途的块数不超过parallelism*2,保证内存占用与数据总量无关
+	 */
+	private <T>void loadParallel(String sql, String[] rewriteParts, Iterator<T> rows, RowWriter<T> writer, Progress progress) throws SQLException {
+		int threads = Math.min(parallelism, pool.getConfig().getMaxSize());
+		AtomicInteger threadIndex = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "DbBulkLoader-"+threadIndex.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		Semaphore inFlight = new Semaphore(threads * 2);
+		AtomicReference<SQLException> error = new AtomicReference<>();
+		try {
+			List<T> chunk;
+			while(error.get() == null && !(chunk = nextChunk(rows)).isEmpty()) {
+				inFlight.acquire();
+				List<T> c = chunk;
+				executor.execute(() -> {
+					try {
+						if(error.get() != null) {
+							return;
+						}
+						Connection conn = pool.borrowConnection();
+						try {
+							executeChunk(conn, sql, rewriteParts, c, writer);
+						} finally {
+							pool.release(conn);
+						}
+						onChunkDone(c.size(), progress);
+					} catch (SQLException ex) {
+						error.compareAndSet(null, ex);
+					} catch (RuntimeException ex) {
+						error.compareAndSet(null, new SQLException("批量导入失败", ex));
+					} finally {
+						inFlight.release();
+					}
+				});
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("批量导入被中断", ex);
+		} finally {
+			executor.shutdownNow();
+		}
+		if(error.get() != null) {
+			throw error.get();
+		}
+	}
+
+	private <T>List<T> nextChunk(Iterator<T> rows) {
+		List<T> chunk = new ArrayList<>(chunkSize);
+		while(chunk.size() < chunkSize && rows.hasNext()) {
+			chunk.add(rows.next());
+		}
+		return chunk;
+	}
+
+	/**
+	 * 在一个事务中写入一块数据
+	 * <p>
+	 * 连接已处于手动提交(调用方开启了事务)时不提交也不回滚,写入的数据归属调用方的事务
+	 * </p>
+	 */
+	private <T>void executeChunk(Connection conn, String sql, String[] rewriteParts, List<T> chunk, RowWriter<T> writer) throws SQLException {
+		if(!conn.getAutoCommit()) {
+			writeChunk(conn, sql, rewriteParts, chunk, writer);
+			return;
+		}
+		conn.setAutoCommit(false);
+		Throwable error = null;
+		try {
+			writeChunk(conn, sql, rewriteParts, chunk, writer);
+			conn.commit();
+		} catch (SQLException|RuntimeException ex) {
+			error = ex;
+			try {
+				conn.rollback();
+			} catch (SQLException e) {
+				ex.addSuppressed(e);
+			}
+			throw ex;
+		} finally {
+			try {
+				conn.setAutoCommit(true);
+			} catch (SQLException e) {
+				if(error == null) {
+					throw e;
+				}
+				error.addSuppressed(e);	//不覆盖原始异常
+			}
+		}
+	}
+
+	private <T>void writeChunk(Connection conn, String sql, String[] rewriteParts, List<T> chunk, RowWriter<T> writer) throws SQLException {
+		if(rewriteParts != null) {
+			executeRewritten(conn, rewriteParts, chunk, writer);
+		} else {
+			try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+				ParamBinder binder = new ParamBinder(pstmt);
+				for (T row : chunk) {
+					writer.write(row, binder.reset());
+					pstmt.addBatch();
+				}
+				pstmt.executeBatch();
+			}
+		}
+	}
+
+	/**
+	 * 多行VALUES写入,单条语句的占位符总数不超过MAX_PARAMS
+	 */
+	private <T>void executeRewritten(Connection conn, String[] rewriteParts, List<T> chunk, RowWriter<T> writer) throws SQLException {
+		int paramCount = Math.max(1, countPlaceholders(rewriteParts[1]));
+		int rowsPerStmt = Math.max(1, Math.min(chunk.size(), MAX_PARAMS / paramCount));
+		PreparedStatement full = null;
+		try {
+			int i = 0;
+			while(i < chunk.size()) {
+				int n = Math.min(rowsPerStmt, chunk.size()-i);
+				PreparedStatement pstmt;
+				if(n == rowsPerStmt) {
+					if(full == null) {
+						full = conn.prepareStatement(buildValuesSql(rewriteParts, n));
+					}
+					pstmt = full;
+				} else {
+					pstmt = conn.prepareStatement(buildValuesSql(rewriteParts, n));
+				}
+				try {
+					ParamBinder binder = new ParamBinder(pstmt);	//多行连续绑定,不重置位置
+					for (int j = i; j < i+n; j++) {
+						writer.write(chunk.get(j), binder);
+					}
+					pstmt.executeUpdate();
+				} finally {
+					if(pstmt != full) {
+						pstmt.close();
+					}
+				}
+				i += n;
+			}
+		} finally {
+			if(full != null) {
+				full.close();
+			}
+		}
+	}
+
+	private static int countPlaceholders(String tuple) {
+		int count = 0;
+		for (int i = 0; i < tuple.length(); i++) {
+			if(tuple.charAt(i) == '?') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void onChunkDone(int size, Progress progress) {
+		progress.chunks.incrementAndGet();
+		progress.rows.addAndGet(size);
+		notifyListener(progress, false);
+	}
+
+	private void notifyListener(Progress progress, boolean done) {
+		if(listener != null) {
+			synchronized (listener) {
+				listener.update((int) Math.min(progress.rows.get(), Integer.MAX_VALUE), progress.total, done);
+			}
+		}
+	}
+
+	private boolean isMysql() {
+		if(helper != null) {
+			return helper.isMysql();
+		}
+		if(pool.getDbType() == null) {	//池中还没有创建过连接,借出一次以获取数据库类型
+			try {
+				pool.borrow().dispose();
+			} catch (SQLException ignored) {
+			}
+		}
+		return DbPojo.TYPE_MYSQL.equals(pool.getDbType());
+	}
+
+	/**
+	 * 拆分INSERT ... VALUES(...)语句
+	 * @param sql sql
+	 * @return [INSERT ... VALUES, (...)],sql不是单行VALUES形式时返回null(如带ON DUPLICATE KEY UPDATE)
+	 */
+	static String[] splitInsertValues(String sql) {
+		Matcher m = P_INSERT_VALUES.matcher(sql);
+		if(!m.matches()) {
+			return null;
+		}
+		String tuple = m.group(2);
+		int depth = 0;
+		for (int i = 0; i < tuple.length(); i++) {
+			char c = tuple.charAt(i);
+			if(c == '(') {
+				depth++;
+			} else if(c == ')') {
+				depth--;
+				if(depth == 0 && i != tuple.length()-1) {	//第一组括号之后还有内容
+					return null;
+				}
+			}
+		}
+		return new String[]{m.group(1), tuple};
+	}
+
+	private static String buildValuesSql(String[] rewriteParts, int rows) {
+		StringBuilder sb = new StringBuilder(rewriteParts[0].length() + (rewriteParts[1].length()+1) * rows + 1)
+				.append(rewriteParts[0]).append(' ');
+		for (int i = 0; i < rows; i++) {
+			if(i > 0) {
+				sb.append(',');
+			}
+			sb.append(rewriteParts[1]);
+		}
+		return sb.toString();
+	}
+
+	private static class Progress {
+		private final int total;
+		private final AtomicLong rows = new AtomicLong();
+		private final AtomicInteger chunks = new AtomicInteger();
+
+		Progress(int total) {
+			this.total = total;
+		}
+	}
+}
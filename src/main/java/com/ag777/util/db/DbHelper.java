@@ -6,34 +6,38 @@ import com.ag777.util.db.connection.SqlServerConnection;
 import com.ag777.util.db.connection.SqliteConnection;
 import com.ag777.util.db.interf.ColConverter;
 import com.ag777.util.db.interf.DBTransactionInterf;
+import com.ag777.util.db.interf.RowWriter;
 import com.ag777.util.db.model.*;
-import com.ag777.util.lang.ObjectUtils;
-import com.ag777.util.lang.StringUtils;
 import com.ag777.util.lang.interf.Disposable;
 import com.ag777.util.lang.reflection.ReflectionUtils;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.*;
 import java.util.*;
-import java.util.Date;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 数据库操作辅助类
  * 
  * @author ag777
- * @version create on 2017年07月28日,last modify at 2024年05月18日
+ * @version create on 2017年07月28日,last modify at 2026年10月19日
  */
 public class DbHelper implements Disposable, Closeable {
 	
 	private Connection conn;
 	private String dbType;	//数据库类型(mysql/oracle/sqlite等)
+	private DbPool pool;	//连接来自连接池时不为null,关闭时归还连接
+	private StatementCache stmtCache;	//预编译语句缓存,为null代表不缓存
+	private DbMetaCache metaCache;	//数据库结构缓存,为null代表不缓存
+	private DbAsyncExecutor asyncExecutor;	//非池化连接的异步执行器
+
+	public static final int DEFAULT_FETCH_SIZE = 1000;	//流式查询默认每次读取行数
 	
 	public DbHelper(Connection conn) {
 		this.conn = conn;
@@ -42,6 +46,18 @@ public class DbHelper implements Disposable, Closeable {
 		} catch (SQLException ignored) {
 		}
 	}
+
+	/**
+	 * 连接池借出连接时使用,数据库类型由池统一获取,避免每次借出都查询元数据
+	 * @param conn 连接
+	 * @param dbType 数据库类型
+	 * @param pool 连接池,为null时关闭即关闭连接
+	 */
+	DbHelper(Connection conn, String dbType, DbPool pool) {
+		this.conn = conn;
+		this.dbType = dbType;
+		this.pool = pool;
+	}
 	
 	/**
 	 * 连接数据库
@@ -140,6 +156,24 @@ public class DbHelper implements Disposable, Closeable {
 				DbConnectionUtil.connect(url, user, password, driver, props));
 	}
 
+	/**
+	 * 创建数据库连接池
+	 * <p>
+	 * 通过返回的DbPool.borrow()获取DbHelper,DbHelper关闭时连接归还到池中
+	 * </p>
+	 * @param url url
+	 * @param user 用户名
+	 * @param password 密码
+	 * @param driver 驱动
+	 * @param config 连接池配置,为null时使用默认配置
+	 * @return DbPool
+	 * @throws ClassNotFoundException 找不到驱动
+	 * @throws SQLException 初始化最小连接数失败
+	 */
+	public static DbPool pooled(String url, String user, String password, DbDriver driver, PoolConfig config) throws ClassNotFoundException, SQLException {
+		return new DbPool(url, user, password, driver, config);
+	}
+
 	/**
 	 * 动态加载指定类名的JDBC驱动，并返回Driver实例。
 	 *
@@ -334,6 +368,76 @@ public class DbHelper implements Disposable, Closeable {
 	public Connection getConn() {
 		return conn;
 	}
+
+	/**
+	 * 开启/关闭PreparedStatement缓存
+	 * <p>
+	 * 开启后update/queryXxx/getXxx/insertAndGetKey等带参数的方法会复用同一sql的预编译语句,
+	 * 通过getResultSet(sql, params)获取的结果集在同一sql再次执行时会被关闭。
+	 * 重新设置会关闭之前缓存的语句
+	 * </p>
+	 * @param maxSize 最多缓存的语句数,小于等于0时关闭缓存
+	 * @return DbHelper
+	 */
+	public DbHelper statementCache(int maxSize) {
+		if(stmtCache != null) {
+			stmtCache.clear();
+		}
+		stmtCache = maxSize > 0 ? new StatementCache(conn, maxSize) : null;
+		return this;
+	}
+
+	/**
+	 * @return 语句缓存(包含命中/未命中次数),未开启时返回null
+	 */
+	public StatementCache getStatementCache() {
+		return stmtCache;
+	}
+
+	/**
+	 * 设置数据库结构缓存
+	 * <p>
+	 * 设置后columnList/primaryKeyList/typeMap/tableNameList/tableColumnMap/dbiList/isTableExisted
+	 * 在缓存范围内(见DbMetaCache.covers)时优先读取缓存
+	 * </p>
+	 * @param metaCache 缓存,为null时不使用缓存
+	 * @return DbHelper
+	 * @see DbMetaCache#of(DbHelper, String, long)
+	 */
+	public DbHelper metaCache(DbMetaCache metaCache) {
+		this.metaCache = metaCache;
+		return this;
+	}
+
+	public DbMetaCache getMetaCache() {
+		return metaCache;
+	}
+
+	/**
+	 * 获取异步执行器
+	 * <p>
+	 * 池化连接返回连接池的执行器(每个任务独占一个池中连接,可以并行);
+	 * 非池化连接返回绑定当前连接的执行器,任务按提交顺序串行执行,随dispose()关闭
+	 * </p>
+	 * @return DbAsyncExecutor
+	 * @see DbPool#async()
+	 */
+	public synchronized DbAsyncExecutor async() {
+		if(pool != null) {
+			return pool.async();
+		}
+		if(asyncExecutor == null) {
+			asyncExecutor = new DbAsyncExecutor(this);
+		}
+		return asyncExecutor;
+	}
+
+	/**
+	 * @return 连接所属的连接池,非池化连接返回null
+	 */
+	public DbPool getPool() {
+		return pool;
+	}
 	
 	/**
 	 * 测试连接
@@ -412,6 +516,45 @@ public class DbHelper implements Disposable, Closeable {
 		
 	}
 
+	/**
+	 * 执行查询并在处理完结果集后释放资源
+	 * <p>
+	 * 参数为空时通过Statement执行,用完关闭;反之通过PreparedStatement执行,未开启语句缓存时用完关闭
+	 * </p>
+	 * @param sql sql
+	 * @param params 参数,可以为null
+	 * @param handler 处理整个结果集
+	 * @param <R> 返回类型
+	 * @return handler的返回
+	 * @throws SQLException SQLException
+	 */
+	private <R>R query(String sql, Object[] params, ColConverter<R> handler) throws SQLException {
+		if(isNullOrEmpty(params)) {
+			try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+				return handler.apply(rs);
+			}
+		}
+		PreparedStatement pstmt = getPreparedStatement(sql, params);
+		try (ResultSet rs = pstmt.executeQuery()) {
+			return handler.apply(rs);
+		} finally {
+			releaseStatement(pstmt);
+		}
+	}
+
+	/**
+	 * 用完语句后调用,语句不在缓存中时关闭
+	 * @param pstmt 通过getPreparedStatement获取的语句
+	 */
+	private void releaseStatement(PreparedStatement pstmt) {
+		if(stmtCache == null) {
+			try {
+				pstmt.close();
+			} catch (SQLException ignored) {
+			}
+		}
+	}
+
 	/**
 	 * 根据sql获取结果集
 	 * @param sql sql
@@ -440,6 +583,18 @@ public class DbHelper implements Disposable, Closeable {
 		return ps.executeQuery();
 	}
 
+	/**
+	 * 查询多行记录并以列式结构保存,适合行数多的统计类查询
+	 * @param sql sql
+	 * @param params 参数
+	 * @return ResultTable
+	 * @throws SQLException SQLException
+	 * @see ResultTable
+	 */
+	public ResultTable queryTable(String sql, Object[] params) throws SQLException {
+		return query(sql, params, ResultTable::of);
+	}
+
 	/**
 	 * 查询多行记录, 通过Statement执行
 	 * @param sql sql
@@ -447,8 +602,7 @@ public class DbHelper implements Disposable, Closeable {
 	 * @throws SQLException SQLException
 	 */
 	public List<Map<String, Object>> queryMapList(String sql) throws SQLException {
-		ResultSet rs = getResultSet(sql);
-		return convert2List(rs);
+		return query(sql, null, DbHelper::convert2List);
 	}
 
 	/**
@@ -459,8 +613,7 @@ public class DbHelper implements Disposable, Closeable {
 	 * @throws SQLException SQLException
 	 */
 	public List<Map<String, Object>> queryMapList(String sql, Object[] params) throws SQLException {
-		ResultSet rs = getResultSet(sql, params);
-		return convert2List(rs);
+		return query(sql, params, DbHelper::convert2List);
 	}
 
 	/**
@@ -475,8 +628,7 @@ public class DbHelper implements Disposable, Closeable {
 	 * @throws SQLException SQLException
 	 */
 	public <K, V>Map<K, V> queryMap(String sql, Object[] params, Class<K> classOfK, Class<V> classOfV) throws SQLException {
-		ResultSet rs = getResultSet(sql, params);
-		return convert2Map(rs, classOfK, classOfV);
+		return query(sql, params, rs -> convert2Map(rs, classOfK, classOfV));
 	}
 
 	/**
@@ -491,8 +643,7 @@ public class DbHelper implements Disposable, Closeable {
 	 * @throws SQLException SQLException
 	 */
 	public <K, V>Map<K, V> queryMap(String sql, Object[] params, ColConverter<K> getKey, ColConverter<V> getVal) throws SQLException {
-		ResultSet rs = getResultSet(sql, params);
-		return convert2Map(rs, getKey, getVal);
+		return query(sql, params, rs -> convert2Map(rs, getKey, getVal));
 	}
 
 
@@ -507,18 +658,90 @@ public class DbHelper implements Disposable, Closeable {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T>List<T> queryObjectList(String sql, Object[] params, Class<T> clazz) throws SQLException {
-		List<T> list;
-		ResultSet rs = getResultSet(sql, params);
-		if(isBasicClass(clazz)){
-			list = new ArrayList<>();
-			while(rs.next()) {
-				list.add((T) rs.getObject(1));
+		return query(sql, params, rs -> {
+			List<T> list;
+			if(isBasicClass(clazz)){
+				list = new ArrayList<>();
+				while(rs.next()) {
+					list.add((T) rs.getObject(1));
+				}
+			} else {
+				list = convert2List(rs, clazz);
 			}
-		} else {
-			list = convert2List(rs, clazz);
+			return list;
+		});
+	}
+
+	/**
+	 * 流式查询,逐行转换,内存占用与结果集行数无关
+	 * <p>
+	 * 默认fetchSize为{@link #DEFAULT_FETCH_SIZE},mysql下使用Integer.MIN_VALUE开启逐行读取。
+	 * 返回的流必须关闭(推荐try-with-resources),关闭时释放ResultSet及Statement,连接不会关闭。
+	 * 注意mysql流式读取期间,同一连接不能执行其它语句。
+	 * </p>
+	 * @param sql sql
+	 * @param params 参数,可以为null
+	 * @param converter 单行转换器,如:rs->rs.getString(1)
+	 * @param <T> 类型T
+	 * @return Stream
+	 * @throws SQLException SQLException
+	 */
+	public <T>Stream<T> queryStream(String sql, Object[] params, ColConverter<T> converter) throws SQLException {
+		return queryStream(sql, params, converter, DEFAULT_FETCH_SIZE);
+	}
+
+	/**
+	 * 流式查询,逐行转换
+	 * @param sql sql
+	 * @param params 参数,可以为null
+	 * @param converter 单行转换器
+	 * @param fetchSize 每次从数据库读取的行数(mysql下忽略该值,使用逐行读取)
+	 * @param <T> 类型T
+	 * @return Stream
+	 * @throws SQLException SQLException
+	 * @see #queryStream(String, Object[], ColConverter)
+	 */
+	public <T>Stream<T> queryStream(String sql, Object[] params, ColConverter<T> converter, int fetchSize) throws SQLException {
+		return queryIterator(sql, params, converter, fetchSize).stream();
+	}
+
+	/**
+	 * 流式查询,每行转换为map
+	 * @param sql sql
+	 * @param params 参数,可以为null
+	 * @return Stream
+	 * @throws SQLException SQLException
+	 * @see #queryStream(String, Object[], ColConverter)
+	 */
+	public Stream<Map<String, Object>> queryMapStream(String sql, Object[] params) throws SQLException {
+		PreparedStatement ps = getStreamingStatement(sql, params, DEFAULT_FETCH_SIZE);
+		try {
+			ResultSet rs = ps.executeQuery();
+			return new ResultSetIterator<>(rs, ps, mapConverter(rs.getMetaData())).stream();
+		} catch (SQLException ex) {
+			ps.close();
+			throw ex;
 		}
-		return list;
+	}
 
+	/**
+	 * 流式查询,返回迭代器,使用完毕需要调用close()
+	 * @param sql sql
+	 * @param params 参数,可以为null
+	 * @param converter 单行转换器
+	 * @param fetchSize 每次从数据库读取的行数(mysql下忽略该值,使用逐行读取)
+	 * @param <T> 类型T
+	 * @return ResultSetIterator
+	 * @throws SQLException SQLException
+	 */
+	public <T>ResultSetIterator<T> queryIterator(String sql, Object[] params, ColConverter<T> converter, int fetchSize) throws SQLException {
+		PreparedStatement ps = getStreamingStatement(sql, params, fetchSize);
+		try {
+			return new ResultSetIterator<>(ps.executeQuery(), ps, converter);
+		} catch (SQLException ex) {
+			ps.close();
+			throw ex;
+		}
 	}
 
 	/**
@@ -563,20 +786,21 @@ public class DbHelper implements Disposable, Closeable {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T>T getObject(String sql, Object[] params, Class<T> clazz) throws SQLException {
-		ResultSet rs = getResultSet(sql, params);
-		if(rs.next()) {
-			if(isBasicClass(clazz)) {
-				return (T) rs.getObject(1);
-			} else if(clazz == Object.class) {
-				return (T) rs.getObject(1);
-			} else {
-				List<T> list = convert2List(rs, clazz);
-				if(!list.isEmpty()) {
-					return list.get(0);
+		return query(sql, params, rs -> {
+			if(rs.next()) {
+				if(isBasicClass(clazz)) {
+					return (T) rs.getObject(1);
+				} else if(clazz == Object.class) {
+					return (T) rs.getObject(1);
+				} else {
+					List<T> list = convert2List(rs, clazz);
+					if(!list.isEmpty()) {
+						return list.get(0);
+					}
 				}
 			}
-		}
-		return null;
+			return null;
+		});
 	}
 
 	/**
@@ -639,8 +863,9 @@ public class DbHelper implements Disposable, Closeable {
 	 * @throws SQLException SQLException
 	 */
 	public int update(String sql) throws SQLException {
-		Statement stmt = conn.createStatement();
-		return stmt.executeUpdate(sql);
+		try (Statement stmt = conn.createStatement()) {
+			return stmt.executeUpdate(sql);
+		}
     }
 
 	
@@ -656,7 +881,11 @@ public class DbHelper implements Disposable, Closeable {
 			return update(sql);
 		}
 		PreparedStatement pstmt = getPreparedStatement(sql, params);
-		return pstmt.executeUpdate();
+		try {
+			return pstmt.executeUpdate();
+		} finally {
+			releaseStatement(pstmt);
+		}
     }
 	
 	/**
@@ -678,10 +907,15 @@ public class DbHelper implements Disposable, Closeable {
 	 */
 	public int insertAndGetKey(String sql, Object[] params) throws SQLException {
 		PreparedStatement pstmt = getPreparedStatement(sql, params, Statement.RETURN_GENERATED_KEYS);
-		pstmt.executeUpdate();
-		ResultSet rs = pstmt.getGeneratedKeys();
-		rs.next();
-		return rs.getInt(1);
+		try {
+			pstmt.executeUpdate();
+			try (ResultSet rs = pstmt.getGeneratedKeys()) {
+				rs.next();
+				return rs.getInt(1);
+			}
+		} finally {
+			releaseStatement(pstmt);
+		}
 	}
 	
 	/**
@@ -697,10 +931,11 @@ public class DbHelper implements Disposable, Closeable {
 		}
     	try {
     		conn.setAutoCommit(false);
-	    	PreparedStatement pstmt = getBatchPreparedStatement(sql, paramsList);
-	    	int[] results = pstmt.executeBatch(); //批量执行   
-	    	conn.commit();//提交事务 
-	    	return results;
+	    	try (PreparedStatement pstmt = getBatchPreparedStatement(sql, paramsList)) {
+		    	int[] results = pstmt.executeBatch(); //批量执行   
+		    	conn.commit();//提交事务 
+		    	return results;
+	    	}
     	} catch (SQLException ex) {
     		try {
 				conn.rollback();
@@ -711,7 +946,47 @@ public class DbHelper implements Disposable, Closeable {
     		conn.setAutoCommit(true);
 		}
     }
+
+	/**
+	 * 批量update(sync方法),每行数据由writer按类型绑定,不需要转换为Object[]
+	 * @param sql sql
+	 * @param rows 数据列表
+	 * @param writer 将一行数据写入参数,如:(user, binder)->binder.setLong(user.getId()).setString(user.getName())
+	 * @param <T> 行类型
+	 * @return 执行结果
+	 * @throws SQLException SQLException
+	 */
+	public synchronized <T>int[] batchUpdate(String sql, List<T> rows, RowWriter<T> writer) throws SQLException {
+		if(rows == null || rows.isEmpty()) {
+			return new int[]{};
+		}
+		try {
+			conn.setAutoCommit(false);
+			try (PreparedStatement pstmt = getBatchPreparedStatement(sql, rows, writer)) {
+				int[] results = pstmt.executeBatch();
+				conn.commit();
+				return results;
+			}
+		} catch (SQLException ex) {
+			try {
+				conn.rollback();
+			} catch (SQLException ignored) {
+			}
+			throw ex;
+		}  finally {
+			conn.setAutoCommit(true);
+		}
+	}
 	
+	/**
+	 * 分块批量导入,数据源不需要一次性加载到内存,每块提交一次事务
+	 * @return 基于当前连接的批量导入辅助类
+	 * @see DbBulkLoader
+	 */
+	public DbBulkLoader bulkLoader() {
+		return new DbBulkLoader(this);
+	}
+
 	/**
 	 * 通过sql和参数列表获取PreparedStatement(批量)
 	 * @param sql sql语句
@@ -722,16 +997,36 @@ public class DbHelper implements Disposable, Closeable {
 	public PreparedStatement getBatchPreparedStatement(String sql, List<Object[]> paramsList) throws SQLException {
 		PreparedStatement pstmt = conn.prepareStatement(sql);
     	for (Object[] list : paramsList) {
-    		for (int i = 0; i < list.length; i++) {
-				pstmt.setObject(i+1, list[i]);
-			}
+    		ParamBinder.bind(pstmt, list);
 			pstmt.addBatch();
 		}
     	return pstmt;
 	}
+
+	/**
+	 * 通过sql和数据列表获取PreparedStatement(批量),每行数据由writer按类型绑定
+	 * @param sql sql语句
+	 * @param rows 数据列表
+	 * @param writer 将一行数据写入参数
+	 * @param <T> 行类型
+	 * @return PreparedStatement
+	 * @throws SQLException sql异常
+	 */
+	public <T>PreparedStatement getBatchPreparedStatement(String sql, List<T> rows, RowWriter<T> writer) throws SQLException {
+		PreparedStatement pstmt = conn.prepareStatement(sql);
+		ParamBinder binder = new ParamBinder(pstmt);
+		for (T row : rows) {
+			writer.write(row, binder.reset());
+			pstmt.addBatch();
+		}
+		return pstmt;
+	}
 	
 	/**
 	 * 通过sql和参数列表获取PreparedStatement
+	 * <p>
+	 * 开启语句缓存(statementCache(int))后返回的是缓存中的语句,不要自行关闭
+	 * </p>
 	 * 
 	 * @param sql sql语句
 	 * @param params 参数数组
@@ -739,27 +1034,72 @@ public class DbHelper implements Disposable, Closeable {
 	 * @throws SQLException sql异常
 	 */
 	public PreparedStatement getPreparedStatement(String sql, Object[] params) throws SQLException {
-		PreparedStatement pstmt = conn.prepareStatement(sql);
-		if(params != null) {
-	    	for (int i = 0; i < params.length; i++) {
-	    		Object item = params[i];
-	    		pstmt.setObject(i+1, item);
-			}
-		}
+		PreparedStatement pstmt = stmtCache != null ? stmtCache.get(sql) : conn.prepareStatement(sql);
+		ParamBinder.bind(pstmt, params);
     	return pstmt;
 	}
 	
 	public PreparedStatement getPreparedStatement(String sql, Object[] params,  int autoGeneratedKeys) throws SQLException {
-		PreparedStatement pstmt = conn.prepareStatement(sql, autoGeneratedKeys);
-		if(params != null) {
-	    	for (int i = 0; i < params.length; i++) {
-	    		Object item = params[i];
-	    		pstmt.setObject(i+1, item);
-			}
-		}
+		PreparedStatement pstmt = stmtCache != null ? stmtCache.get(sql, autoGeneratedKeys) : conn.prepareStatement(sql, autoGeneratedKeys);
+		ParamBinder.bind(pstmt, params);
     	return pstmt;
 	}
 
+	/**
+	 * 获取流式查询用的PreparedStatement(只进只读)
+	 * <p>
+	 * mysql驱动只有在fetchSize为Integer.MIN_VALUE时才会逐行读取,否则会把整个结果集读入内存
+	 * </p>
+	 * @param sql sql
+	 * @param params 参数,可以为null
+	 * @param fetchSize 每次从数据库读取的行数
+	 * @return PreparedStatement
+	 * @throws SQLException sql异常
+	 */
+	public PreparedStatement getStreamingStatement(String sql, Object[] params, int fetchSize) throws SQLException {
+		PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		try {
+			pstmt.setFetchSize(isMysql() ? Integer.MIN_VALUE : fetchSize);
+			ParamBinder.bind(pstmt, params);
+		} catch (SQLException ex) {
+			pstmt.close();
+			throw ex;
+		}
+		return pstmt;
+	}
+
+	/**
+	 * 获取将当前行转换为map的转换器,列名只在创建时读取一次
+	 * @param md 结果集元数据
+	 * @return 单行转换器
+	 * @throws SQLException SQLException
+	 */
+	public static ColConverter<Map<String, Object>> mapConverter(ResultSetMetaData md) throws SQLException {
+		int columnCount = md.getColumnCount();
+		String[] labels = new String[columnCount];
+		for (int i = 1; i <= columnCount; i++) {
+			labels[i-1] = md.getColumnLabel(i);
+		}
+		return rs -> {
+			Map<String, Object> rowData = new HashMap<>(columnCount*4/3+1);
+			for (int i = 1; i <= columnCount; i++) {
+				rowData.put(labels[i-1], rs.getObject(i));
+			}
+			return rowData;
+		};
+	}
+
+	/**
+	 * 将resultSet转化为列式存储的ResultTable
+	 * @param rs ResultSet
+	 * @return ResultTable
+	 * @throws SQLException SQLException
+	 * @see ResultTable
+	 */
+	public static ResultTable convert2Table(ResultSet rs) throws SQLException {
+		return ResultTable.of(rs);
+	}
+
 	/**
 	 * 将resultset转化为List&lt;Map&lt;String, Object&gt;&gt;
 	 * <p>
@@ -794,45 +1134,22 @@ public class DbHelper implements Disposable, Closeable {
 	}
 	
 	/**
-	 * 将resultSet转化为对象列表(方法有待验证及优化)
+	 * 将resultSet转化为对象列表
+	 * <p>
+	 * 列与字段的对应关系由BeanConverter解析并缓存,同一类型同一组列只解析一次
+	 * </p>
 	 * @param rs ResultSet
 	 * @param clazz 类型
 	 * @return list
 	 * @throws SQLException SQLException
+	 * @see BeanConverter
 	 */
 	public static <T>List<T> convert2List(ResultSet rs, Class<T> clazz) throws SQLException {
 		try {
 			List<T> list = new ArrayList<>();
-			ResultSetMetaData md = rs.getMetaData();
-			int columnCount = md.getColumnCount(); // Map rowData;
-			String[] cols = new String[columnCount];
-			for (int i = 1; i <= columnCount; i++) {
-				cols[i-1] = StringUtils.underline2Camel(md.getColumnName(i), false);	//首字母大写，驼峰
-			}
-			while (rs.next()) { // rowData = new HashMap(columnCount);
-				T rowData = ReflectionUtils.newInstace(clazz);
-				for (int i = 1; i <= columnCount; i++) {
-					Object value = rs.getObject(i);
-					Field[] fields = clazz.getDeclaredFields();
-					for (Field field : fields) {
-						if(field.getName().equalsIgnoreCase(cols[i-1])) {
-							// 类型转换
-							if (field.getType() == Boolean.class) {
-								value = ObjectUtils.toBoolean(value);
-							} else if (field.getType() == boolean.class) {
-								value = ObjectUtils.toBoolean(value);
-							} else if (field.getType() == Date.class) {
-								value = ObjectUtils.toDate(value);
-							}
-							// 设置字段
-							boolean flag = field.isAccessible();
-							field.setAccessible(true);
-							field.set(rowData, value);
-							field.setAccessible(flag);
-						}
-					}
-				}
-				list.add(rowData);
+			BeanConverter<T> converter = BeanConverter.of(clazz, rs.getMetaData());
+			while (rs.next()) {
+				list.add(converter.apply(rs));
 			}
 			return list;
 		} catch(Exception ex) {
@@ -909,6 +1226,9 @@ public class DbHelper implements Disposable, Closeable {
 	 * @return list
 	 */
 	public List<String> tableNameList(String catalog, String schema, String tableName) throws SQLException {
+		if(isMetaCached(catalog, schema) && isAll(tableName)) {
+			return metaCache.tableNameList(this);
+		}
 		DatabaseMetaData dbmd = conn.getMetaData();
 
 		ArrayList<String> tableNameList = new ArrayList<>();
@@ -943,6 +1263,31 @@ public class DbHelper implements Disposable, Closeable {
 		return columnList(null, "%", tableName);
 	}
 
+	/**
+	 * 获取表信息列表(不走缓存)
+	 * @param catalog catalog
+	 * @param schema schema
+	 * @param tableName 表名(支持通配符)
+	 * @param types 表类型,如{"TABLE", "VIEW"},为null时返回所有类型
+	 * @return list
+	 * @throws SQLException SQLException
+	 */
+	public List<TablePojo> tableList(String catalog, String schema, String tableName, String[] types) throws SQLException {
+		List<TablePojo> list = new ArrayList<>();
+		try (ResultSet rs = conn.getMetaData().getTables(escape(catalog), escape(schema), escape(tableName), types)) {
+			while (rs.next()) {
+				TablePojo table = new TablePojo();
+				table.setCat(rs.getString("TABLE_CAT"));
+				table.setSchem(rs.getString("TABLE_SCHEM"));
+				table.setName(rs.getString("TABLE_NAME"));
+				table.setType(rs.getString("TABLE_TYPE"));
+				table.setRemark(rs.getString("REMARKS"));
+				list.add(table);
+			}
+		}
+		return list;
+	}
+
 	/**
 	 * 通过表名获取每一个字段的信息
 	 *
@@ -954,14 +1299,24 @@ public class DbHelper implements Disposable, Closeable {
 	 * @return list
 	 */
 	public List<ColumnPojo> columnList(String catalog, String schema, String tableName) throws SQLException {
+		if(isMetaCached(catalog, schema)) {
+			return metaCache.columnList(this, tableName);
+		}
+		return loadColumnList(catalog, schema, tableName);
+	}
+
+	/**
+	 * 查询元数据获取字段信息(不走缓存)
+	 */
+	List<ColumnPojo> loadColumnList(String catalog, String schema, String tableName) throws SQLException {
 		List<ColumnPojo> columns = new ArrayList<>();
 
 		catalog = escape(catalog);
 		schema = escape(schema);
 		tableName = escape(tableName);
 
-		List<String> primaryKeyList = primaryKeyList(catalog, schema, tableName);	//主键列表
-		Map<String, TypePojo> typeMap = typeMap(tableName);
+		List<String> primaryKeyList = loadPrimaryKeyList(catalog, schema, tableName);	//主键列表
+		Map<String, TypePojo> typeMap = loadTypeMap(tableName);
 		DatabaseMetaData dbmd = conn.getMetaData();
 		ResultSet columnSet = dbmd.getColumns(catalog, schema, tableName, "%");
 
@@ -992,6 +1347,44 @@ public class DbHelper implements Disposable, Closeable {
 //			ResultSetMetaData md = columnSet.getMetaData();
 
 		while (columnSet.next()) {
+			columns.add(toColumnPojo(columnSet, primaryKeyList, typeMap));
+		}
+		columnSet.close();
+
+		return columns;
+
+	}
+
+	/**
+	 * 一次元数据查询获取多张表的字段信息(不走缓存),供DbMetaCache预加载使用
+	 * @param schema schema
+	 * @param tableNames 需要的表
+	 * @param pkMap {表名: 主键列表}
+	 * @return {表名: 字段列表}
+	 */
+	Map<String, List<ColumnPojo>> loadAllColumns(String schema, Collection<String> tableNames, Map<String, List<String>> pkMap) throws SQLException {
+		Map<String, Map<String, TypePojo>> typeMaps = loadAllTypeMaps(schema, tableNames);
+		Map<String, List<ColumnPojo>> columnMap = new HashMap<>();
+		try (ResultSet columnSet = conn.getMetaData().getColumns(null, escape(schema), "%", "%")) {
+			while (columnSet.next()) {
+				String tableName = columnSet.getString("TABLE_NAME");
+				if(!tableNames.contains(tableName)) {
+					continue;
+				}
+				ColumnPojo column = toColumnPojo(
+						columnSet,
+						pkMap.getOrDefault(tableName, Collections.emptyList()),
+						typeMaps.getOrDefault(tableName, Collections.emptyMap()));
+				columnMap.computeIfAbsent(tableName, k -> new ArrayList<>()).add(column);
+			}
+		}
+		return columnMap;
+	}
+
+	/**
+	 * 将getColumns返回的当前行转换为ColumnPojo
+	 */
+	private static ColumnPojo toColumnPojo(ResultSet columnSet, List<String> primaryKeyList, Map<String, TypePojo> typeMap) throws SQLException {
 			ColumnPojo column = new ColumnPojo();
 			String columnName = columnSet.getString("COLUMN_NAME");
 			//是否在主键列表里
@@ -1016,12 +1409,7 @@ public class DbHelper implements Disposable, Closeable {
 			if(typeMap.containsKey(columnName)) {
 				column.setTypePojo(typeMap.get(columnName));
 			}
-
-			columns.add(column);
-		}
-
-		return columns;
-
+			return column;
 	}
 
 	/**
@@ -1030,10 +1418,21 @@ public class DbHelper implements Disposable, Closeable {
 	 * @return list
 	 */
 	public List<String> primaryKeyList(String catalog, String schema, String tableName) throws SQLException {
+		if(isMetaCached(catalog, schema)) {
+			return metaCache.primaryKeyList(this, tableName);
+		}
+		return loadPrimaryKeyList(catalog, schema, tableName);
+	}
+
+	/**
+	 * 查询元数据获取主键(不走缓存)
+	 */
+	List<String> loadPrimaryKeyList(String catalog, String schema, String tableName) throws SQLException {
 		List<String> list = new ArrayList<>();
-		ResultSet rs = conn.getMetaData().getPrimaryKeys(catalog, schema, tableName);
-		while(rs.next()) {
-			list.add(rs.getString("COLUMN_NAME"));
+		try (ResultSet rs = conn.getMetaData().getPrimaryKeys(catalog, schema, tableName)) {
+			while(rs.next()) {
+				list.add(rs.getString("COLUMN_NAME"));
+			}
 		}
 		return list;
 	}
@@ -1047,6 +1446,16 @@ public class DbHelper implements Disposable, Closeable {
 	 * @return map
 	 */
 	public Map<String, TypePojo> typeMap(String tableName) throws SQLException {
+		if(metaCache != null && metaCache.covers(null, null)) {
+			return metaCache.typeMap(this, tableName);
+		}
+		return loadTypeMap(tableName);
+	}
+
+	/**
+	 * 获取字段类型列表(不走缓存)
+	 */
+	private Map<String, TypePojo> loadTypeMap(String tableName) throws SQLException {
 		switch(dbType) {
 			case DbPojo.TYPE_MYSQL:
 				return typeMap_Mysql(tableName);
@@ -1096,11 +1505,45 @@ public class DbHelper implements Disposable, Closeable {
 		return typeMap;
 	}
 	
+	/**
+	 * 获取多张表的字段类型列表,mysql下通过information_schema一次查询得到,其它数据库逐表查询
+	 * @param schema schema,为%时代表当前库
+	 * @param tableNames 表名列表
+	 * @return {表名: {字段名: 类型信息}}
+	 */
+	private Map<String, Map<String, TypePojo>> loadAllTypeMaps(String schema, Collection<String> tableNames) throws SQLException {
+		Map<String, Map<String, TypePojo>> typeMaps = new HashMap<>();
+		if(isMysql()) {
+			boolean currentDb = schema == null || "%".equals(schema);
+			String sql = "SELECT TABLE_NAME, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE, EXTRA, COLUMN_KEY FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = "
+					+ (currentDb ? "DATABASE()" : "?");
+			List<Map<String, Object>> typeList = queryMapList(sql, currentDb ? null : new Object[]{schema});
+			for (Map<String, Object> map : typeList) {
+				String field = (String) map.get("COLUMN_NAME");
+				typeMaps.computeIfAbsent((String) map.get("TABLE_NAME"), k -> new HashMap<>())
+						.put(field, new TypePojo()
+								.setField(field)
+								.setType((String) map.get("COLUMN_TYPE"))
+								.setNullAble("YES".equals(map.get("IS_NULLABLE")))
+								.setExtra((String) map.get("EXTRA"))
+								.setKey((String) map.get("COLUMN_KEY")));
+			}
+		} else if(isSqlite()) {
+			for (String tableName : tableNames) {
+				typeMaps.put(tableName, typeMap_Sqlite(tableName));
+			}
+		}
+		return typeMaps;
+	}
+
 	/**
 	 * 获取所有表结构
 	 * @return 字段类型列表
 	 */
 	public Map<String, List<ColumnPojo>> tableColumnMap(String catalog, String schema, String tableName) throws SQLException {
+		if(isMetaCached(catalog, schema) && isAll(tableName)) {
+			return metaCache.tableColumnMap(this);
+		}
 		return tableNameList(catalog, schema, tableName).stream()
 				.collect(Collectors.toMap(tableName1->tableName1, tableName1-> {
 					try {
@@ -1122,6 +1565,16 @@ public class DbHelper implements Disposable, Closeable {
 	 * @return list
 	 */
 	public List<DBIPojo> dbiList(String tableName) {
+		if(metaCache != null && metaCache.covers(null, null)) {
+			return metaCache.dbiList(this, tableName);
+		}
+		return loadDbiList(tableName);
+	}
+
+	/**
+	 * 查询元数据获取索引信息(不走缓存)
+	 */
+	List<DBIPojo> loadDbiList(String tableName) {
 		List<DBIPojo> dbiList = new  ArrayList<>();
 		try {
 			ResultSet rs = conn.getMetaData().getIndexInfo(null, null, tableName, false, false);
@@ -1180,8 +1633,12 @@ public class DbHelper implements Disposable, Closeable {
 	 * @throws SQLException	可能是连接数据库异常,所以不能确定是否存在表
 	 */
 	public boolean isTableExisted(String tableName) throws SQLException {
-		ResultSet rs = conn.getMetaData().getTables(null, null, tableName, null);
-		return rs.next();
+		if(metaCache != null && metaCache.covers(null, null)) {
+			return metaCache.isTableExisted(this, tableName);
+		}
+		try (ResultSet rs = conn.getMetaData().getTables(null, null, tableName, null)) {
+			return rs.next();
+		}
 	}
 	
 	/*----内部工具方法------*/
@@ -1194,6 +1651,23 @@ public class DbHelper implements Disposable, Closeable {
 		return params == null || params.length == 0;
 	}
 	
+	/**
+	 * @param catalog catalog
+	 * @param schema schema
+	 * @return 元数据查询是否走缓存
+	 */
+	private boolean isMetaCached(String catalog, String schema) {
+		return metaCache != null && metaCache.covers(catalog, schema);
+	}
+
+	/**
+	 * @param pattern 表名通配符
+	 * @return 是否匹配所有表
+	 */
+	private static boolean isAll(String pattern) {
+		return pattern == null || "%".equals(pattern);
+	}
+
 	/**
 	 * @param clazz 类型
 	 * @return 一个类是否为基础类型
@@ -1243,11 +1717,24 @@ public class DbHelper implements Disposable, Closeable {
 	/**
 	 * 关闭数据库连接.释放资源
 	 * <p>
-	 * 和close()的作用相同
+	 * 和close()的作用相同,非池化连接会先等待async()中已提交的任务执行完毕(最多30秒)再关闭连接
 	 * </p>
 	 */
 	@Override
 	public void dispose() {
+		if(asyncExecutor != null) {
+			asyncExecutor.dispose();
+			asyncExecutor = null;
+		}
+		if(stmtCache != null) {
+			stmtCache.clear();
+			stmtCache = null;
+		}
+		if(pool != null) {
+			pool.release(conn);
+			conn = null;
+			return;
+		}
 		try {
 			if(conn != null) {
 				conn.close();
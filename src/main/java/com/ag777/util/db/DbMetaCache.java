@@ -0,0 +1,393 @@
+package com.ag777.util.db;
+
+import com.ag777.util.Utils;
+import com.ag777.util.db.model.ColumnPojo;
+import com.ag777.util.db.model.DBIPojo;
+import com.ag777.util.db.model.TablePojo;
+import com.ag777.util.db.model.TypePojo;
+import com.ag777.util.file.FileUtils;
+import com.ag777.util.lang.exception.model.JsonSyntaxException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 数据库结构(元数据)缓存
+ * <p>
+ * 按 连接url+schema 共享,缓存表、字段、主键、索引信息,避免每次调用DbHelper.columnList等方法都查询DatabaseMetaData。
+ * 通过DbHelper.metaCache(DbMetaCache)或DbPool.metaCache(DbMetaCache)启用,
+ * 只有catalog为null且schema与缓存一致(缓存schema为null时对应传入null或%)的调用会走缓存。
+ * </p>
+ * <ul>
+ * <li>ttl: 缓存有效期,过期后下次访问重新加载,小于等于0则永不过期</li>
+ * <li>invalidate()/invalidate(tableName): 表结构变更后手动失效</li>
+ * <li>preload(helper): 一次元数据查询加载所有表及字段</li>
+ * <li>saveSnapshot/loadSnapshot: 保存到磁盘/从磁盘恢复,服务启动时不需要重新查询</li>
+ * </ul>
+ * 缓存在所有连接间共享,查询方法返回的列表是缓存的副本,可以随意修改;列表中的对象(TablePojo/ColumnPojo等)是共享的,请不要修改。
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 11:00
+ */
+public class DbMetaCache {
+
+	private static final Map<String, DbMetaCache> CACHES = new ConcurrentHashMap<>();
+	static final String[] TABLE_TYPES = new String[]{"TABLE", "VIEW"};
+
+	private final String url;
+	private final String schema;
+	private volatile long ttl;
+
+	private volatile Timed<List<TablePojo>> tables;
+	private final Map<String, Timed<List<ColumnPojo>>> columns = new ConcurrentHashMap<>();
+	private final Map<String, Timed<List<String>>> primaryKeys = new ConcurrentHashMap<>();
+	private final Map<String, Timed<List<DBIPojo>>> indexes = new ConcurrentHashMap<>();
+
+	private DbMetaCache(String url, String schema, long ttl) {
+		this.url = url;
+		this.schema = schema;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * 获取(或创建)url+schema对应的缓存
+	 * @param url 连接url
+	 * @param schema schema,为null代表连接默认的schema
+	 * @param ttl 有效期(毫秒),小于等于0则永不过期,缓存已存在时更新其有效期
+	 * @return DbMetaCache
+	 */
+	public static DbMetaCache of(String url, String schema, long ttl) {
+		DbMetaCache cache = CACHES.computeIfAbsent(url+'|'+schema, k -> new DbMetaCache(url, schema, ttl));
+		cache.ttl = ttl;
+		return cache;
+	}
+
+	/**
+	 * 获取(或创建)连接对应的缓存
+	 * @param helper DbHelper
+	 * @param schema schema,为null代表连接默认的schema
+	 * @param ttl 有效期(毫秒),小于等于0则永不过期
+	 * @return DbMetaCache
+	 * @throws SQLException 获取连接url失败
+	 */
+	public static DbMetaCache of(DbHelper helper, String schema, long ttl) throws SQLException {
+		return of(helper.getConn().getMetaData().getURL(), schema, ttl);
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getSchema() {
+		return schema;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	/**
+	 * @param catalog catalog
+	 * @param schema schema
+	 * @return 该查询条件是否在缓存范围内
+	 */
+	public boolean covers(String catalog, String schema) {
+		if(catalog != null) {
+			return false;
+		}
+		if(schema == null || "%".equals(schema)) {
+			return this.schema == null;
+		}
+		return schema.equals(this.schema);
+	}
+
+	/*----查询(未命中或过期时通过helper加载)------*/
+
+	/**
+	 * @return 表列表(副本)
+	 */
+	public List<TablePojo> tableList(DbHelper helper) throws SQLException {
+		return new ArrayList<>(cachedTableList(helper));
+	}
+
+	/**
+	 * @return 表名列表,规则同DbHelper.tableNameList:只包含TABLE类型且表名不带$
+	 */
+	public List<String> tableNameList(DbHelper helper) throws SQLException {
+		return cachedTableList(helper).stream()
+				.filter(t -> "TABLE".equalsIgnoreCase(t.getType()) && !t.getName().contains("$"))
+				.map(TablePojo::getName)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * 判断表是否存在
+	 * <p>
+	 * 按驱动的标识符大小写规则(storesUpperCaseIdentifiers/storesLowerCaseIdentifiers)与缓存的表名比较,
+	 * 缓存中找不到时退回getTables查询(所有schema及表类型,与不使用缓存时一致)
+	 * </p>
+	 */
+	public boolean isTableExisted(DbHelper helper, String tableName) throws SQLException {
+		List<TablePojo> tableList = cachedTableList(helper);
+		for (TablePojo table : tableList) {
+			if(table.getName().equals(tableName)) {
+				return true;
+			}
+		}
+		DatabaseMetaData md = helper.getConn().getMetaData();
+		String folded = md.storesUpperCaseIdentifiers() ? tableName.toUpperCase(Locale.ROOT)
+				: md.storesLowerCaseIdentifiers() ? tableName.toLowerCase(Locale.ROOT) : tableName;
+		if(!folded.equals(tableName)) {
+			for (TablePojo table : tableList) {
+				if(table.getName().equals(folded)) {
+					return true;
+				}
+			}
+		}
+		try (ResultSet rs = md.getTables(null, null, tableName, null)) {
+			return rs.next();
+		}
+	}
+
+	/**
+	 * @return 字段列表(副本)
+	 */
+	public List<ColumnPojo> columnList(DbHelper helper, String tableName) throws SQLException {
+		return new ArrayList<>(cachedColumnList(helper, tableName));
+	}
+
+	/**
+	 * @return 主键列表(副本)
+	 */
+	public List<String> primaryKeyList(DbHelper helper, String tableName) throws SQLException {
+		Timed<List<String>> t = primaryKeys.get(tableName);
+		if(isExpired(t)) {
+			t = new Timed<>(helper.loadPrimaryKeyList(null, schemaPattern(), tableName));
+			primaryKeys.put(tableName, t);
+		}
+		return new ArrayList<>(t.value);
+	}
+
+	/**
+	 * @return 由缓存的字段信息得到的字段类型列表(每次新建的map)
+	 */
+	public Map<String, TypePojo> typeMap(DbHelper helper, String tableName) throws SQLException {
+		Map<String, TypePojo> typeMap = new HashMap<>();
+		for (ColumnPojo column : cachedColumnList(helper, tableName)) {
+			if(column.getTypePojo() != null) {
+				typeMap.put(column.getName(), column.getTypePojo());
+			}
+		}
+		return typeMap;
+	}
+
+	/**
+	 * @return 表名-&gt;字段列表(每次新建的map,字段列表为副本)
+	 */
+	public Map<String, List<ColumnPojo>> tableColumnMap(DbHelper helper) throws SQLException {
+		Map<String, List<ColumnPojo>> map = new HashMap<>();
+		for (String tableName : tableNameList(helper)) {
+			try {
+				map.put(tableName, columnList(helper, tableName));
+			} catch (SQLException exception) {
+				map.put(tableName, new ArrayList<>());
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * @return 索引列表(副本)
+	 */
+	public List<DBIPojo> dbiList(DbHelper helper, String tableName) {
+		Timed<List<DBIPojo>> t = indexes.get(tableName);
+		if(isExpired(t)) {
+			t = new Timed<>(helper.loadDbiList(tableName));
+			indexes.put(tableName, t);
+		}
+		return new ArrayList<>(t.value);
+	}
+
+	/*----加载/失效------*/
+
+	/**
+	 * 预加载所有表及其字段、主键信息
+	 * <p>
+	 * 表和字段各只查询一次元数据(getTables/getColumns不限定表名),
+	 * 主键仍需逐表查询(JDBC规范要求指定表名),索引在首次访问时加载
+	 * </p>
+	 * @param helper DbHelper
+	 * @return 加载的表数量
+	 * @throws SQLException SQLException
+	 */
+	public int preload(DbHelper helper) throws SQLException {
+		List<TablePojo> tableList = helper.tableList(null, schemaPattern(), "%", TABLE_TYPES);
+		Set<String> tableNames = tableList.stream().map(TablePojo::getName).collect(Collectors.toCollection(LinkedHashSet::new));
+		Map<String, List<String>> pkMap = new HashMap<>();
+		for (String tableName : tableNames) {
+			pkMap.put(tableName, helper.loadPrimaryKeyList(null, schemaPattern(), tableName));
+		}
+		Map<String, List<ColumnPojo>> columnMap = helper.loadAllColumns(schemaPattern(), tableNames, pkMap);
+
+		long now = System.currentTimeMillis();
+		tables = new Timed<>(tableList, now);
+		for (String tableName : tableNames) {
+			primaryKeys.put(tableName, new Timed<>(pkMap.get(tableName), now));
+			columns.put(tableName, new Timed<>(columnMap.getOrDefault(tableName, new ArrayList<>()), now));
+		}
+		return tableNames.size();
+	}
+
+	/**
+	 * 清空所有缓存
+	 */
+	public void invalidate() {
+		tables = null;
+		columns.clear();
+		primaryKeys.clear();
+		indexes.clear();
+	}
+
+	/**
+	 * 失效某张表的缓存(表结构变更后调用),同时失效表列表
+	 * @param tableName 表名
+	 */
+	public void invalidate(String tableName) {
+		tables = null;
+		columns.remove(tableName);
+		primaryKeys.remove(tableName);
+		indexes.remove(tableName);
+	}
+
+	/*----快照------*/
+
+	/**
+	 * 将当前缓存(不含已过期的部分)保存到文件
+	 * @param filePath 文件路径
+	 * @throws IOException 写文件失败
+	 */
+	public void saveSnapshot(String filePath) throws IOException {
+		Snapshot snapshot = new Snapshot();
+		snapshot.url = url;
+		snapshot.schema = schema;
+		snapshot.time = System.currentTimeMillis();
+		Timed<List<TablePojo>> t = tables;
+		snapshot.tables = isExpired(t) ? null : t.value;
+		snapshot.columns = unexpired(columns);
+		snapshot.primaryKeys = unexpired(primaryKeys);
+		snapshot.indexes = unexpired(indexes);
+		FileUtils.write(filePath, Utils.jsonUtils().toJson(snapshot), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 从文件恢复缓存,恢复的数据从此刻开始计算有效期
+	 * @param filePath 文件路径
+	 * @return 是否恢复成功(文件不存在或url/schema不一致时返回false)
+	 * @throws IOException 读文件失败
+	 */
+	public boolean loadSnapshot(String filePath) throws IOException {
+		if(!FileUtils.fileExists(filePath)) {
+			return false;
+		}
+		Snapshot snapshot;
+		try {
+			snapshot = Utils.jsonUtils().fromJsonWithException(FileUtils.readText(filePath, StandardCharsets.UTF_8), Snapshot.class);
+		} catch (JsonSyntaxException ex) {
+			throw new IOException("解析数据库结构快照失败:"+filePath, ex);
+		}
+		if(snapshot == null || !url.equals(snapshot.url) || !Objects.equals(schema, snapshot.schema)) {
+			return false;
+		}
+		long now = System.currentTimeMillis();
+		if(snapshot.tables != null) {
+			tables = new Timed<>(snapshot.tables, now);
+		}
+		restore(snapshot.columns, columns, now);
+		restore(snapshot.primaryKeys, primaryKeys, now);
+		restore(snapshot.indexes, indexes, now);
+		return true;
+	}
+
+	/*----内部工具方法------*/
+
+	/**
+	 * @return 缓存中的表列表本身,只在内部读取
+	 */
+	private List<TablePojo> cachedTableList(DbHelper helper) throws SQLException {
+		Timed<List<TablePojo>> t = tables;
+		if(isExpired(t)) {
+			t = new Timed<>(helper.tableList(null, schemaPattern(), "%", TABLE_TYPES));
+			tables = t;
+		}
+		return t.value;
+	}
+
+	/**
+	 * @return 缓存中的字段列表本身,只在内部读取
+	 */
+	private List<ColumnPojo> cachedColumnList(DbHelper helper, String tableName) throws SQLException {
+		Timed<List<ColumnPojo>> t = columns.get(tableName);
+		if(isExpired(t)) {
+			t = new Timed<>(helper.loadColumnList(null, schemaPattern(), tableName));
+			columns.put(tableName, t);
+		}
+		return t.value;
+	}
+
+	private String schemaPattern() {
+		return schema == null ? "%" : schema;
+	}
+
+	private boolean isExpired(Timed<?> t) {
+		return t == null || (ttl > 0 && System.currentTimeMillis() - t.time > ttl);
+	}
+
+	private <V>Map<String, V> unexpired(Map<String, Timed<V>> map) {
+		Map<String, V> result = new HashMap<>();
+		map.forEach((k, t) -> {
+			if(!isExpired(t)) {
+				result.put(k, t.value);
+			}
+		});
+		return result;
+	}
+
+	private static <V>void restore(Map<String, V> src, Map<String, Timed<V>> target, long time) {
+		if(src != null) {
+			src.forEach((k, v) -> target.put(k, new Timed<>(v, time)));
+		}
+	}
+
+	private static class Timed<V> {
+		private final V value;
+		private final long time;
+
+		Timed(V value) {
+			this(value, System.currentTimeMillis());
+		}
+
+		Timed(V value, long time) {
+			this.value = value;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * 快照文件内容
+	 */
+	private static class Snapshot {
+		private String url;
+		private String schema;
+		private long time;
+		private List<TablePojo> tables;
+		private Map<String, List<ColumnPojo>> columns;
+		private Map<String, List<String>> primaryKeys;
+		private Map<String, List<DBIPojo>> indexes;
+	}
+}
@@ -0,0 +1,393 @@
+package com.ag777.util.db;
+
+import com.ag777.util.db.model.DbDriver;
+import com.ag777.util.db.model.PoolConfig;
+import com.ag777.util.db.model.PoolMetrics;
+import com.ag777.util.lang.interf.Disposable;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据库连接池
+ * <p>
+ * 通过DbHelper.pooled(...)创建,borrow()借出一个绑定连接的DbHelper,
+ * 调用该DbHelper的close()/dispose()时连接归还到池中而不是关闭。
+ * 空闲连接按后进先出复用,由后台线程回收超时的空闲连接并补足最小连接数。
+ * </p>
+ * <pre>{@code
+ *  DbPool pool = DbHelper.pooled(url, user, password, DbDriver.MYSQL, new PoolConfig(2, 20));
+ *  try (DbHelper helper = pool.borrow()) {
+ *      helper.queryMapList(sql);
+ *  }
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 11:20
+ */
+public class DbPool implements Disposable, Closeable {
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private final DbDriver driver;
+	private final PoolConfig config;
+
+	private final LinkedBlockingDeque<IdleConn> idleQueue;	//空闲连接,队首为最近归还的
+	private final Semaphore permits;							//借出许可,控制 借出+新建 不超过最大连接数
+	private final ScheduledExecutorService evictor;
+
+	private volatile String dbType;
+	private volatile DbMetaCache metaCache;
+	private volatile DbAsyncExecutor asyncExecutor;
+	private volatile boolean closed;
+
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong destroyed = new AtomicLong();
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	DbPool(String url, String user, String password, DbDriver driver, PoolConfig config) throws ClassNotFoundException, SQLException {
+		if(config == null) {
+			config = new PoolConfig();
+		}
+		if(config.getMaxSize() <= 0) {
+			throw new IllegalArgumentException("最大连接数必须大于0");
+		}
+		if(config.getMinSize() > config.getMaxSize()) {
+			throw new IllegalArgumentException("最小连接数不能大于最大连接数");
+		}
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.driver = driver;
+		this.config = config;
+		idleQueue = new LinkedBlockingDeque<>();
+		permits = new Semaphore(config.getMaxSize(), true);
+
+		Class.forName(driver.getName());
+		try {
+			for (int i = 0; i < config.getMinSize(); i++) {
+				idleQueue.offerFirst(new IdleConn(createConnection()));
+			}
+		} catch (SQLException ex) {
+			dispose();
+			throw ex;
+		}
+
+		if(config.getEvictInterval() > 0) {
+			evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "DbPool-evictor");
+				t.setDaemon(true);
+				return t;
+			});
+			evictor.scheduleWithFixedDelay(this::evict, config.getEvictInterval(), config.getEvictInterval(), TimeUnit.MILLISECONDS);
+		} else {
+			evictor = null;
+		}
+	}
+
+	/**
+	 * 借出连接
+	 * <p>
+	 * 池中无空闲连接且已达到最大连接数时阻塞等待,超过borrowTimeout抛出SQLException
+	 * </p>
+	 * @return 绑定了池中连接的DbHelper,使用完毕后务必close()
+	 * @throws SQLException 获取超时、线程中断或创建连接失败
+	 */
+	public DbHelper borrow() throws SQLException {
+		return new DbHelper(borrowConnection(), dbType, this).metaCache(metaCache);
+	}
+
+	/**
+	 * 借出原始连接,需要通过release(Connection)归还
+	 * @return Connection
+	 * @throws SQLException 获取超时、线程中断或创建连接失败
+	 */
+	Connection borrowConnection() throws SQLException {
+		assertOpen();
+		long start = System.nanoTime();
+		acquirePermit();
+		try {
+			Connection conn = takeIdleOrCreate();
+			long wait = System.nanoTime() - start;
+			borrowCount.incrementAndGet();
+			totalWaitNanos.addAndGet(wait);
+			maxWaitNanos.accumulateAndGet(wait, Math::max);
+			active.incrementAndGet();
+			return conn;
+		} catch (SQLException|RuntimeException ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * 归还连接
+	 * <p>
+	 * 未提交的事务会被回滚,autoCommit会被还原为true;连接已关闭或池已关闭时直接销毁
+	 * </p>
+	 * @param conn 通过本池借出的连接
+	 */
+	void release(Connection conn) {
+		if(conn == null) {
+			return;
+		}
+		active.decrementAndGet();
+		try {
+			if(closed || conn.isClosed()) {
+				destroy(conn);
+				return;
+			}
+			if(!conn.getAutoCommit()) {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+			idleQueue.offerFirst(new IdleConn(conn));
+			if(closed) {	//归还过程中池被关闭
+				closeIdle();
+			}
+		} catch (SQLException ex) {
+			destroy(conn);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * @return 从池中借出多个连接并行写入的批量导入辅助类
+	 * @see DbBulkLoader
+	 */
+	public DbBulkLoader bulkLoader() {
+		return new DbBulkLoader(this);
+	}
+
+	/**
+	 * 获取异步执行器(首次调用时创建,随连接池一起关闭)
+	 * <p>
+	 * 每个任务借出一个连接,并发任务数不超过最大连接数
+	 * </p>
+	 * @return DbAsyncExecutor
+	 */
+	public DbAsyncExecutor async() {
+		DbAsyncExecutor executor = asyncExecutor;
+		if(executor == null) {
+			synchronized (this) {
+				executor = asyncExecutor;
+				if(executor == null) {
+					executor = new DbAsyncExecutor(this);
+					asyncExecutor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * 设置借出的DbHelper使用的数据库结构缓存
+	 * @param metaCache 缓存,为null时不使用缓存
+	 * @return DbPool
+	 */
+	public DbPool metaCache(DbMetaCache metaCache) {
+		this.metaCache = metaCache;
+		return this;
+	}
+
+	/**
+	 * @return 当前连接池指标快照
+	 */
+	public PoolMetrics metrics() {
+		return new PoolMetrics(
+				active.get(),
+				idleQueue.size(),
+				permits.getQueueLength(),
+				created.get(),
+				destroyed.get(),
+				borrowCount.get(),
+				timeoutCount.get(),
+				TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+				TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+	}
+
+	public PoolConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * @return 数据库类型(mysql/oracle/sqlite等),池中未创建过连接时为null
+	 */
+	public String getDbType() {
+		return dbType;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/*----内部工具方法------*/
+
+	private void acquirePermit() throws SQLException {
+		try {
+			if(config.getBorrowTimeout() > 0) {
+				if(!permits.tryAcquire(config.getBorrowTimeout(), TimeUnit.MILLISECONDS)) {
+					timeoutCount.incrementAndGet();
+					throw new SQLException("获取数据库连接超时:"+config.getBorrowTimeout()+"ms, "+metrics());
+				}
+			} else {
+				permits.acquire();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("等待数据库连接时线程被中断", ex);
+		}
+	}
+
+	private Connection takeIdleOrCreate() throws SQLException {
+		IdleConn idle;
+		while((idle = idleQueue.pollFirst()) != null) {
+			if(!config.isValidateOnBorrow() || validate(idle.conn)) {
+				return idle.conn;
+			}
+			destroy(idle.conn);
+		}
+		return createConnection();
+	}
+
+	private Connection createConnection() throws SQLException {
+		Connection conn;
+		try {
+			conn = DbConnectionUtil.connect(url, user, password, driver, copyProps());
+		} catch (ClassNotFoundException ex) {
+			throw new SQLException("未找到数据库驱动:"+driver.getName(), ex);
+		}
+		if(dbType == null) {
+			dbType = conn.getMetaData().getDatabaseProductName();
+		}
+		created.incrementAndGet();
+		return conn;
+	}
+
+	/**
+	 * DbConnectionUtil会往props里写入账号密码,这里复制一份避免修改配置里的对象
+	 */
+	private Properties copyProps() {
+		Properties props = new Properties();
+		if(config.getProps() != null) {
+			props.putAll(config.getProps());
+		}
+		return props;
+	}
+
+	/**
+	 * 通过DbHelper.test(timeoutSeconds)校验连接
+	 */
+	private boolean validate(Connection conn) {
+		try {
+			if(conn.isClosed()) {
+				return false;
+			}
+		} catch (SQLException ex) {
+			return false;
+		}
+		return new DbHelper(conn, dbType, null).test(config.getValidationTimeoutSeconds());
+	}
+
+	private void destroy(Connection conn) {
+		try {
+			conn.close();
+		} catch (SQLException ignored) {
+		}
+		destroyed.incrementAndGet();
+	}
+
+	/**
+	 * 回收超时的空闲连接,并补足最小连接数
+	 */
+	private void evict() {
+		if(closed) {
+			return;
+		}
+		try {
+			if(config.getIdleTimeout() > 0) {
+				long deadline = System.currentTimeMillis() - config.getIdleTimeout();
+				Iterator<IdleConn> itr = idleQueue.descendingIterator();	//从最久未使用的开始
+				while(itr.hasNext()) {
+					IdleConn idle = itr.next();
+					if(idleQueue.size() + active.get() <= config.getMinSize()) {
+						break;
+					}
+					if(idle.lastUsed > deadline) {
+						continue;
+					}
+					if(idleQueue.removeLastOccurrence(idle)) {
+						destroy(idle.conn);
+					}
+				}
+			}
+			while(!closed && idleQueue.size() + active.get() < config.getMinSize() && permits.tryAcquire()) {
+				try {
+					idleQueue.offerLast(new IdleConn(createConnection()));
+				} finally {
+					permits.release();
+				}
+			}
+		} catch (Throwable t) {	//不能让异常终止定时任务
+			t.printStackTrace();
+		}
+	}
+
+	private void assertOpen() throws SQLException {
+		if(closed) {
+			throw new SQLException("连接池已关闭");
+		}
+	}
+
+	private void closeIdle() {
+		IdleConn idle;
+		while((idle = idleQueue.pollFirst()) != null) {
+			destroy(idle.conn);
+		}
+	}
+
+	/**
+	 * 关闭连接池
+	 * <p>
+	 * 先等待async()中已提交的任务执行完毕(最多30秒),再关闭所有空闲连接,借出中的连接在归还时关闭
+	 * </p>
+	 */
+	@Override
+	public void close() {
+		dispose();
+	}
+
+	@Override
+	public void dispose() {
+		if(asyncExecutor != null) {
+			asyncExecutor.dispose();	//在标记关闭前等待,已提交的任务还需要借出连接
+		}
+		closed = true;
+		if(evictor != null) {
+			evictor.shutdownNow();
+		}
+		closeIdle();
+	}
+
+	private static class IdleConn {
+		private final Connection conn;
+		private final long lastUsed;
+
+		IdleConn(Connection conn) {
+			this.conn = conn;
+			this.lastUsed = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.ag777.util.db;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * 预编译语句参数绑定器
+ * <p>
+ * 按顺序绑定参数(第一次调用绑定第1个占位符,以此类推),原始类型直接调用对应的setInt/setLong等方法,不需要装箱,
+ * 驱动也不需要在运行时推断参数类型。同一个绑定器可以通过reset()在多行之间复用。
+ * </p>
+ * <pre>{@code
+ *  ParamBinder binder = new ParamBinder(pstmt);
+ *  for (User user : users) {
+ *      binder.reset().setLong(user.getId()).setString(user.getName());
+ *      pstmt.addBatch();
+ *  }
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 16:10
+ */
+public class ParamBinder {
+
+	private final PreparedStatement pstmt;
+	private int index;	//已绑定的参数个数
+
+	public ParamBinder(PreparedStatement pstmt) {
+		this.pstmt = pstmt;
+	}
+
+	/**
+	 * 回到第一个占位符
+	 * @return ParamBinder
+	 */
+	public ParamBinder reset() {
+		index = 0;
+		return this;
+	}
+
+	/**
+	 * @return 已绑定的参数个数
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	public PreparedStatement getStatement() {
+		return pstmt;
+	}
+
+	public ParamBinder setInt(int value) throws SQLException {
+		pstmt.setInt(++index, value);
+		return this;
+	}
+
+	public ParamBinder setLong(long value) throws SQLException {
+		pstmt.setLong(++index, value);
+		return this;
+	}
+
+	public ParamBinder setDouble(double value) throws SQLException {
+		pstmt.setDouble(++index, value);
+		return this;
+	}
+
+	public ParamBinder setFloat(float value) throws SQLException {
+		pstmt.setFloat(++index, value);
+		return this;
+	}
+
+	public ParamBinder setBoolean(boolean value) throws SQLException {
+		pstmt.setBoolean(++index, value);
+		return this;
+	}
+
+	public ParamBinder setString(String value) throws SQLException {
+		pstmt.setString(++index, value);
+		return this;
+	}
+
+	public ParamBinder setBigDecimal(BigDecimal value) throws SQLException {
+		pstmt.setBigDecimal(++index, value);
+		return this;
+	}
+
+	public ParamBinder setTimestamp(Timestamp value) throws SQLException {
+		pstmt.setTimestamp(++index, value);
+		return this;
+	}
+
+	/**
+	 * 以Timestamp绑定java.util.Date,null绑定为TIMESTAMP类型的空值
+	 * @param value 日期
+	 * @return ParamBinder
+	 * @throws SQLException SQLException
+	 */
+	public ParamBinder setTimestamp(java.util.Date value) throws SQLException {
+		if(value == null) {
+			return setNull(Types.TIMESTAMP);
+		}
+		return setTimestamp(value instanceof Timestamp ? (Timestamp) value : new Timestamp(value.getTime()));
+	}
+
+	public ParamBinder setBytes(byte[] value) throws SQLException {
+		pstmt.setBytes(++index, value);
+		return this;
+	}
+
+	/**
+	 * @param sqlType java.sql.Types中的类型
+	 * @return ParamBinder
+	 * @throws SQLException SQLException
+	 */
+	public ParamBinder setNull(int sqlType) throws SQLException {
+		pstmt.setNull(++index, sqlType);
+		return this;
+	}
+
+	/**
+	 * 根据值的实际类型选择对应的set方法,无法识别的类型使用setObject
+	 * @param value 值
+	 * @return ParamBinder
+	 * @throws SQLException SQLException
+	 */
+	public ParamBinder setObject(Object value) throws SQLException {
+		set(pstmt, ++index, value);
+		return this;
+	}
+
+	/**
+	 * 根据声明类型绑定,值为null时通过DbHelper.toSqlType(type)得到sql类型并调用setNull
+	 * @param value 值
+	 * @param type 声明类型(如实体类的字段类型)
+	 * @return ParamBinder
+	 * @throws SQLException SQLException
+	 */
+	public ParamBinder setObject(Object value, Class<?> type) throws SQLException {
+		if(value == null && type != null) {
+			return setNull(DbHelper.toSqlType(type));
+		}
+		return setObject(value);
+	}
+
+	/**
+	 * 依次绑定数组中的所有值
+	 * @param values 值数组,可以为null
+	 * @return ParamBinder
+	 * @throws SQLException SQLException
+	 */
+	public ParamBinder setAll(Object[] values) throws SQLException {
+		if(values != null) {
+			for (Object value : values) {
+				setObject(value);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * 从第一个占位符开始绑定参数数组
+	 * @param pstmt 预编译语句
+	 * @param params 参数数组,可以为null
+	 * @throws SQLException SQLException
+	 */
+	public static void bind(PreparedStatement pstmt, Object[] params) throws SQLException {
+		if(params != null) {
+			for (int i = 0; i < params.length; i++) {
+				set(pstmt, i+1, params[i]);
+			}
+		}
+	}
+
+	/**
+	 * 根据值的实际类型调用对应的set方法
+	 * <p>
+	 * null以及无法识别的类型(包括java.util.Date,各驱动处理方式不同)仍然交给setObject,与原先的行为保持一致
+	 * </p>
+	 * @param pstmt 预编译语句
+	 * @param parameterIndex 占位符位置,从1开始
+	 * @param value 值
+	 * @throws SQLException SQLException
+	 */
+	public static void set(PreparedStatement pstmt, int parameterIndex, Object value) throws SQLException {
+		if(value instanceof String) {
+			pstmt.setString(parameterIndex, (String) value);
+		} else if(value instanceof Integer) {
+			pstmt.setInt(parameterIndex, (Integer) value);
+		} else if(value instanceof Long) {
+			pstmt.setLong(parameterIndex, (Long) value);
+		} else if(value instanceof Double) {
+			pstmt.setDouble(parameterIndex, (Double) value);
+		} else if(value instanceof Float) {
+			pstmt.setFloat(parameterIndex, (Float) value);
+		} else if(value instanceof Short) {
+			pstmt.setShort(parameterIndex, (Short) value);
+		} else if(value instanceof Byte) {
+			pstmt.setByte(parameterIndex, (Byte) value);
+		} else if(value instanceof Boolean) {
+			pstmt.setBoolean(parameterIndex, (Boolean) value);
+		} else if(value instanceof BigDecimal) {
+			pstmt.setBigDecimal(parameterIndex, (BigDecimal) value);
+		} else if(value instanceof Timestamp) {
+			pstmt.setTimestamp(parameterIndex, (Timestamp) value);
+		} else if(value instanceof java.sql.Date) {
+			pstmt.setDate(parameterIndex, (java.sql.Date) value);
+		} else if(value instanceof Time) {
+			pstmt.setTime(parameterIndex, (Time) value);
+		} else if(value instanceof byte[]) {
+			pstmt.setBytes(parameterIndex, (byte[]) value);
+		} else {
+			pstmt.setObject(parameterIndex, value);
+		}
+	}
+}
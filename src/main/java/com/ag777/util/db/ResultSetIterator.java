@@ -0,0 +1,103 @@
+package com.ag777.util.db;
+
+import com.ag777.util.db.interf.ColConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 结果集逐行迭代器
+ * <p>
+ * 每次next()只转换当前行,不缓存已读取的数据。遍历结束或调用close()时关闭ResultSet及其Statement(不关闭连接)。
+ * 遍历过程中的SQLException会包装成RuntimeException抛出。
+ * </p>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 11:05
+ */
+public class ResultSetIterator<T> implements Iterator<T>, AutoCloseable {
+
+	private final ResultSet rs;
+	private final Statement stmt;
+	private final ColConverter<T> converter;
+	private Boolean hasNext;	//null代表还未移动游标
+	private boolean closed;
+
+	/**
+	 * @param rs 结果集
+	 * @param stmt 产生结果集的Statement,关闭时一并关闭,可以为null
+	 * @param converter 单行转换器
+	 */
+	public ResultSetIterator(ResultSet rs, Statement stmt, ColConverter<T> converter) {
+		this.rs = rs;
+		this.stmt = stmt;
+		this.converter = converter;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(hasNext == null) {
+			if(closed) {
+				return false;
+			}
+			try {
+				hasNext = rs.next();
+			} catch (SQLException ex) {
+				close();
+				throw new RuntimeException("读取结果集失败", ex);
+			}
+			if(!hasNext) {
+				close();
+			}
+		}
+		return hasNext;
+	}
+
+	@Override
+	public T next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		hasNext = null;
+		try {
+			return converter.apply(rs);
+		} catch (SQLException ex) {
+			close();
+			throw new RuntimeException("转换结果集失败", ex);
+		}
+	}
+
+	/**
+	 * @return 包装成的顺序流,流关闭时关闭结果集
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+				.onClose(this::close);
+	}
+
+	@Override
+	public void close() {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		try {
+			rs.close();
+		} catch (SQLException ignored) {
+		}
+		if(stmt != null) {
+			try {
+				stmt.close();
+			} catch (SQLException ignored) {
+			}
+		}
+	}
+}
@@ -0,0 +1,508 @@
+package com.ag777.util.db;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 列式查询结果
+ * <p>
+ * 所有行共用一份列头,数据按列存储:int/long/double列使用原始类型数组加空值位图,
+ * 字符串列使用字典编码(重复值只保存一份,不同值过多时退化为普通数组),其它类型使用Object数组。
+ * 相比每行一个HashMap的List&lt;Map&lt;String, Object&gt;&gt;,大结果集占用的内存和GC压力都小得多。
+ * </p>
+ * <p>
+ * row(i)/rows()返回的是实现了Map&lt;String, Object&gt;的只读视图,不复制数据,取值时才装箱,
+ * 可以直接交给原先处理List&lt;Map&lt;String, Object&gt;&gt;的代码。
+ * </p>
+ * <pre>{@code
+ *  ResultTable table = helper.queryTable("select id, name, score from t", null);
+ *  int score = table.getColumnIndex("score");
+ *  double sum = 0;
+ *  for (int i = 0; i < table.getRowCount(); i++) {
+ *      sum += table.getDouble(i, score);
+ *  }
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 18:10
+ */
+public class ResultTable {
+
+	private static final int INIT_CAPACITY = 64;
+	private static final int MAX_DICT_SIZE = 1 << 16;	//字符串字典的最大容量,超出后改为普通数组存储
+
+	private final String[] labels;
+	private final Map<String, Integer> indexMap;
+	private final Column[] columns;
+	private int rowCount;
+
+	private ResultTable(String[] labels, Column[] columns) {
+		this.labels = labels;
+		this.columns = columns;
+		this.indexMap = new HashMap<>(labels.length*4/3+1);
+		for (int i = 0; i < labels.length; i++) {	//同名列以最后一个为准,与convert2List一致
+			indexMap.put(labels[i], i);
+		}
+	}
+
+	/**
+	 * 读取结果集剩余的所有行
+	 * @param rs 结果集,不会被关闭
+	 * @return ResultTable
+	 * @throws SQLException SQLException
+	 */
+	public static ResultTable of(ResultSet rs) throws SQLException {
+		ResultSetMetaData md = rs.getMetaData();
+		int columnCount = md.getColumnCount();
+		String[] labels = new String[columnCount];
+		Column[] columns = new Column[columnCount];
+		for (int i = 1; i <= columnCount; i++) {
+			labels[i-1] = md.getColumnLabel(i);
+			columns[i-1] = newColumn(md.getColumnClassName(i));
+		}
+		ResultTable table = new ResultTable(labels, columns);
+		int row = 0;
+		while (rs.next()) {
+			for (int i = 0; i < columnCount; i++) {
+				columns[i].read(rs, i+1, row);
+			}
+			row++;
+		}
+		for (Column column : columns) {
+			column.trim(row);
+		}
+		table.rowCount = row;
+		return table;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return labels.length;
+	}
+
+	/**
+	 * @return 列名(别名)列表
+	 */
+	public List<String> getColumnNames() {
+		return Collections.unmodifiableList(Arrays.asList(labels));
+	}
+
+	/**
+	 * @param label 列名(别名)
+	 * @return 列下标(从0开始),不存在时返回-1
+	 */
+	public int getColumnIndex(String label) {
+		Integer index = indexMap.get(label);
+		return index == null ? -1 : index;
+	}
+
+	public boolean isNull(int row, int col) {
+		checkRow(row);
+		return columns[col].isNull(row);
+	}
+
+	/**
+	 * 以long获取数值列的值,空值返回0
+	 */
+	public long getLong(int row, int col) {
+		checkRow(row);
+		return columns[col].getLong(row);
+	}
+
+	/**
+	 * 以int获取数值列的值,空值返回0
+	 */
+	public int getInt(int row, int col) {
+		return (int) getLong(row, col);
+	}
+
+	/**
+	 * 以double获取数值列的值,空值返回0
+	 */
+	public double getDouble(int row, int col) {
+		checkRow(row);
+		return columns[col].getDouble(row);
+	}
+
+	public String getString(int row, int col) {
+		Object value = getObject(row, col);
+		return value == null ? null : value.toString();
+	}
+
+	/**
+	 * @return 与rs.getObject(col)类型一致的值
+	 */
+	public Object getObject(int row, int col) {
+		checkRow(row);
+		return columns[col].get(row);
+	}
+
+	/**
+	 * @param label 列名(别名),不存在时返回null
+	 */
+	public Object getObject(int row, String label) {
+		int col = getColumnIndex(label);
+		return col < 0 ? null : getObject(row, col);
+	}
+
+	/**
+	 * @param row 行下标
+	 * @return 该行的只读Map视图
+	 */
+	public Map<String, Object> row(int row) {
+		checkRow(row);
+		return new RowView(row);
+	}
+
+	/**
+	 * @return 所有行的只读视图,每行在访问时才创建
+	 */
+	public List<Map<String, Object>> rows() {
+		return new AbstractList<Map<String, Object>>() {
+			@Override
+			public Map<String, Object> get(int index) {
+				return row(index);
+			}
+
+			@Override
+			public int size() {
+				return rowCount;
+			}
+		};
+	}
+
+	/**
+	 * 复制为每行一个HashMap的列表,结构与DbHelper.convert2List(ResultSet)的返回值一致
+	 * @return list
+	 */
+	public List<Map<String, Object>> toMapList() {
+		List<Map<String, Object>> list = new ArrayList<>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			list.add(new HashMap<>(row(i)));
+		}
+		return list;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultTable{" +
+				"rows=" + rowCount +
+				", columns=" + Arrays.toString(labels) +
+				'}';
+	}
+
+	private void checkRow(int row) {
+		if(row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("行下标越界:"+row+",总行数:"+rowCount);
+		}
+	}
+
+	private static Column newColumn(String className) {
+		if(className == null) {
+			return new ObjectColumn();
+		}
+		switch (className) {
+			case "java.lang.Integer":
+				return new IntColumn();
+			case "java.lang.Long":
+				return new LongColumn();
+			case "java.lang.Double":
+				return new DoubleColumn();
+			case "java.lang.String":
+				return new StringColumn();
+			default:
+				return new ObjectColumn();
+		}
+	}
+
+	/**
+	 * 单行的Map视图
+	 */
+	private class RowView extends AbstractMap<String, Object> {
+		private final int row;
+
+		RowView(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public Object get(Object key) {
+			Integer col = indexMap.get(key);
+			return col == null ? null : columns[col].get(row);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return indexMap.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return indexMap.size();
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<Entry<String, Object>>() {
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					Iterator<Entry<String, Integer>> itr = indexMap.entrySet().iterator();
+					return new Iterator<Entry<String, Object>>() {
+						@Override
+						public boolean hasNext() {
+							return itr.hasNext();
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							Entry<String, Integer> e = itr.next();
+							return new SimpleImmutableEntry<>(e.getKey(), columns[e.getValue()].get(row));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return indexMap.size();
+				}
+			};
+		}
+	}
+
+	/*----列存储------*/
+
+	private static abstract class Column {
+		abstract void read(ResultSet rs, int index, int row) throws SQLException;
+		abstract void trim(int size);
+		abstract Object get(int row);
+
+		boolean isNull(int row) {
+			return get(row) == null;
+		}
+
+		long getLong(int row) {
+			Object value = get(row);
+			return value == null ? 0 : ((Number) value).longValue();
+		}
+
+		double getDouble(int row) {
+			Object value = get(row);
+			return value == null ? 0 : ((Number) value).doubleValue();
+		}
+	}
+
+	/**
+	 * 原始类型列的公共部分:空值位图
+	 */
+	private static abstract class PrimitiveColumn extends Column {
+		final BitSet nulls = new BitSet();
+
+		@Override
+		boolean isNull(int row) {
+			return nulls.get(row);
+		}
+	}
+
+	private static final class IntColumn extends PrimitiveColumn {
+		private int[] values = new int[INIT_CAPACITY];
+
+		@Override
+		void read(ResultSet rs, int index, int row) throws SQLException {
+			if(row == values.length) {
+				values = Arrays.copyOf(values, row*2);
+			}
+			values[row] = rs.getInt(index);
+			if(rs.wasNull()) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		void trim(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : values[row];
+		}
+
+		@Override
+		long getLong(int row) {
+			return values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return values[row];
+		}
+	}
+
+	private static final class LongColumn extends PrimitiveColumn {
+		private long[] values = new long[INIT_CAPACITY];
+
+		@Override
+		void read(ResultSet rs, int index, int row) throws SQLException {
+			if(row == values.length) {
+				values = Arrays.copyOf(values, row*2);
+			}
+			values[row] = rs.getLong(index);
+			if(rs.wasNull()) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		void trim(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : values[row];
+		}
+
+		@Override
+		long getLong(int row) {
+			return values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return values[row];
+		}
+	}
+
+	private static final class DoubleColumn extends PrimitiveColumn {
+		private double[] values = new double[INIT_CAPACITY];
+
+		@Override
+		void read(ResultSet rs, int index, int row) throws SQLException {
+			if(row == values.length) {
+				values = Arrays.copyOf(values, row*2);
+			}
+			values[row] = rs.getDouble(index);
+			if(rs.wasNull()) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		void trim(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : values[row];
+		}
+
+		@Override
+		long getLong(int row) {
+			return (long) values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return values[row];
+		}
+	}
+
+	/**
+	 * 字典编码的字符串列,codes[row]为字典下标,-1代表null;
+	 * 不同值超过MAX_DICT_SIZE时改为直接存储字符串
+	 */
+	private static final class StringColumn extends Column {
+		private int[] codes = new int[INIT_CAPACITY];
+		private Map<String, Integer> dictIndex = new HashMap<>();
+		private List<String> dict = new ArrayList<>();
+		private String[] plain;	//不为null代表已退化为普通数组
+
+		@Override
+		void read(ResultSet rs, int index, int row) throws SQLException {
+			String value = rs.getString(index);
+			if(plain != null) {
+				if(row == plain.length) {
+					plain = Arrays.copyOf(plain, row*2);
+				}
+				plain[row] = value;
+				return;
+			}
+			if(row == codes.length) {
+				codes = Arrays.copyOf(codes, row*2);
+			}
+			if(value == null) {
+				codes[row] = -1;
+				return;
+			}
+			Integer code = dictIndex.get(value);
+			if(code == null) {
+				if(dict.size() >= MAX_DICT_SIZE) {
+					toPlain(row);
+					plain[row] = value;
+					return;
+				}
+				code = dict.size();
+				dict.add(value);
+				dictIndex.put(value, code);
+			}
+			codes[row] = code;
+		}
+
+		private void toPlain(int row) {
+			plain = new String[codes.length];
+			for (int i = 0; i < row; i++) {
+				plain[i] = codes[i] < 0 ? null : dict.get(codes[i]);
+			}
+			codes = null;
+			dict = null;
+			dictIndex = null;
+		}
+
+		@Override
+		void trim(int size) {
+			if(plain != null) {
+				plain = Arrays.copyOf(plain, size);
+			} else {
+				codes = Arrays.copyOf(codes, size);
+				dictIndex = null;	//读取完毕后不再需要反查
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			if(plain != null) {
+				return plain[row];
+			}
+			int code = codes[row];
+			return code < 0 ? null : dict.get(code);
+		}
+	}
+
+	private static final class ObjectColumn extends Column {
+		private Object[] values = new Object[INIT_CAPACITY];
+
+		@Override
+		void read(ResultSet rs, int index, int row) throws SQLException {
+			if(row == values.length) {
+				values = Arrays.copyOf(values, row*2);
+			}
+			values[row] = rs.getObject(index);
+		}
+
+		@Override
+		void trim(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+
+		@Override
+		Object get(int row) {
+			return values[row];
+		}
+	}
+}
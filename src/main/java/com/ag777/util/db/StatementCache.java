@@ -0,0 +1,164 @@
+package com.ag777.util.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * PreparedStatement缓存(LRU)
+ * <p>
+ * 以sql文本及autoGeneratedKeys为键缓存同一连接上的PreparedStatement,避免每次调用都重新预编译。
+ * 超出容量时淘汰最久未使用的语句并关闭,clear()关闭所有缓存的语句。
+ * 从缓存取出的语句由缓存负责关闭,调用方不要自行close()。
+ * </p>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 15:20
+ */
+public class StatementCache {
+
+	private static final int NO_GENERATED_KEYS = Integer.MIN_VALUE;
+
+	private final Connection conn;
+	private final int maxSize;
+	private final LinkedHashMap<Key, PreparedStatement> cache;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param conn 连接
+	 * @param maxSize 最多缓存的语句数
+	 */
+	public StatementCache(Connection conn, int maxSize) {
+		if(maxSize <= 0) {
+			throw new IllegalArgumentException("缓存大小必须大于0");
+		}
+		this.conn = conn;
+		this.maxSize = maxSize;
+		this.cache = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+				if(size() > StatementCache.this.maxSize) {
+					evictions++;
+					closeQuietly(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * 获取预编译语句,参数已被清空
+	 * @param sql sql
+	 * @return PreparedStatement
+	 * @throws SQLException 预编译失败
+	 */
+	public PreparedStatement get(String sql) throws SQLException {
+		return get(sql, NO_GENERATED_KEYS);
+	}
+
+	/**
+	 * 获取预编译语句,参数已被清空
+	 * @param sql sql
+	 * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS或Statement.NO_GENERATED_KEYS
+	 * @return PreparedStatement
+	 * @throws SQLException 预编译失败
+	 */
+	public synchronized PreparedStatement get(String sql, int autoGeneratedKeys) throws SQLException {
+		Key key = new Key(sql, autoGeneratedKeys);
+		PreparedStatement pstmt = cache.get(key);
+		if(pstmt != null) {
+			if(!pstmt.isClosed()) {
+				hits++;
+				pstmt.clearParameters();
+				return pstmt;
+			}
+			cache.remove(key);	//被外部关闭了
+		}
+		misses++;
+		pstmt = autoGeneratedKeys == NO_GENERATED_KEYS ? conn.prepareStatement(sql) : conn.prepareStatement(sql, autoGeneratedKeys);
+		cache.put(key, pstmt);
+		return pstmt;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * 关闭并清空所有缓存的语句
+	 */
+	public synchronized void clear() {
+		for (PreparedStatement pstmt : cache.values()) {
+			closeQuietly(pstmt);
+		}
+		cache.clear();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "StatementCache{" +
+				"size=" + cache.size() +
+				", maxSize=" + maxSize +
+				", hits=" + hits +
+				", misses=" + misses +
+				", evictions=" + evictions +
+				'}';
+	}
+
+	private static void closeQuietly(Statement stmt) {
+		try {
+			stmt.close();
+		} catch (SQLException ignored) {
+		}
+	}
+
+	private static class Key {
+		private final String sql;
+		private final int autoGeneratedKeys;
+
+		Key(String sql, int autoGeneratedKeys) {
+			this.sql = sql;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return autoGeneratedKeys == key.autoGeneratedKeys && sql.equals(key.sql);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(sql, autoGeneratedKeys);
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.ag777.util.db.interf;
+
+import com.ag777.util.db.DbHelper;
+
+import java.sql.SQLException;
+
+/**
+ * 在一个DbHelper上执行的任务,配合DbAsyncExecutor使用
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 17:40
+ */
+@FunctionalInterface
+public interface DbTask<T> {
+    T apply(DbHelper helper) throws SQLException;
+}
@@ -0,0 +1,25 @@
+package com.ag777.util.db.interf;
+
+import com.ag777.util.db.ParamBinder;
+
+import java.sql.SQLException;
+
+/**
+ * 将一行数据写入预编译语句的参数
+ * <p>
+ * 配合ParamBinder的setInt/setLong/setString等方法按顺序绑定,避免把每行数据装箱成Object[]
+ * </p>
+ * <pre>{@code
+ *  RowWriter<User> writer = (user, binder) -> binder
+ *          .setLong(user.getId())
+ *          .setString(user.getName())
+ *          .setTimestamp(user.getCreateTime());
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 16:10
+ */
+@FunctionalInterface
+public interface RowWriter<T> {
+    void write(T row, ParamBinder binder) throws SQLException;
+}
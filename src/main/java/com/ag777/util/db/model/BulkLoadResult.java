@@ -0,0 +1,47 @@
+package com.ag777.util.db.model;
+
+/**
+ * 批量导入结果
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 14:30
+ */
+public class BulkLoadResult {
+
+	private final long rows;			//写入行数
+	private final int chunks;			//提交的分块数
+	private final long costMillis;	//总耗时(毫秒)
+
+	public BulkLoadResult(long rows, int chunks, long costMillis) {
+		this.rows = rows;
+		this.chunks = chunks;
+		this.costMillis = costMillis;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+	public int getChunks() {
+		return chunks;
+	}
+	public long getCostMillis() {
+		return costMillis;
+	}
+
+	/**
+	 * @return 吞吐量(行/秒)
+	 */
+	public double getRowsPerSecond() {
+		return costMillis == 0 ? rows : rows * 1000.0 / costMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkLoadResult{" +
+				"rows=" + rows +
+				", chunks=" + chunks +
+				", costMillis=" + costMillis +
+				", rowsPerSecond=" + String.format("%.1f", getRowsPerSecond()) +
+				'}';
+	}
+}
@@ -0,0 +1,67 @@
+package com.ag777.util.db.model;
+
+/**
+ * 数据库升级中单个步骤的执行记录
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 18:40
+ */
+public class MigrationStep {
+
+	public static final String TYPE_DDL = "ddl";
+	public static final String TYPE_BLOCK = "block";	//VersionSqlPojo.parallelDmlList中的一块
+	public static final String TYPE_DML = "dml";
+
+	private final String version;
+	private final String type;
+	private final int index;		//在所属列表中的下标,dml为整个列表所以恒为0
+	private final String sql;		//块的话为第一条sql
+	private final long costMillis;
+	private final boolean skipped;	//是否因检查点记录已完成而跳过
+
+	public MigrationStep(String version, String type, int index, String sql, long costMillis, boolean skipped) {
+		this.version = version;
+		this.type = type;
+		this.index = index;
+		this.sql = sql;
+		this.costMillis = costMillis;
+		this.skipped = skipped;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+	public String getType() {
+		return type;
+	}
+	public int getIndex() {
+		return index;
+	}
+	public String getSql() {
+		return sql;
+	}
+	public long getCostMillis() {
+		return costMillis;
+	}
+	public boolean isSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return 检查点表中的步骤标识,如ddl#2
+	 */
+	public String getStepKey() {
+		return type+'#'+index;
+	}
+
+	@Override
+	public String toString() {
+		return "MigrationStep{" +
+				"version='" + version + '\'' +
+				", step=" + getStepKey() +
+				", costMillis=" + costMillis +
+				(skipped ? ", skipped" : "") +
+				", sql='" + sql + '\'' +
+				'}';
+	}
+}
@@ -0,0 +1,89 @@
+package com.ag777.util.db.model;
+
+import java.util.Properties;
+
+/**
+ * 数据库连接池配置
+ * <p>
+ * 配合DbHelper.pooled(...)使用,所有时间单位均为毫秒(校验超时除外,单位为秒)
+ * </p>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 10:12
+ */
+public class PoolConfig {
+
+	private int minSize = 0;						//最小连接数(空闲回收时保留的连接数)
+	private int maxSize = 10;						//最大连接数(借出+空闲)
+	private long idleTimeout = 10*60*1000L;		//空闲超时,超过该时间未被使用的连接会被回收,小于等于0则不回收
+	private long evictInterval = 30*1000L;		//空闲检测间隔,小于等于0则不启动检测线程
+	private long borrowTimeout = 30*1000L;		//获取连接的最长等待时间,小于等于0则一直等待
+	private int validationTimeoutSeconds = 3;	//校验连接的超时时间(秒)
+	private boolean validateOnBorrow = true;	//借出空闲连接前是否校验
+	private Properties props;						//连接属性
+
+	public PoolConfig() {
+	}
+
+	public PoolConfig(int minSize, int maxSize) {
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+	public PoolConfig setMinSize(int minSize) {
+		this.minSize = minSize;
+		return this;
+	}
+	public int getMaxSize() {
+		return maxSize;
+	}
+	public PoolConfig setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+	public PoolConfig setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+		return this;
+	}
+	public long getEvictInterval() {
+		return evictInterval;
+	}
+	public PoolConfig setEvictInterval(long evictInterval) {
+		this.evictInterval = evictInterval;
+		return this;
+	}
+	public long getBorrowTimeout() {
+		return borrowTimeout;
+	}
+	public PoolConfig setBorrowTimeout(long borrowTimeout) {
+		this.borrowTimeout = borrowTimeout;
+		return this;
+	}
+	public int getValidationTimeoutSeconds() {
+		return validationTimeoutSeconds;
+	}
+	public PoolConfig setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		return this;
+	}
+	public boolean isValidateOnBorrow() {
+		return validateOnBorrow;
+	}
+	public PoolConfig setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+		return this;
+	}
+	public Properties getProps() {
+		return props;
+	}
+	public PoolConfig setProps(Properties props) {
+		this.props = props;
+		return this;
+	}
+}
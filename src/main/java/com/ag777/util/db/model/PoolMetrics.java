@@ -0,0 +1,82 @@
+package com.ag777.util.db.model;
+
+/**
+ * 数据库连接池运行指标(快照)
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 10:12
+ */
+public class PoolMetrics {
+
+	private int active;				//借出中的连接数
+	private int idle;					//空闲连接数
+	private int waiting;				//正在等待获取连接的线程数
+	private long created;			//累计创建的物理连接数
+	private long destroyed;			//累计关闭的物理连接数
+	private long borrowCount;		//累计借出次数
+	private long timeoutCount;		//累计获取超时次数
+	private long totalWaitMillis;	//累计等待时间
+	private long maxWaitMillis;		//最长一次等待时间
+
+	public PoolMetrics(int active, int idle, int waiting, long created, long destroyed, long borrowCount, long timeoutCount, long totalWaitMillis, long maxWaitMillis) {
+		this.active = active;
+		this.idle = idle;
+		this.waiting = waiting;
+		this.created = created;
+		this.destroyed = destroyed;
+		this.borrowCount = borrowCount;
+		this.timeoutCount = timeoutCount;
+		this.totalWaitMillis = totalWaitMillis;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	public int getActive() {
+		return active;
+	}
+	public int getIdle() {
+		return idle;
+	}
+	public int getWaiting() {
+		return waiting;
+	}
+	public long getCreated() {
+		return created;
+	}
+	public long getDestroyed() {
+		return destroyed;
+	}
+	public long getBorrowCount() {
+		return borrowCount;
+	}
+	public long getTimeoutCount() {
+		return timeoutCount;
+	}
+	public long getTotalWaitMillis() {
+		return totalWaitMillis;
+	}
+	public long getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	/**
+	 * @return 平均每次获取连接的等待时间(毫秒)
+	 */
+	public double getAvgWaitMillis() {
+		return borrowCount == 0 ? 0 : (double) totalWaitMillis / borrowCount;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolMetrics{" +
+				"active=" + active +
+				", idle=" + idle +
+				", waiting=" + waiting +
+				", created=" + created +
+				", destroyed=" + destroyed +
+				", borrowCount=" + borrowCount +
+				", timeoutCount=" + timeoutCount +
+				", totalWaitMillis=" + totalWaitMillis +
+				", maxWaitMillis=" + maxWaitMillis +
+				'}';
+	}
+}
@@ -26,10 +26,12 @@ public class VersionSqlPojo {
 
     private List<DdlListBean> ddlList;	//数据库结构操作是不能回滚的
     private List<String> dmlList;		//对数据操作是可以回滚的
+    private List<List<String>> parallelDmlList;	//互相独立的dml块,每块一个事务,在ddl之后、dmlList之前执行,提供连接池时并行执行
 
     public VersionSqlPojo() {
         ddlList = new ArrayList<>();
         dmlList = new ArrayList<>();
+        parallelDmlList = new ArrayList<>();
     }
     
     public VersionSqlPojo(String code) {
@@ -52,6 +54,20 @@ public class VersionSqlPojo {
     	return this;
     }
 
+    /**
+     * 添加一个独立的dml块,块内语句在同一个事务中顺序执行,不同块之间不能有依赖(可能并行执行)
+     * @param sqls sql列表
+     * @return VersionSqlPojo
+     */
+    public VersionSqlPojo addParallelDml(String... sqls) {
+        List<String> block = new ArrayList<>(sqls.length);
+        for (String sql : sqls) {
+            block.add(sql);
+        }
+        parallelDmlList.add(block);
+        return this;
+    }
+
     public String getCode() {
         return code;
     }
@@ -77,6 +93,14 @@ public class VersionSqlPojo {
         this.dmlList = dmlList;
     }
 
+    public List<List<String>> getParallelDmlList() {
+        return parallelDmlList;
+    }
+
+    public void setParallelDmlList(List<List<String>> parallelDmlList) {
+        this.parallelDmlList = parallelDmlList;
+    }
+
     public static class DdlListBean {
         private String sql;
         private String rollback;
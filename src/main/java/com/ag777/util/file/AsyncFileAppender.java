@@ -0,0 +1,507 @@
+package com.ag777.util.file;
+
+import com.ag777.util.lang.Console;
+import com.ag777.util.lang.SystemUtils;
+import com.ag777.util.lang.interf.Disposable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 高吞吐异步文件追加(多线程写日志场景)
+ * <p>
+ * 调用线程只把行放入无锁的多生产者单消费者环形队列,由单独的后台线程批量编码写入文件,
+ * 在积压字节数达到flushBytes或距上次写出超过flushInterval时写出。
+ * 队列满时按OverflowPolicy阻塞调用线程或丢弃该行;按SyncPolicy决定是否fsync;
+ * 文件超过rollSize或打开时长超过rollInterval时,将当前文件重命名为"文件名.yyyyMMddHHmmss"后写入新文件。
+ * </p>
+ * <pre>{@code
+ *  try (AsyncFileAppender appender = new AsyncFileAppender(new File("audit.log"))
+ *          .overflowPolicy(AsyncFileAppender.OverflowPolicy.BLOCK)
+ *          .syncPolicy(AsyncFileAppender.SyncPolicy.INTERVAL)
+ *          .rollSize(100L << 20)) {
+ *      appender.appendLine("user login");
+ *  }
+ * }</pre>
+ * 配置需在第一次追加前完成,第一次追加时启动后台线程。同步少量写入的场景仍可使用{@link FileAppendHelper}
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 10:20
+ */
+public class AsyncFileAppender implements AutoCloseable, Disposable {
+
+	/**
+	 * 队列满时的处理方式
+	 */
+	public enum OverflowPolicy {
+		BLOCK,	//阻塞调用线程直到有空位
+		DROP	//丢弃该行并计数
+	}
+
+	/**
+	 * 落盘策略
+	 */
+	public enum SyncPolicy {
+		NONE,		//只写入系统缓存,由操作系统决定落盘时机
+		BATCH,		//每批写出后fsync
+		INTERVAL	//最多每syncInterval毫秒fsync一次
+	}
+
+	private final Path path;
+	private final Charset charset;
+	private String lineSeparator = SystemUtils.lineSeparator();
+	private int capacity = 1 << 16;
+	private int flushBytes = 256 << 10;
+	private long flushIntervalMillis = 200;
+	private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	private SyncPolicy syncPolicy = SyncPolicy.NONE;
+	private long syncIntervalMillis = 1000;
+	private long rollSize;
+	private long rollIntervalMillis;
+
+	private volatile Ring ring;
+	private volatile Thread writerThread;
+	private volatile boolean parked;	//后台线程是否在等待新数据
+	private volatile boolean running;
+	private volatile boolean closed;
+	private volatile boolean flushRequested;
+	private volatile IOException lastError;
+	private final AtomicLong written = new AtomicLong();	//已写出的行数
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder rejected = new LongAdder();	//已放入队列但因关闭未写出(append已抛出异常)的行数
+
+	public AsyncFileAppender(File file) {
+		this(file, StandardCharsets.UTF_8);
+	}
+
+	public AsyncFileAppender(File file, Charset charset) {
+		this.path = file.toPath();
+		this.charset = charset;
+	}
+
+	public AsyncFileAppender lineSeparator(String lineSeparator) {
+		this.lineSeparator = lineSeparator;
+		return this;
+	}
+
+	/**
+	 * @param capacity 队列容量(行),向上取整为2的幂,默认65536
+	 * @return AsyncFileAppender
+	 */
+	public AsyncFileAppender capacity(int capacity) {
+		if(capacity <= 0 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("队列容量超出范围:"+capacity);
+		}
+		this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+		if(this.capacity == 0) {
+			this.capacity = 1;
+		}
+		return this;
+	}
+
+	/**
+	 * @param flushBytes 积压多少字节后写出,默认256K
+	 * @return AsyncFileAppender
+	 */
+	public AsyncFileAppender flushBytes(int flushBytes) {
+		this.flushBytes = flushBytes;
+		return this;
+	}
+
+	/**
+	 * @param flushIntervalMillis 积压数据最多等待多久写出,默认200毫秒
+	 * @return AsyncFileAppender
+	 */
+	public AsyncFileAppender flushInterval(long flushIntervalMillis) {
+		this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+		return this;
+	}
+
+	public AsyncFileAppender overflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+		return this;
+	}
+
+	public AsyncFileAppender syncPolicy(SyncPolicy syncPolicy) {
+		this.syncPolicy = syncPolicy;
+		return this;
+	}
+
+	/**
+	 * @param syncIntervalMillis SyncPolicy.INTERVAL下的fsync间隔,默认1秒
+	 * @return AsyncFileAppender
+	 */
+	public AsyncFileAppender syncInterval(long syncIntervalMillis) {
+		this.syncIntervalMillis = syncIntervalMillis;
+		return this;
+	}
+
+	/**
+	 * @param rollSize 文件超过该字节数时滚动,小于等于0不按大小滚动
+	 * @return AsyncFileAppender
+	 */
+	public AsyncFileAppender rollSize(long rollSize) {
+		this.rollSize = rollSize;
+		return this;
+	}
+
+	/**
+	 * @param rollIntervalMillis 文件打开超过该时长时滚动,小于等于0不按时间滚动
+	 * @return AsyncFileAppender
+	 */
+	public AsyncFileAppender rollInterval(long rollIntervalMillis) {
+		this.rollIntervalMillis = rollIntervalMillis;
+		return this;
+	}
+
+	/**
+	 * 追加一行内容,自动添加换行符
+	 * @param content 要追加的内容
+	 * @return 是否放入队列,OverflowPolicy.DROP下队列满时返回false
+	 * @throws IOException 已关闭,或后台线程写文件出错,或阻塞等待时被中断
+	 */
+	public boolean appendLine(String content) throws IOException {
+		return append(content + lineSeparator);
+	}
+
+	/**
+	 * 追加内容
+	 * @param content 要追加的内容
+	 * @return 是否放入队列,OverflowPolicy.DROP下队列满时返回false
+	 * @throws IOException 已关闭,或后台线程写文件出错,或阻塞等待时被中断
+	 */
+	public boolean append(String content) throws IOException {
+		Ring ring = start();
+		checkError();
+		long position;
+		while ((position = ring.offer(content)) < 0) {
+			if(overflowPolicy == OverflowPolicy.DROP) {
+				dropped.increment();
+				return false;
+			}
+			wakeWriter();
+			LockSupport.parkNanos(10_000);
+			if(Thread.interrupted()) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("等待队列空位时被中断");
+			}
+			checkError();
+			if(!running) {
+				throw new IOException("AsyncFileAppender已关闭:"+path);
+			}
+		}
+		if(!running) {	//与close()并发,后台线程可能在放入前已经退出
+			awaitWriter();
+			if(written.get() <= position) {
+				rejected.increment();
+				checkError();
+				throw new IOException("AsyncFileAppender已关闭:"+path);
+			}
+		} else if(parked) {
+			wakeWriter();
+		}
+		return true;
+	}
+
+	/**
+	 * 等待调用前已放入队列的内容全部写出到文件
+	 * @throws IOException 后台线程已退出而内容未写完,或后台线程写文件出错,或等待时被中断
+	 */
+	public void flush() throws IOException {
+		Ring ring = this.ring;
+		if(ring == null) {
+			return;
+		}
+		long target = ring.tail.get();
+		while (written.get() < target) {
+			checkError();
+			Thread thread = writerThread;
+			if(thread != null && !thread.isAlive()) {
+				if(written.get() + rejected.sum() >= target) {
+					break;
+				}
+				throw new IOException("AsyncFileAppender已关闭,有内容未写出:"+path);
+			}
+			flushRequested = true;
+			wakeWriter();
+			LockSupport.parkNanos(100_000);
+			if(Thread.interrupted()) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("等待写出时被中断");
+			}
+		}
+	}
+
+	/**
+	 * @return 已写出到文件的条数
+	 */
+	public long getWritten() {
+		return written.get();
+	}
+
+	/**
+	 * @return 因队列满被丢弃的行数
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return 当前队列积压的行数
+	 */
+	public int getBacklog() {
+		Ring ring = this.ring;
+		return ring == null ? 0 : (int) (ring.tail.get() - written.get() - rejected.sum());
+	}
+
+	/**
+	 * 写出剩余内容并关闭文件,关闭后不能再追加(append抛出IOException)
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			running = false;
+		}
+		awaitWriter();
+	}
+
+	/**
+	 * 同close()
+	 */
+	@Override
+	public void dispose() {
+		close();
+	}
+
+	private Ring start() throws IOException {
+		Ring ring = this.ring;
+		if(ring != null && running) {
+			return ring;
+		}
+		synchronized (this) {
+			if(closed) {
+				throw new IOException("AsyncFileAppender已关闭:"+path);
+			}
+			if(this.ring == null) {
+				FileChannel channel = openChannel();	//在调用线程打开文件,路径有问题时直接抛出
+				this.ring = new Ring(capacity);
+				running = true;
+				Thread thread = new Thread(() -> writeLoop(channel), "AsyncFileAppender-"+path.getFileName());
+				thread.setDaemon(true);
+				thread.start();
+				writerThread = thread;	//启动后再赋值,flush()看到的线程不存活即代表已退出
+			}
+			return this.ring;
+		}
+	}
+
+	/**
+	 * 唤醒并等待后台线程写完剩余内容后退出
+	 */
+	private void awaitWriter() {
+		Thread thread = writerThread;
+		if(thread == null) {
+			return;
+		}
+		LockSupport.unpark(thread);
+		try {
+			thread.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void checkError() throws IOException {
+		IOException error = lastError;
+		if(error != null) {
+			throw new IOException("写入文件["+path+"]失败", error);
+		}
+	}
+
+	private void wakeWriter() {
+		Thread thread = writerThread;
+		if(thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	private FileChannel openChannel() throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		if(parent != null) {
+			Files.createDirectories(parent);
+		}
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * 后台线程:批量取出、编码、按阈值写出,关闭时写完剩余内容
+	 */
+	private void writeLoop(FileChannel channel) {
+		Ring ring = this.ring;
+		byte[] batch = new byte[Math.max(flushBytes, 8192)];
+		int size = 0;
+		long pending = 0;	//batch中的行数
+		long lastFlush = System.currentTimeMillis();
+		long lastSync = lastFlush;
+		long openTime = lastFlush;
+		long fileSize = 0;
+		try {
+			fileSize = channel.size();
+			while (true) {
+				String item = ring.poll();
+				if(item != null) {
+					byte[] bytes = item.getBytes(charset);
+					if(size + bytes.length > batch.length) {
+						batch = Arrays.copyOf(batch, Math.max(batch.length * 2, size + bytes.length));
+					}
+					System.arraycopy(bytes, 0, batch, size, bytes.length);
+					size += bytes.length;
+					pending++;
+					if(size < flushBytes) {
+						continue;
+					}
+				}
+				long now = System.currentTimeMillis();
+				boolean stopping = !running && item == null;
+				if(size > 0 && (item != null || stopping || flushRequested || now - lastFlush >= flushIntervalMillis)) {
+					flushRequested = false;
+					writeFully(channel, batch, size);
+					fileSize += size;
+					size = 0;
+					written.addAndGet(pending);
+					pending = 0;
+					lastFlush = now;
+					if(syncPolicy == SyncPolicy.BATCH || (syncPolicy == SyncPolicy.INTERVAL && now - lastSync >= syncIntervalMillis)) {
+						channel.force(false);
+						lastSync = now;
+					}
+					if((rollSize > 0 && fileSize >= rollSize) || (rollIntervalMillis > 0 && now - openTime >= rollIntervalMillis)) {
+						channel = roll(channel);
+						fileSize = 0;
+						openTime = now;
+					}
+				}
+				if(stopping) {
+					if(ring.isEmpty()) {
+						break;
+					}
+					continue;
+				}
+				if(item == null) {	//队列已空,等待新数据或积压到期
+					parked = true;
+					if(ring.isEmpty() && running && !flushRequested) {
+						long wait = size > 0 ? flushIntervalMillis - (now - lastFlush) : flushIntervalMillis;
+						LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(wait, 1)));
+					}
+					parked = false;
+				}
+			}
+			if(syncPolicy != SyncPolicy.NONE) {
+				channel.force(false);
+			}
+		} catch (IOException ex) {
+			lastError = ex;
+			Console.err("写入文件["+path+"]失败:"+ex.getMessage());
+		} finally {
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, byte[] bytes, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private FileChannel roll(FileChannel channel) throws IOException {
+		if(syncPolicy != SyncPolicy.NONE) {
+			channel.force(false);
+		}
+		channel.close();
+		String suffix = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+		Path rolled = path.resolveSibling(path.getFileName()+"."+suffix);
+		for (int i = 1; Files.exists(rolled); i++) {
+			rolled = path.resolveSibling(path.getFileName()+"."+suffix+"."+i);
+		}
+		Files.move(path, rolled);
+		return openChannel();
+	}
+
+	/**
+	 * 有界多生产者单消费者无锁环形队列(每个槽位带序号,生产者CAS抢占写入位置)
+	 */
+	private static final class Ring {
+		private final int mask;
+		private final AtomicReferenceArray<String> items;
+		private final AtomicLongArray sequences;
+		private final AtomicLong tail = new AtomicLong();	//下一个写入位置,也是累计放入的数量
+		private long head;	//只有消费者线程访问
+
+		Ring(int capacity) {
+			mask = capacity - 1;
+			items = new AtomicReferenceArray<>(capacity);
+			sequences = new AtomicLongArray(capacity);
+			for (int i = 0; i < capacity; i++) {
+				sequences.set(i, i);
+			}
+		}
+
+		/**
+		 * @return 放入的位置(从0开始),队列已满时返回-1
+		 */
+		long offer(String item) {
+			while (true) {
+				long t = tail.get();
+				int index = (int) t & mask;
+				long diff = sequences.get(index) - t;
+				if(diff == 0) {
+					if(tail.compareAndSet(t, t + 1)) {
+						items.lazySet(index, item);
+						sequences.set(index, t + 1);	//发布:消费者看到序号后才读取内容;volatile写保证之后读到的running不早于发布
+						return t;
+					}
+				} else if(diff < 0) {
+					return -1;	//槽位还未被消费,队列已满
+				}
+			}
+		}
+
+		String poll() {
+			int index = (int) head & mask;
+			if(sequences.get(index) != head + 1) {
+				return null;
+			}
+			String item = items.get(index);
+			items.lazySet(index, null);
+			sequences.lazySet(index, head + mask + 1);	//释放槽位给下一轮
+			head++;
+			return item;
+		}
+
+		boolean isEmpty() {
+			return sequences.get((int) head & mask) != head + 1;
+		}
+	}
+}
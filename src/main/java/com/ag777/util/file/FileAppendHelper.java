@@ -13,9 +13,12 @@ import com.ag777.util.lang.interf.Disposable;
 
 /**
  * 文件追加辅助类
+ * <p>
+ * 同步写入,适合单线程少量追加;多线程高频追加(如审计日志)请使用{@link AsyncFileAppender}
+ * </p>
  * 
  * @author ag777
- * @version create on 2020年05月29日,last modify at 2024年11月23日
+ * @version create on 2020年05月29日,last modify at 2026年10月18日
  */
 public class FileAppendHelper implements AutoCloseable, Disposable {
 
@@ -0,0 +1,558 @@
+package com.ag777.util.file;
+
+import com.ag777.util.file.model.FileIndexDiff;
+import com.ag777.util.file.model.FileIndexEntry;
+import com.ag777.util.file.model.FileIndexSnapshot;
+import com.ag777.util.security.FileHasher;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * 可持久化的文件树索引,支持增量刷新
+ * <p>
+ * 索引记录根目录下每个文件的(相对路径,大小,修改时间,可选摘要),以及每个目录的修改时间和子项列表。
+ * refresh()时目录修改时间未变的目录不再列出子项(目录修改时间只在增删改名子项时变化);
+ * 开启trustUnchangedDirs后连其中文件也不再逐个stat,文件内容的修改需要依靠watch()监听到的事件。
+ * 调用watch()后,refresh()只处理WatchService事件涉及的路径,事件溢出时自动退回全量扫描。
+ * </p>
+ * <pre>{@code
+ *  FileIndex index = new FileIndex(Paths.get("/share"));
+ *  index.loadSnapshot("/data/share.idx");
+ *  FileIndexSnapshot previous = index.snapshot();
+ *  index.watch();
+ *  while (running) {
+ *      index.refresh();
+ *      FileIndexDiff diff = index.diff(previous);	//只处理变化的文件
+ *      previous = index.snapshot();
+ *      index.saveSnapshot("/data/share.idx");
+ *  }
+ * }</pre>
+ * 不跟随符号链接,符号链接和其它特殊文件不进入索引。修改时间精度为秒的文件系统上,同一秒内的连续变化可能要到下次变化才被发现。
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 00:45
+ */
+public class FileIndex implements Closeable {
+
+	private static final int SNAPSHOT_MAGIC = 0x41474649;	//AGFI
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final String[] EMPTY = new String[0];
+	private static final long STALE = Long.MIN_VALUE;	//目录的监听已失效,下次扫描时重新列出并注册
+
+	private final Path root;
+	private FileHasher hasher;
+	private boolean trustUnchangedDirs;
+
+	private final Map<String, FileIndexEntry> files = new HashMap<>();
+	private final Map<String, DirNode> dirs = new HashMap<>();	//{相对路径(根目录为""): 目录}
+	private long refreshTime;
+
+	private WatchService watcher;
+	private final Map<WatchKey, String> watchKeys = new HashMap<>();
+	private boolean rescanAll = true;	//首次刷新或事件溢出时需要全量扫描
+
+	public FileIndex(Path root) {
+		this.root = root.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * @param hasher 摘要计算,新增或变化的文件会计算摘要,为null时不计算
+	 * @return FileIndex
+	 */
+	public synchronized FileIndex hasher(FileHasher hasher) {
+		this.hasher = hasher;
+		return this;
+	}
+
+	/**
+	 * @param trustUnchangedDirs 全量扫描时是否跳过修改时间未变的目录中的文件(不stat),默认false
+	 * @return FileIndex
+	 */
+	public synchronized FileIndex trustUnchangedDirs(boolean trustUnchangedDirs) {
+		this.trustUnchangedDirs = trustUnchangedDirs;
+		return this;
+	}
+
+	public Path getRoot() {
+		return root;
+	}
+
+	public synchronized int size() {
+		return files.size();
+	}
+
+	/**
+	 * @param path 相对路径,以/分隔
+	 * @return 文件记录,不存在时返回null
+	 */
+	public synchronized FileIndexEntry get(String path) {
+		return files.get(path);
+	}
+
+	/**
+	 * 刷新索引
+	 * @return 本次新增、变化或删除的文件数
+	 * @throws IOException 根目录不可读
+	 */
+	public synchronized int refresh() throws IOException {
+		int changed;
+		if(watcher == null || rescanAll) {
+			rescanAll = false;
+			if(watcher != null) {
+				drainEvents();	//全量扫描会覆盖这些事件
+			}
+			changed = scanDir("", root, true);
+		} else {
+			changed = applyEvents();
+		}
+		refreshTime = System.currentTimeMillis();
+		return changed;
+	}
+
+	/**
+	 * 开始监听目录变化,之后的refresh()只处理变化的路径
+	 * <p>
+	 * 每个目录占用一个监听(linux下为inotify watch,数量受fs.inotify.max_user_watches限制)
+	 * </p>
+	 * @throws IOException 创建WatchService失败
+	 */
+	public synchronized void watch() throws IOException {
+		if(watcher != null) {
+			return;
+		}
+		watcher = root.getFileSystem().newWatchService();
+		for (String dir : dirs.keySet()) {
+			register(dir);
+		}
+		rescanAll = true;	//注册前发生的变化需要全量扫描一次
+	}
+
+	/**
+	 * @return 当前索引的快照
+	 */
+	public synchronized FileIndexSnapshot snapshot() {
+		return new FileIndexSnapshot(refreshTime, new HashMap<>(files));
+	}
+
+	/**
+	 * 比较当前索引与之前的快照
+	 * @param previous 之前的快照,为null时所有文件视为新增
+	 * @return 差异
+	 */
+	public synchronized FileIndexDiff diff(FileIndexSnapshot previous) {
+		Map<String, FileIndexEntry> before = previous == null ? Collections.emptyMap() : previous.getFiles();
+		List<FileIndexEntry> added = new ArrayList<>();
+		List<FileIndexEntry> modified = new ArrayList<>();
+		List<FileIndexEntry> removed = new ArrayList<>();
+		for (FileIndexEntry entry : files.values()) {
+			FileIndexEntry old = before.get(entry.getPath());
+			if(old == null) {
+				added.add(entry);
+			} else if(!old.sameContent(entry)) {
+				modified.add(entry);
+			}
+		}
+		for (FileIndexEntry old : before.values()) {
+			if(!files.containsKey(old.getPath())) {
+				removed.add(old);
+			}
+		}
+		return new FileIndexDiff(added, modified, removed);
+	}
+
+	/**
+	 * 将索引保存到文件(二进制格式,先写临时文件再原子重命名)
+	 * @param filePath 文件路径
+	 * @throws IOException 写入失败
+	 */
+	public synchronized void saveSnapshot(String filePath) throws IOException {
+		Path target = Paths.get(filePath).toAbsolutePath();
+		Files.createDirectories(target.getParent());
+		Path temp = Files.createTempFile(target.getParent(), "."+target.getFileName(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+				out.writeInt(SNAPSHOT_MAGIC);
+				out.writeInt(SNAPSHOT_VERSION);
+				out.writeUTF(root.toString());
+				out.writeLong(refreshTime);
+				out.writeInt(dirs.size());
+				for (Map.Entry<String, DirNode> entry : dirs.entrySet()) {
+					DirNode node = entry.getValue();
+					out.writeUTF(entry.getKey());
+					out.writeLong(node.lastModified);
+					writeNames(out, node.files);
+					writeNames(out, node.subdirs);
+				}
+				out.writeInt(files.size());
+				for (FileIndexEntry entry : files.values()) {
+					out.writeUTF(entry.getPath());
+					out.writeLong(entry.getSize());
+					out.writeLong(entry.getLastModified());
+					out.writeBoolean(entry.getHash() != null);
+					if(entry.getHash() != null) {
+						out.writeUTF(entry.getHash());
+					}
+				}
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(temp);
+			throw ex;
+		}
+	}
+
+	/**
+	 * 从文件恢复索引,之后的refresh()在此基础上增量刷新
+	 * @param filePath 文件路径
+	 * @return 是否恢复成功,文件不存在或不是同一根目录的索引时返回false
+	 * @throws IOException 读取失败或文件损坏
+	 */
+	public synchronized boolean loadSnapshot(String filePath) throws IOException {
+		if(!FileUtils.fileExists(filePath)) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(filePath)), 1 << 16))) {
+			if(in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+				throw new IOException("不是有效的索引文件:"+filePath);
+			}
+			if(!root.toString().equals(in.readUTF())) {
+				return false;
+			}
+			long time = in.readLong();
+			Map<String, DirNode> dirMap = new HashMap<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				String path = in.readUTF();
+				dirMap.put(path, new DirNode(in.readLong(), readNames(in), readNames(in)));
+			}
+			Map<String, FileIndexEntry> fileMap = new HashMap<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				String path = in.readUTF();
+				long size = in.readLong();
+				long lastModified = in.readLong();
+				fileMap.put(path, new FileIndexEntry(path, size, lastModified, in.readBoolean() ? in.readUTF() : null));
+			}
+			dirs.clear();
+			dirs.putAll(dirMap);
+			files.clear();
+			files.putAll(fileMap);
+			refreshTime = time;
+			rescanAll = true;
+			if(watcher != null) {
+				for (String dir : dirs.keySet()) {
+					register(dir);
+				}
+			}
+			return true;
+		} catch (EOFException ex) {
+			throw new IOException("索引文件不完整:"+filePath, ex);
+		}
+	}
+
+	/**
+	 * 停止监听
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if(watcher != null) {
+			watcher.close();
+			watcher = null;
+			watchKeys.clear();
+		}
+	}
+
+	/**
+	 * 扫描目录,修改时间未变时复用记录的子项列表
+	 * @param recursive 是否递归扫描子目录(事件驱动刷新时只处理有变化的目录,新出现的子目录总是递归扫描)
+	 * @return 变化的文件数
+	 */
+	private int scanDir(String rel, Path dir, boolean recursive) throws IOException {
+		BasicFileAttributes attrs;
+		try {
+			attrs = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (NoSuchFileException ex) {
+			if(rel.isEmpty()) {
+				throw ex;
+			}
+			return removeDir(rel);
+		}
+		if(!attrs.isDirectory()) {
+			return removeDir(rel);
+		}
+		long lastModified = attrs.lastModifiedTime().toMillis();
+		DirNode node = dirs.get(rel);
+		boolean stale = node != null && node.lastModified == STALE;
+		int changed = 0;
+		Set<String> newDirs = Collections.emptySet();
+		if(node == null || node.lastModified != lastModified) {	//子项有增删,重新列出
+			List<String> fileNames = new ArrayList<>();
+			List<String> dirNames = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path child : stream) {
+					String name = child.getFileName().toString();
+					BasicFileAttributes childAttrs;
+					try {
+						childAttrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					} catch (NoSuchFileException ex) {
+						continue;
+					}
+					if(childAttrs.isDirectory()) {
+						dirNames.add(name);
+					} else if(childAttrs.isRegularFile()) {
+						fileNames.add(name);
+						changed += updateFile(join(rel, name), child, childAttrs);
+					}
+				}
+			}
+			DirNode newNode = new DirNode(lastModified, fileNames.toArray(EMPTY), dirNames.toArray(EMPTY));
+			if(node != null) {
+				Set<String> keptFiles = new HashSet<>(fileNames);
+				for (String name : node.files) {
+					if(!keptFiles.contains(name) && files.remove(join(rel, name)) != null) {
+						changed++;
+					}
+				}
+				Set<String> keptDirs = new HashSet<>(dirNames);
+				for (String name : node.subdirs) {
+					if(!keptDirs.contains(name)) {
+						changed += removeDir(join(rel, name));
+					}
+				}
+				newDirs = new HashSet<>(keptDirs);
+				newDirs.removeAll(Arrays.asList(node.subdirs));
+			}
+			if(node == null || stale) {
+				register(rel);
+			}
+			node = newNode;
+			dirs.put(rel, node);
+		} else if(!trustUnchangedDirs || !recursive) {	//子项未变,只检查文件本身是否修改
+			for (String name : node.files) {
+				changed += refreshFile(join(rel, name));
+			}
+		}
+		for (String name : node.subdirs) {
+			String childRel = join(rel, name);
+			if(recursive || stale || newDirs.contains(name) || !dirs.containsKey(childRel)) {
+				changed += scanDir(childRel, dir.resolve(name), true);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * 重新读取单个文件的属性
+	 * @return 变化的文件数(0或1)
+	 */
+	private int refreshFile(String rel) throws IOException {
+		Path file = resolve(rel);
+		BasicFileAttributes attrs;
+		try {
+			attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (NoSuchFileException ex) {
+			return files.remove(rel) == null ? 0 : 1;
+		}
+		if(!attrs.isRegularFile()) {
+			return files.remove(rel) == null ? 0 : 1;
+		}
+		return updateFile(rel, file, attrs);
+	}
+
+	private int updateFile(String rel, Path file, BasicFileAttributes attrs) throws IOException {
+		long size = attrs.size();
+		long lastModified = attrs.lastModifiedTime().toMillis();
+		FileIndexEntry old = files.get(rel);
+		if(old != null && old.getSize() == size && old.getLastModified() == lastModified
+				&& (hasher == null || old.getHash() != null)) {
+			return 0;
+		}
+		String hash = null;
+		if(hasher != null) {
+			try {
+				hash = hasher.hash(file);
+			} catch (NoSuchFileException ex) {
+				return files.remove(rel) == null ? 0 : 1;
+			}
+		}
+		files.put(rel, new FileIndexEntry(rel, size, lastModified, hash));
+		return 1;
+	}
+
+	/**
+	 * 移除目录及其下的所有记录
+	 */
+	private int removeDir(String rel) {
+		DirNode node = dirs.remove(rel);
+		if(node == null) {
+			return 0;
+		}
+		int changed = 0;
+		for (String name : node.files) {
+			if(files.remove(join(rel, name)) != null) {
+				changed++;
+			}
+		}
+		for (String name : node.subdirs) {
+			changed += removeDir(join(rel, name));
+		}
+		return changed;
+	}
+
+	/**
+	 * 处理监听到的事件:有子项增删的目录重新列出,内容修改的文件重新读取属性
+	 */
+	private int applyEvents() throws IOException {
+		Set<String> dirtyDirs = new LinkedHashSet<>();
+		Set<String> dirtyFiles = new LinkedHashSet<>();
+		Set<String> invalidDirs = new LinkedHashSet<>();
+		WatchKey key;
+		while ((key = watcher.poll()) != null) {
+			String dir = watchKeys.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					rescanAll = true;
+					continue;
+				}
+				if(dir == null) {
+					continue;
+				}
+				String child = join(dir, event.context().toString());
+				if(event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+					if(dirs.containsKey(child)) {
+						dirtyDirs.add(child);
+					} else {
+						dirtyFiles.add(child);
+					}
+				} else {
+					dirtyDirs.add(dir);
+				}
+			}
+			if(!key.reset()) {
+				watchKeys.remove(key);
+				if(dir != null) {
+					invalidDirs.add(dir);
+				}
+			}
+		}
+		//监听失效的目录(被删除、移动过)可能又以同名重建,父目录的列表中名字不变,需要强制重新列出并注册
+		for (String dir : invalidDirs) {
+			invalidate(dir);
+		}
+		if(rescanAll) {
+			rescanAll = false;
+			return scanDir("", root, true);
+		}
+		int changed = 0;
+		for (String dir : dirtyDirs) {
+			if(isRemoved(dir)) {
+				continue;
+			}
+			changed += scanDir(dir, resolve(dir), false);
+		}
+		for (String dir : invalidDirs) {
+			DirNode node = dirs.get(dir);
+			if(node != null && node.lastModified == STALE && !isRemoved(dir)) {
+				changed += scanDir(dir, resolve(dir), true);
+			}
+		}
+		for (String file : dirtyFiles) {
+			String parent = parentOf(file);
+			if(!dirtyDirs.contains(parent) && dirs.containsKey(parent)) {
+				changed += refreshFile(file);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * 将目录及其下所有子目录标记为需要重新列出并注册监听,已记录的文件保留用于比较
+	 */
+	private void invalidate(String rel) {
+		DirNode node = dirs.get(rel);
+		if(node == null || node.lastModified == STALE) {
+			return;
+		}
+		dirs.put(rel, new DirNode(STALE, node.files, node.subdirs));
+		for (String name : node.subdirs) {
+			invalidate(join(rel, name));
+		}
+	}
+
+	private void drainEvents() {
+		WatchKey key;
+		while ((key = watcher.poll()) != null) {
+			key.pollEvents();
+			if(!key.reset()) {
+				watchKeys.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * 父目录已经不在索引中(已随上级目录移除)
+	 */
+	private boolean isRemoved(String rel) {
+		return !rel.isEmpty() && !dirs.containsKey(parentOf(rel)) && !dirs.containsKey(rel);
+	}
+
+	private void register(String rel) throws IOException {
+		if(watcher == null) {
+			return;
+		}
+		try {
+			WatchKey key = resolve(rel).register(watcher,
+					StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+			watchKeys.put(key, rel);
+		} catch (NoSuchFileException ignored) {
+		}
+	}
+
+	private Path resolve(String rel) {
+		return rel.isEmpty() ? root : root.resolve(rel);
+	}
+
+	private static String join(String parent, String name) {
+		return parent.isEmpty() ? name : parent + '/' + name;
+	}
+
+	private static String parentOf(String rel) {
+		int index = rel.lastIndexOf('/');
+		return index < 0 ? "" : rel.substring(0, index);
+	}
+
+	private static void writeNames(DataOutputStream out, String[] names) throws IOException {
+		out.writeInt(names.length);
+		for (String name : names) {
+			out.writeUTF(name);
+		}
+	}
+
+	private static String[] readNames(DataInputStream in) throws IOException {
+		String[] names = new String[in.readInt()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = in.readUTF();
+		}
+		return names;
+	}
+
+	/**
+	 * 目录的修改时间和子项名称
+	 */
+	private static final class DirNode {
+		private final long lastModified;
+		private final String[] files;
+		private final String[] subdirs;
+
+		DirNode(long lastModified, String[] files, String[] subdirs) {
+			this.lastModified = lastModified;
+			this.files = files;
+			this.subdirs = subdirs;
+		}
+	}
+}
@@ -4,24 +4,27 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 import com.ag777.util.file.model.DeleteDirectory;
+import com.ag777.util.file.model.FileTreeResult;
 import com.ag777.util.lang.Console;
 import com.ag777.util.lang.IOUtils;
 import com.ag777.util.lang.StreamUtils;
 import com.ag777.util.lang.collection.ListUtils;
 import com.ag777.util.lang.exception.Assert;
+import com.ag777.util.lang.interf.ProgressListener;
 import com.ag777.util.lang.model.Charsets;
 
 /**
@@ -32,7 +35,7 @@ import com.ag777.util.lang.model.Charsets;
  * </p>
  * 
  * @author ag777
- * @version create on 2018年04月18日,last modify at 2020年09月01日
+ * @version create on 2018年04月18日,last modify at 2026年10月18日
  */
 public class FileNioUtils {
 
@@ -378,6 +381,41 @@ public class FileNioUtils {
 		}
 	}
 	
+	/**
+	 * 复制单个文件(零拷贝)
+	 * <p>
+	 * 通过FileChannel.transferTo在内核中完成拷贝,不经过java堆,适合大文件;
+	 * 目标父目录不存在时自动创建,支持posix权限的系统上同时复制文件权限(与Files.copy一致);
+	 * 源和目标是同一个文件(包括硬链接/软链接)时不做任何操作
+	 * </p>
+	 * @param source 源文件
+	 * @param target 目标文件
+	 * @param overwrite 目标已存在时是否覆盖,为false时抛出FileAlreadyExistsException
+	 * @param listener 进度监听,可以为null
+	 * @return 复制的字节数
+	 * @throws IOException IOException
+	 */
+	public static long transfer(Path source, Path target, boolean overwrite, ProgressListener listener) throws IOException {
+		if(Files.exists(target) && Files.isSameFile(source, target)) {	//否则TRUNCATE_EXISTING会清空源文件
+			return Files.size(source);
+		}
+		Path parent = target.toAbsolutePath().getParent();
+		if(parent != null) {
+			Files.createDirectories(parent);
+		}
+		OpenOption createOption = overwrite ? StandardOpenOption.CREATE : StandardOpenOption.CREATE_NEW;
+		long count;
+		try (FileChannel src = FileChannel.open(source, StandardOpenOption.READ);
+				FileChannel dst = FileChannel.open(target, createOption, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			count = IOUtils.transfer(src, dst, listener);
+		}
+		try {
+			Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+		} catch (UnsupportedOperationException ignored) {	//非posix文件系统
+		}
+		return count;
+	}
+
 	//--输入/输出流
 	//-写
 	/**
@@ -586,36 +624,7 @@ public class FileNioUtils {
      * @return
      */
     private static boolean moveFolder(Path source, Path target) {
-    	boolean flag = false;
-    	DirectoryStream<Path> streamList = null;	//这个是个流，所以需要被关掉
-    	try {
-			//创建目录
-			if(!Files.exists(target)) {
-				Files.createDirectory(target);
-			}
-			streamList = Files.newDirectoryStream(source);  
-	        for (Path pathSun : streamList){
-	        	String targetSun = target.toString()+File.separator+pathSun.getFileName();
-	        	if(isDirectory(pathSun)) {
-	        		moveFolder(pathSun, getPath(targetSun+File.separator));
-	        	} else {
-	        		moveFile(pathSun, getPath(targetSun));
-	        	}
-	        }
-	        flag = true;
-	    } catch (IOException e) {  
-	         e.printStackTrace();  
-	    } finally {
-	    	IOUtils.close(streamList);
-	    	if(flag) {	//只有在移动成功时才删除文件夹
-	    		try {
-					Files.delete(source);
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-	    	}
-	    }
-		return flag;
+    	return runTree(() -> new FileTreeOperator().move(source, target));
     }
     
     /**
@@ -630,7 +639,7 @@ public class FileNioUtils {
 	 */
 	private static boolean copyFile(Path source, Path target) {
 		try {
-			Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+			transfer(source, target, true, null);
 			return true;
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -646,29 +655,25 @@ public class FileNioUtils {
 	 * @throws IOException IOException
 	 */
 	private static boolean copyFolder(Path source, Path target) {
-		boolean flag = false;
-		DirectoryStream<Path> streamList = null;	//这个是个流，所以需要被关掉
+		return runTree(() -> new FileTreeOperator().copy(source, target));
+	}
+
+	/**
+	 * 执行目录树操作,打印失败信息
+	 * @param operation 操作
+	 * @return 是否全部成功
+	 */
+	private static boolean runTree(Callable<FileTreeResult> operation) {
 		try {
-			//创建目录
-			if(!Files.exists(target)) {
-				Files.createDirectory(target);
+			FileTreeResult result = operation.call();
+			for (FileTreeResult.Failure failure : result.getFailures()) {
+				Console.err(failure.toString());
 			}
-			streamList = Files.newDirectoryStream(source);  
-	        for (Path pathSun : streamList){
-	        	String targetSun = target.toString()+File.separator+pathSun.getFileName();
-	        	if(isDirectory(pathSun)) {
-	        		copyFolder(pathSun, getPath(targetSun+File.separator));
-	        	} else {
-	        		copyFile(pathSun, getPath(targetSun));
-	        	}
-	        }
-	        flag = true;
-	    } catch (IOException e) {  
-	         e.printStackTrace();  
-	    } finally {
-	    	IOUtils.close(streamList);
-	    }
-		return flag;
+			return result.isSuccess();
+		} catch (Exception e) {
+			e.printStackTrace();
+			return false;
+		}
 	}
     
     /**
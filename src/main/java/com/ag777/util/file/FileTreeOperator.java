@@ -0,0 +1,416 @@
+package com.ag777.util.file;
+
+import com.ag777.util.file.model.FileTreeResult;
+import com.ag777.util.lang.BufferPool;
+import com.ag777.util.lang.IOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并行目录树操作(复制/移动/删除/校验)
+ * <p>
+ * 使用ForkJoinPool遍历目录:每个目录一个任务,目录下的文件按批拆分成子任务,空闲线程自动窃取其它目录的任务,
+ * 适合包含大量小文件、耗时主要在io等待上的目录。
+ * 单个文件失败不会中断整体操作,失败的路径及异常记录在结果中。
+ * 符号链接不会被跟随(复制链接本身,删除链接本身,校验时跳过)。
+ * </p>
+ * <pre>{@code
+ *  FileTreeResult result = new FileTreeOperator()
+ *          .parallelism(16)
+ *          .preserveAttributes(true)
+ *          .copy(Paths.get("/data/a"), Paths.get("/backup/a"));
+ *  if(!result.isSuccess()) {
+ *      result.getFailures().forEach(System.err::println);
+ *  }
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 01:05
+ */
+public class FileTreeOperator {
+
+	private static final int FILE_BATCH = 32;	//一个子任务处理的文件数
+
+	private int parallelism = Math.max(4, Runtime.getRuntime().availableProcessors());
+	private boolean preserveAttributes;
+	private boolean overwrite = true;
+	private String algorithm = "MD5";
+
+	/**
+	 * @param parallelism 同时进行的文件操作数,默认为cpu核数(至少为4)
+	 * @return FileTreeOperator
+	 */
+	public FileTreeOperator parallelism(int parallelism) {
+		if(parallelism <= 0) {
+			throw new IllegalArgumentException("并发数必须大于0");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * @param preserveAttributes 复制时是否保留文件及目录的修改时间和目录的posix权限,默认false(文件的posix权限总是会复制)
+	 * @return FileTreeOperator
+	 */
+	public FileTreeOperator preserveAttributes(boolean preserveAttributes) {
+		this.preserveAttributes = preserveAttributes;
+		return this;
+	}
+
+	/**
+	 * @param overwrite 复制/移动时目标文件已存在是否覆盖,默认true,为false时跳过
+	 * @return FileTreeOperator
+	 */
+	public FileTreeOperator overwrite(boolean overwrite) {
+		this.overwrite = overwrite;
+		return this;
+	}
+
+	/**
+	 * @param algorithm 校验使用的摘要算法,默认MD5
+	 * @return FileTreeOperator
+	 */
+	public FileTreeOperator algorithm(String algorithm) {
+		this.algorithm = algorithm;
+		return this;
+	}
+
+	/**
+	 * 将source目录下的内容复制到target目录下(target不存在时创建)
+	 * @param source 源目录
+	 * @param target 目标目录
+	 * @return 结果
+	 * @throws NoSuchFileException 源目录不存在
+	 */
+	public FileTreeResult copy(Path source, Path target) throws NoSuchFileException {
+		checkDirectory(source);
+		return run(new Context(Op.COPY, source, target));
+	}
+
+	/**
+	 * 将source目录下的内容移动到target目录下(target不存在时创建),全部成功后删除source
+	 * <p>
+	 * target不存在时先尝试整体重命名,成功则不再逐个移动文件(此时结果中只统计1个目录)
+	 * </p>
+	 * @param source 源目录
+	 * @param target 目标目录
+	 * @return 结果
+	 * @throws NoSuchFileException 源目录不存在
+	 */
+	public FileTreeResult move(Path source, Path target) throws NoSuchFileException {
+		checkDirectory(source);
+		if(!Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+			long start = System.currentTimeMillis();
+			try {
+				Path parent = target.toAbsolutePath().getParent();
+				if(parent != null) {
+					Files.createDirectories(parent);
+				}
+				Files.move(source, target);
+				return new FileTreeResult(0, 1, 0, 0, System.currentTimeMillis()-start, new ArrayList<>(), null);
+			} catch (IOException ignored) {	//跨文件系统等情况,退化为逐个移动
+			}
+		}
+		return run(new Context(Op.MOVE, source, target));
+	}
+
+	/**
+	 * 删除目录及其所有内容
+	 * @param dir 目录
+	 * @return 结果
+	 * @throws NoSuchFileException 目录不存在
+	 */
+	public FileTreeResult delete(Path dir) throws NoSuchFileException {
+		checkDirectory(dir);
+		return run(new Context(Op.DELETE, dir, null));
+	}
+
+	/**
+	 * 计算目录下所有文件的摘要,结果通过FileTreeResult.getChecksums()获取,键为以/分隔的相对路径
+	 * @param dir 目录
+	 * @return 结果
+	 * @throws NoSuchFileException 目录不存在
+	 * @throws NoSuchAlgorithmException 不支持的摘要算法
+	 */
+	public FileTreeResult checksum(Path dir) throws NoSuchFileException, NoSuchAlgorithmException {
+		checkDirectory(dir);
+		MessageDigest.getInstance(algorithm);	//提前校验算法
+		return run(new Context(Op.CHECKSUM, dir, null));
+	}
+
+	private FileTreeResult run(Context ctx) {
+		long start = System.currentTimeMillis();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new DirTask(ctx, ctx.source, ctx.target));
+		} finally {
+			pool.shutdown();
+		}
+		return new FileTreeResult(
+				ctx.files.sum(),
+				ctx.dirs.sum(),
+				ctx.bytes.sum(),
+				ctx.skipped.sum(),
+				System.currentTimeMillis()-start,
+				new ArrayList<>(ctx.failures),
+				ctx.checksums);
+	}
+
+	private static void checkDirectory(Path dir) throws NoSuchFileException {
+		if(!Files.isDirectory(dir)) {
+			throw new NoSuchFileException("目录["+dir+"]不存在");
+		}
+	}
+
+	private enum Op {
+		COPY, MOVE, DELETE, CHECKSUM
+	}
+
+	/**
+	 * 一次操作的共享状态
+	 */
+	private class Context {
+		private final Op op;
+		private final Path source;
+		private final Path target;
+		private final LongAdder files = new LongAdder();
+		private final LongAdder dirs = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder skipped = new LongAdder();
+		private final ConcurrentLinkedQueue<FileTreeResult.Failure> failures = new ConcurrentLinkedQueue<>();
+		private final Map<String, String> checksums;
+
+		Context(Op op, Path source, Path target) {
+			this.op = op;
+			this.source = source;
+			this.target = target;
+			this.checksums = op == Op.CHECKSUM ? new ConcurrentHashMap<>() : null;
+		}
+
+		void fail(Path path, IOException ex) {
+			failures.add(new FileTreeResult.Failure(path, ex));
+		}
+	}
+
+	/**
+	 * 处理一个目录:先处理目录本身(如创建目标目录),再并行处理子目录和文件,最后做收尾(如删除源目录)
+	 */
+	private class DirTask extends RecursiveTask<Boolean> {
+		private static final long serialVersionUID = 1L;
+		private final Context ctx;
+		private final Path dir;
+		private final Path targetDir;
+
+		DirTask(Context ctx, Path dir, Path targetDir) {
+			this.ctx = ctx;
+			this.dir = dir;
+			this.targetDir = targetDir;
+		}
+
+		/**
+		 * @return 该目录及其子孙是否全部处理成功
+		 */
+		@Override
+		protected Boolean compute() {
+			if(targetDir != null) {
+				try {
+					Files.createDirectories(targetDir);
+				} catch (IOException ex) {
+					ctx.fail(targetDir, ex);
+					return false;
+				}
+			}
+
+			List<RecursiveTask<Boolean>> tasks = new ArrayList<>();
+			List<Path> batch = new ArrayList<>(FILE_BATCH);
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path child : stream) {
+					Path childTarget = targetDir == null ? null : targetDir.resolve(child.getFileName().toString());
+					if(Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+						tasks.add(new DirTask(ctx, child, childTarget));
+					} else {
+						batch.add(child);
+						if(batch.size() == FILE_BATCH) {
+							tasks.add(new FileTask(ctx, batch, targetDir));
+							batch = new ArrayList<>(FILE_BATCH);
+						}
+					}
+				}
+			} catch (IOException | DirectoryIteratorException ex) {
+				ctx.fail(dir, ex instanceof IOException ? (IOException) ex : ((DirectoryIteratorException) ex).getCause());
+				return false;
+			}
+			if(!batch.isEmpty()) {
+				tasks.add(new FileTask(ctx, batch, targetDir));
+			}
+			boolean clean = true;
+			for (RecursiveTask<Boolean> task : invokeAll(tasks)) {
+				clean &= task.join();
+			}
+			return finish(clean);
+		}
+
+		/**
+		 * @param clean 子目录及文件是否全部成功,移动/删除时只有全部成功才删除该目录
+		 */
+		private boolean finish(boolean clean) {
+			try {
+				switch (ctx.op) {
+					case COPY:
+						if(preserveAttributes) {	//子文件写完后再设置,否则会被修改(只读目录也无法写入子文件)
+							try {
+								Files.setPosixFilePermissions(targetDir, Files.getPosixFilePermissions(dir));
+							} catch (UnsupportedOperationException ignored) {	//非posix文件系统
+							}
+							Files.setLastModifiedTime(targetDir, Files.getLastModifiedTime(dir));
+						}
+						break;
+					case MOVE:
+					case DELETE:
+						if(!clean) {
+							return false;
+						}
+						Files.delete(dir);
+						break;
+					default:
+						break;
+				}
+				ctx.dirs.increment();
+				return clean;
+			} catch (IOException ex) {
+				ctx.fail(dir, ex);
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * 处理同一目录下的一批文件
+	 */
+	private class FileTask extends RecursiveTask<Boolean> {
+		private static final long serialVersionUID = 1L;
+		private final Context ctx;
+		private final List<Path> files;
+		private final Path targetDir;
+
+		FileTask(Context ctx, List<Path> files, Path targetDir) {
+			this.ctx = ctx;
+			this.files = files;
+			this.targetDir = targetDir;
+		}
+
+		/**
+		 * @return 是否全部成功(跳过不算失败)
+		 */
+		@Override
+		protected Boolean compute() {
+			ByteBuffer buffer = ctx.op == Op.CHECKSUM ? BufferPool.shared().acquireDirect(IOUtils.TRANSFER_BUFFSIZE) : null;
+			try {
+				return processAll(buffer);
+			} finally {
+				BufferPool.shared().releaseDirect(buffer);
+			}
+		}
+
+		private boolean processAll(ByteBuffer buffer) {
+			boolean success = true;
+			for (Path file : files) {
+				try {
+					BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					Path target = targetDir == null ? null : targetDir.resolve(file.getFileName().toString());
+					if(!process(file, attrs, target, buffer)) {
+						ctx.skipped.increment();
+						continue;
+					}
+					ctx.files.increment();
+					ctx.bytes.add(attrs.size());
+				} catch (IOException ex) {
+					ctx.fail(file, ex);
+					success = false;
+				}
+			}
+			return success;
+		}
+
+		/**
+		 * @return false代表跳过
+		 */
+		private boolean process(Path file, BasicFileAttributes attrs, Path target, ByteBuffer buffer) throws IOException {
+			switch (ctx.op) {
+				case COPY:
+					if(!overwrite && Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+						return false;
+					}
+					if(attrs.isRegularFile()) {
+						FileNioUtils.transfer(file, target, true, null);
+						if(preserveAttributes) {
+							Files.setLastModifiedTime(target, attrs.lastModifiedTime());
+						}
+					} else {	//符号链接等
+						Files.copy(file, target, LinkOption.NOFOLLOW_LINKS, StandardCopyOption.REPLACE_EXISTING);
+					}
+					return true;
+				case MOVE:
+					if(overwrite) {
+						Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+					} else if(Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+						return false;
+					} else {
+						Files.move(file, target);
+					}
+					return true;
+				case DELETE:
+					Files.delete(file);
+					return true;
+				case CHECKSUM:
+					if(!attrs.isRegularFile()) {
+						return false;
+					}
+					ctx.checksums.put(relativize(file), digest(file, buffer));
+					return true;
+				default:
+					return false;
+			}
+		}
+
+		private String relativize(Path file) {
+			return ctx.source.relativize(file).toString().replace('\\', '/');
+		}
+
+		private String digest(Path file, ByteBuffer buffer) throws IOException {
+			MessageDigest md;
+			try {
+				md = MessageDigest.getInstance(algorithm);
+			} catch (NoSuchAlgorithmException ex) {
+				throw new IOException(ex);
+			}
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				buffer.clear();
+				while (channel.read(buffer) != -1) {
+					buffer.flip();
+					md.update(buffer);
+					buffer.clear();
+				}
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : md.digest()) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		}
+	}
+}
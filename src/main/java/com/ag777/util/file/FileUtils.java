@@ -5,14 +5,13 @@ import com.ag777.util.lang.Console;
 import com.ag777.util.lang.*;
 import com.ag777.util.lang.collection.ListUtils;
 import com.ag777.util.lang.model.Charsets;
+import com.ag777.util.security.FileHasher;
 
 import java.io.*;
-import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributeView;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.function.BiPredicate;
@@ -26,7 +25,7 @@ import java.util.stream.Stream;
  * 文件操作工具类
  * 
  * @author ag777
- * @version create on 2020年08月04日,last modify at 2024年12月25日
+ * @version create on 2020年08月04日,last modify at 2026年10月18日
  */
 public class FileUtils {
 	public static final Pattern P_EXTENSION_LONG = Pattern.compile("(?<=\\.)[\\w\\d]{1,5}(.[\\w\\d]{1,5})*$");
@@ -34,7 +33,6 @@ public class FileUtils {
 
     private static Charset FILE_WRITING_CHARSET = Charsets.UTF_8;
     private static Charset FILE_READING_CHARSET = Charsets.UTF_8;
-    private static int BUFFSIZE = 1024;	//一次性读取的字节
 
     public static Charset encodingRead() {
     	return FILE_READING_CHARSET;
@@ -181,6 +179,9 @@ public class FileUtils {
 
 	/**
 	 * 取文件为字节数组
+	 * <p>
+	 * 按文件大小一次分配数组,不经过ByteArrayOutputStream扩容
+	 * </p>
 	 * @param file 文件
 	 * @return byte[]
 	 * @throws IOException IOException
@@ -188,7 +189,12 @@ public class FileUtils {
 	public static byte[] readBytes(File file) throws IOException {
 		try {
 			FileInputStream fis = new FileInputStream(file);
-			return IOUtils.readBytes(fis);
+			long size = file.length();
+			if(size > Integer.MAX_VALUE - 8) {
+				IOUtils.close(fis);
+				throw new IOException("文件过大:"+size);
+			}
+			return IOUtils.readBytes(fis, (int) size);
 		} catch (FileNotFoundException ex) {
 			throw new FileNotFoundException(StringUtils.concat("文件[", file.getAbsolutePath(), "]不存在"));
 		} catch (IOException ex) {
@@ -407,28 +413,24 @@ public class FileUtils {
     
     /**
      * 逐行替换文件中的内容,另存
+     * <p>
+     * 流式读写,先写入目标目录下的临时文件再原子重命名,出错时目标文件保持原样,详见{@link LineRewriter}
+     * </p>
      * @param srcPath 源路径
      * @param targetPath 目标路径
      * @param filter 参数为当前行内容,结果返回null则删除该行，其余则替换掉源内容
      * @throws IOException IOException
      */
     public static void replaceAllByLines(String srcPath, String targetPath, Function<String, String> filter) throws IOException {
-    	List<String> newLines = ListUtils.newArrayList();
     	if(StringUtils.isBlank(srcPath)) {
     		throw new IOException("文件名为空");
     	}
     	if(filter == null) {
     		return;
     	}
-    	List<String> lines = readLines(srcPath);
-    	for (String line : lines) {
-    		String temp = filter.apply(line);
-    		if(temp != null) {
-    			newLines.add(temp);
-    		}
-		}
-    	
-    	write(targetPath, newLines, null);
+    	new LineRewriter()
+    			.charset(FILE_READING_CHARSET, FILE_WRITING_CHARSET)
+    			.rewrite(Paths.get(srcPath), Paths.get(targetPath), filter);
     }
     
     /**
@@ -445,20 +447,21 @@ public class FileUtils {
     	} else if(pattern == null) {
     		throw new IOException("正则表达式不正确");
     	} 
-    	List<String> lines = readLines(filePath);
-    	for(int i=0; i<lines.size(); i++) {
-    		String line = lines.get(i);
+    	boolean[] replaced = {false};
+    	replaceAllByLines(filePath, filePath, line -> {
+    		if(replaced[0]) {
+    			return line;
+    		}
     		Matcher matcher = pattern.matcher(line);
-			if(matcher.find()) {
-				if(isReplaceAll) {
-					lines.set(i, matcher.replaceAll(replacement));
-				} else {
-					lines.set(i, matcher.replaceFirst(replacement));
-					break;
-				}
+			if(!matcher.find()) {
+				return line;
 			}
-    	}
-    	write(filePath, lines, null);
+			if(isReplaceAll) {
+				return matcher.replaceAll(replacement);
+			}
+			replaced[0] = true;
+			return matcher.replaceFirst(replacement);
+    	});
     }
     
     /**
@@ -699,7 +702,7 @@ public class FileUtils {
         
         try {
             out = getOutputStream(filePath);
-            IOUtils.write(in, out, BUFFSIZE);
+            IOUtils.write(in, out, IOUtils.BUFFSIZE);
             return new File(filePath);
         } catch (IOException e) {
             throw new IOException(StringUtils.concat("写入文件[",filePath,"]时发生错误!"), e);
@@ -1193,10 +1196,10 @@ public class FileUtils {
 		// 移动文件或目录
 		if (overrideWhenExists) {
 			// 当目标已存在且允许覆盖时，使用替换已存在的方式进行复制
-			Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+			FileNioUtils.transfer(source, target, true, null);
 		} else if (!Files.exists(target)) {
 			// 当目标不存在时，直接进行复制
-			Files.copy(source, target);
+			FileNioUtils.transfer(source, target, false, null);
 		}
 
 	}
@@ -1226,28 +1229,16 @@ public class FileUtils {
 	
 	/**
 	 * 获取文件md5值
+	 * <p>
+	 * 其它算法、多文件并行及大文件分块计算见{@link FileHasher}
+	 * </p>
 	 * @param filePath filePath
-	 * @return md5
+	 * @return md5(32位小写,保留前导0)
 	 * @throws IOException IOException
 	 * @throws NoSuchAlgorithmException NoSuchAlgorithmException
 	 */
 	public static String md5(String filePath) throws IOException, NoSuchAlgorithmException {
-        InputStream fis = null;
-        try {
-        	fis = getInputStream(filePath);
-        	MessageDigest md = MessageDigest.getInstance("MD5");
-	        byte[] buffer = new byte[1024];
-	        int length;
-	        while ((length = fis.read(buffer, 0, 1024)) != -1) {
-	            md.update(buffer, 0, length);
-	        }
-	        BigInteger bigInt = new BigInteger(1, md.digest());
-	        return bigInt.toString(16);
-        }catch (IOException|NoSuchAlgorithmException ex) {
-        	throw ex;
-        } finally {
-        	IOUtils.close(fis);
-        }
+		return new FileHasher(FileHasher.Algorithm.MD5).hash(Paths.get(filePath));
 	}
 
 	@FunctionalInterface
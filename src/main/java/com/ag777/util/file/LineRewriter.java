@@ -0,0 +1,251 @@
+package com.ag777.util.file;
+
+import com.ag777.util.lang.SystemUtils;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 流式逐行改写文件
+ * <p>
+ * 按行读取源文件,经过filter转换后写入目标文件所在目录下的临时文件,写完落盘后通过ATOMIC_MOVE重命名覆盖目标文件。
+ * 内存占用与文件大小无关;中途出错或进程崩溃时目标文件保持原样,临时文件会被删除(崩溃时残留以.tmp结尾的隐藏文件)。
+ * 源文件和目标文件可以是同一个文件。
+ * </p>
+ * <p>
+ * 设置parallelism大于1后,按块(blockLines行)并行执行filter,写出顺序与源文件一致,此时filter需要线程安全,适合cpu开销大的转换。
+ * </p>
+ * <pre>{@code
+ *  long lines = new LineRewriter()
+ *          .parallelism(4)
+ *          .rewrite(Paths.get("big.csv"), line -> line.isEmpty() ? null : line.toUpperCase());
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 21:00
+ */
+public class LineRewriter {
+
+	private Charset readCharset = StandardCharsets.UTF_8;
+	private Charset writeCharset = StandardCharsets.UTF_8;
+	private String lineSeparator = SystemUtils.lineSeparator();
+	private int bufferSize = 1 << 20;
+	private int parallelism = 1;
+	private int blockLines = 4096;
+	private boolean sync = true;
+
+	/**
+	 * @param readCharset 读取字符集
+	 * @param writeCharset 写出字符集
+	 * @return LineRewriter
+	 */
+	public LineRewriter charset(Charset readCharset, Charset writeCharset) {
+		this.readCharset = readCharset;
+		this.writeCharset = writeCharset;
+		return this;
+	}
+
+	/**
+	 * @param lineSeparator 写出时的换行符,默认为系统换行符
+	 * @return LineRewriter
+	 */
+	public LineRewriter lineSeparator(String lineSeparator) {
+		this.lineSeparator = lineSeparator;
+		return this;
+	}
+
+	/**
+	 * @param bufferSize 读写缓冲区大小(字符),默认1M
+	 * @return LineRewriter
+	 */
+	public LineRewriter bufferSize(int bufferSize) {
+		if(bufferSize <= 0) {
+			throw new IllegalArgumentException("缓冲区大小必须大于0");
+		}
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * @param parallelism 执行filter的线程数,默认1(在当前线程执行)
+	 * @return LineRewriter
+	 */
+	public LineRewriter parallelism(int parallelism) {
+		if(parallelism <= 0) {
+			throw new IllegalArgumentException("并发数必须大于0");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * @param blockLines 并行时每块的行数,默认4096
+	 * @return LineRewriter
+	 */
+	public LineRewriter blockLines(int blockLines) {
+		if(blockLines <= 0) {
+			throw new IllegalArgumentException("块行数必须大于0");
+		}
+		this.blockLines = blockLines;
+		return this;
+	}
+
+	/**
+	 * @param sync 重命名前是否将临时文件强制落盘,默认true
+	 * @return LineRewriter
+	 */
+	public LineRewriter sync(boolean sync) {
+		this.sync = sync;
+		return this;
+	}
+
+	/**
+	 * 原地改写文件
+	 * @param file 文件
+	 * @param filter 参数为当前行内容,结果返回null则删除该行,其余则替换掉源内容
+	 * @return 写出的行数
+	 * @throws IOException 读写失败,此时文件保持原样
+	 */
+	public long rewrite(Path file, Function<String, String> filter) throws IOException {
+		return rewrite(file, file, filter);
+	}
+
+	/**
+	 * 改写文件并另存,行之间以换行符分隔,最后一行后不加换行符
+	 * @param source 源文件
+	 * @param target 目标文件,父目录不存在时会创建
+	 * @param filter 参数为当前行内容,结果返回null则删除该行,其余则替换掉源内容
+	 * @return 写出的行数
+	 * @throws IOException 读写失败,此时目标文件保持原样
+	 */
+	public long rewrite(Path source, Path target, Function<String, String> filter) throws IOException {
+		Path dir = target.toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+		Path temp = Files.createTempFile(dir, "."+target.getFileName(), ".tmp");
+		try {
+			long count;
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(source), readCharset), bufferSize);
+					FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				Writer writer = new BufferedWriter(Channels.newWriter(channel, writeCharset.newEncoder(), -1), bufferSize);
+				count = parallelism > 1 ? rewriteParallel(reader, writer, filter) : rewrite(reader, writer, filter);
+				writer.flush();
+				if(sync) {
+					channel.force(true);
+				}
+			}
+			copyPermissions(Files.exists(target) ? target : source, temp);
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return count;
+		} catch (IOException | RuntimeException | Error ex) {
+			Files.deleteIfExists(temp);
+			throw ex;
+		}
+	}
+
+	private long rewrite(BufferedReader reader, Writer writer, Function<String, String> filter) throws IOException {
+		long count = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String result = filter.apply(line);
+			if(result != null) {
+				if(count++ > 0) {
+					writer.write(lineSeparator);
+				}
+				writer.write(result);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 按块提交给线程池,按提交顺序写出;最多同时有parallelism*2块在内存中
+	 */
+	private long rewriteParallel(BufferedReader reader, Writer writer, Function<String, String> filter) throws IOException {
+		AtomicInteger index = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread t = new Thread(r, "LineRewriter-"+index.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		ArrayDeque<Future<List<String>>> pending = new ArrayDeque<>();
+		long count = 0;
+		try {
+			boolean end = false;
+			while (!end || !pending.isEmpty()) {
+				if(!end) {
+					List<String> block = new ArrayList<>(blockLines);
+					String line;
+					while (block.size() < blockLines && (line = reader.readLine()) != null) {
+						block.add(line);
+					}
+					end = block.size() < blockLines;
+					if(!block.isEmpty()) {
+						pending.add(executor.submit(() -> {
+							List<String> results = new ArrayList<>(block.size());
+							for (String item : block) {
+								String result = filter.apply(item);
+								if(result != null) {
+									results.add(result);
+								}
+							}
+							return results;
+						}));
+					}
+				}
+				if(!pending.isEmpty() && (end || pending.size() >= parallelism * 2)) {
+					for (String result : await(pending.poll())) {
+						if(count++ > 0) {
+							writer.write(lineSeparator);
+						}
+						writer.write(result);
+					}
+				}
+			}
+			return count;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static List<String> await(Future<List<String>> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("改写文件被中断");
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if(cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * 让临时文件继承原文件的posix权限,非posix文件系统忽略
+	 */
+	private static void copyPermissions(Path from, Path to) throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+		if(view != null) {
+			Files.setPosixFilePermissions(to, view.readAttributes().permissions());
+		}
+	}
+}
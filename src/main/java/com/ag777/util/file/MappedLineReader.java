@@ -0,0 +1,272 @@
+package com.ag777.util.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于内存映射的大文件按行读取
+ * <p>
+ * 文件按1G一段通过FileChannel.map映射,直接在映射的字节上查找换行符,不经过BufferedReader,也不把整个文件读入堆中。
+ * lines()返回的流可以调用parallel(),按字节区间(在换行处切开)拆分到多个线程。
+ * 设置filter后,只有包含指定字节序列的行才会被解码成字符串,适合在大日志中检索少量行。
+ * </p>
+ * <p>
+ * 只支持换行符为单字节\n的字符集(UTF-8、GBK、ISO-8859-1等),行尾的\r会被去掉。
+ * </p>
+ * <pre>{@code
+ *  try (Stream<String> lines = MappedLineReader.lines(path, StandardCharsets.UTF_8, "ERROR")) {
+ *      long count = lines.parallel().filter(line -> line.contains("timeout")).count();
+ *  }
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 11:55
+ */
+public class MappedLineReader implements Closeable {
+
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;	//每段映射的大小
+	private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+	private static final long MIN_SPLIT = 1 << 20;	//小于1M的区间不再拆分
+
+	private final Charset charset;
+	private final long size;
+	private volatile MappedByteBuffer[] segments;
+	private byte[] needle;	//预过滤的字节序列
+
+	private MappedLineReader(Path path, Charset charset) throws IOException {
+		if(!Arrays.equals("\n".getBytes(charset), new byte[]{'\n'})) {
+			throw new IllegalArgumentException("不支持的字符集:"+charset+",换行符必须为单字节");
+		}
+		this.charset = charset;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {	//映射建立后关闭通道不影响读取
+			size = channel.size();
+			int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+			MappedByteBuffer[] segments = new MappedByteBuffer[count];
+			for (int i = 0; i < count; i++) {
+				long position = (long) i << SEGMENT_SHIFT;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+			}
+			this.segments = segments;
+		}
+	}
+
+	/**
+	 * @param path 文件路径
+	 * @param charset 字符集
+	 * @return MappedLineReader
+	 * @throws IOException 文件不存在或映射失败
+	 */
+	public static MappedLineReader open(Path path, Charset charset) throws IOException {
+		return new MappedLineReader(path, charset);
+	}
+
+	/**
+	 * 获取文件所有行的流,流关闭时关闭reader(映射的释放见{@link #close()})
+	 * @param path 文件路径
+	 * @param charset 字符集
+	 * @return 行流
+	 * @throws IOException 文件不存在或映射失败
+	 */
+	public static Stream<String> lines(Path path, Charset charset) throws IOException {
+		return lines(path, charset, null);
+	}
+
+	/**
+	 * 获取文件中包含literal的行的流,流关闭时关闭reader(映射的释放见{@link #close()})
+	 * @param path 文件路径
+	 * @param charset 字符集
+	 * @param literal 行中必须包含的字符串,按字节匹配,为null时不过滤
+	 * @return 行流
+	 * @throws IOException 文件不存在或映射失败
+	 */
+	public static Stream<String> lines(Path path, Charset charset, String literal) throws IOException {
+		MappedLineReader reader = open(path, charset).filter(literal);
+		return reader.lines().onClose(reader::close);
+	}
+
+	/**
+	 * 设置预过滤条件,不包含literal的行不会被解码
+	 * @param literal 字符串,为null或空时不过滤
+	 * @return MappedLineReader
+	 */
+	public MappedLineReader filter(String literal) {
+		needle = literal == null || literal.isEmpty() ? null : literal.getBytes(charset);
+		return this;
+	}
+
+	/**
+	 * @return 文件大小
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return 行流,可以调用parallel()并行处理,reader关闭后继续读取会抛出IllegalStateException
+	 */
+	public Stream<String> lines() {
+		return StreamSupport.stream(new LineSpliterator(0, size), false);
+	}
+
+	/**
+	 * 关闭reader,之后不能再读取
+	 * <p>
+	 * 这里只是放弃对映射的引用,映射的内存在缓冲区被垃圾回收时才真正释放,在此之前windows下文件仍被占用(无法删除或重命名)
+	 * </p>
+	 */
+	@Override
+	public void close() {
+		segments = null;
+	}
+
+	private MappedByteBuffer[] segments() {
+		MappedByteBuffer[] segments = this.segments;
+		if(segments == null) {
+			throw new IllegalStateException("MappedLineReader已关闭");
+		}
+		return segments;
+	}
+
+	/**
+	 * 按字节区间读取行,区间的起点总是行首
+	 */
+	private final class LineSpliterator implements Spliterator<String> {
+		private final MappedByteBuffer[] segments = segments();
+		private long pos;
+		private final long end;
+
+		LineSpliterator(long pos, long end) {
+			this.pos = pos;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super String> action) {
+			checkOpen();
+			while (pos < end) {
+				long lineStart = pos;
+				long lineEnd = indexOfNewLine(pos, end);
+				pos = lineEnd + 1;
+				if(lineEnd > lineStart && byteAt(lineEnd - 1) == '\r') {
+					lineEnd--;
+				}
+				if(needle == null || contains(lineStart, lineEnd)) {
+					action.accept(decode(lineStart, lineEnd));
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * 从区间中点之后的第一个换行处切开,返回前半段以保持顺序
+		 */
+		@Override
+		public Spliterator<String> trySplit() {
+			checkOpen();
+			if(end - pos < MIN_SPLIT) {
+				return null;
+			}
+			long newLine = indexOfNewLine(pos + (end - pos) / 2, end);
+			if(newLine >= end - 1) {
+				return null;
+			}
+			LineSpliterator prefix = new LineSpliterator(pos, newLine + 1);
+			pos = newLine + 1;
+			return prefix;
+		}
+
+		/**
+		 * @return 剩余字节数,行数未知
+		 */
+		@Override
+		public long estimateSize() {
+			return end - pos;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL | IMMUTABLE;
+		}
+
+		private void checkOpen() {
+			if(MappedLineReader.this.segments == null) {
+				throw new IllegalStateException("MappedLineReader已关闭");
+			}
+		}
+
+		private byte byteAt(long position) {
+			return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+		}
+
+		/**
+		 * @return [from, to)中第一个\n的位置,没有则返回to
+		 */
+		private long indexOfNewLine(long from, long to) {
+			while (from < to) {
+				MappedByteBuffer segment = segments[(int) (from >>> SEGMENT_SHIFT)];
+				int offset = (int) (from & SEGMENT_MASK);
+				int limit = (int) Math.min(segment.limit(), offset + (to - from));
+				for (int i = offset; i < limit; i++) {
+					if(segment.get(i) == '\n') {
+						return from + (i - offset);
+					}
+				}
+				from += limit - offset;
+			}
+			return to;
+		}
+
+		private boolean contains(long from, long to) {
+			byte first = needle[0];
+			long last = to - needle.length;
+			outer:
+			for (long p = from; p <= last; p++) {
+				if(byteAt(p) != first) {
+					continue;
+				}
+				for (int j = 1; j < needle.length; j++) {
+					if(byteAt(p + j) != needle[j]) {
+						continue outer;
+					}
+				}
+				return true;
+			}
+			return false;
+		}
+
+		private String decode(long from, long to) {
+			long length = to - from;
+			if(length == 0) {
+				return "";
+			}
+			if(length > Integer.MAX_VALUE) {
+				throw new IllegalStateException("单行过长:"+length);
+			}
+			byte[] bytes = new byte[(int) length];
+			int index = (int) (from >>> SEGMENT_SHIFT);
+			if(index == (int) ((to - 1) >>> SEGMENT_SHIFT)) {	//行在同一段内,批量复制
+				ByteBuffer buffer = segments[index].duplicate();
+				buffer.position((int) (from & SEGMENT_MASK));
+				buffer.get(bytes);
+			} else {	//跨段
+				for (int i = 0; i < bytes.length; i++) {
+					bytes[i] = byteAt(from + i);
+				}
+			}
+			return new String(bytes, charset);
+		}
+	}
+}
@@ -0,0 +1,417 @@
+package com.ag777.util.file;
+
+import com.ag777.util.file.model.RegexMatch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.*;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 流式正则检索(类似grep)
+ * <p>
+ * 在通道上解码出一个字符窗口进行匹配,窗口滑动推进,内存占用与文件大小无关;
+ * 匹配可以跨行(如使用DOTALL的多行模式),跨窗口边界的匹配通过Matcher.hitEnd()识别并在读入更多内容后重新匹配。
+ * 每个匹配带有字节偏移和行号,可以通过回调或Stream获取,多个文件可以并行检索。
+ * </p>
+ * <p>
+ * 限制:窗口推进时只保留末尾maxMatchLength个字符用于跨边界匹配,长于该值的匹配可能被漏掉;
+ * 后行断言最多能看到匹配开始前16个字符。字节偏移在输入存在非法字节时不准确。
+ * </p>
+ * <pre>{@code
+ *  RegexScanner scanner = new RegexScanner(Pattern.compile("ERROR.*?\\n\\tat .*", Pattern.DOTALL))
+ *          .charset(StandardCharsets.UTF_8);
+ *  scanner.scan(Paths.get("app.log"), match -> System.out.println(match.getLineNumber()+": "+match.getText()));
+ *  long total = scanner.scan(logFiles, match -> {});	//多个文件并行
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 20:40
+ */
+public class RegexScanner {
+
+	private static final int LOOKBEHIND_CONTEXT = 16;	//窗口推进时在匹配起点前额外保留的字符数
+
+	private final Pattern pattern;
+	private Charset charset = StandardCharsets.UTF_8;
+	private int windowSize = 64 << 10;
+	private int maxMatchLength = 4096;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	public RegexScanner(Pattern pattern) {
+		this.pattern = pattern;
+	}
+
+	public RegexScanner(String regex) {
+		this(Pattern.compile(regex));
+	}
+
+	public RegexScanner charset(Charset charset) {
+		this.charset = charset;
+		return this;
+	}
+
+	/**
+	 * @param windowSize 字符窗口的初始大小,默认64K
+	 * @return RegexScanner
+	 */
+	public RegexScanner windowSize(int windowSize) {
+		if(windowSize <= 0) {
+			throw new IllegalArgumentException("窗口大小必须大于0");
+		}
+		this.windowSize = windowSize;
+		return this;
+	}
+
+	/**
+	 * @param maxMatchLength 单个匹配的最大长度(字符),用于跨窗口匹配,默认4096;窗口会按需扩大到能容纳该长度
+	 * @return RegexScanner
+	 */
+	public RegexScanner maxMatchLength(int maxMatchLength) {
+		if(maxMatchLength <= 0) {
+			throw new IllegalArgumentException("最大匹配长度必须大于0");
+		}
+		this.maxMatchLength = maxMatchLength;
+		return this;
+	}
+
+	/**
+	 * @param parallelism 检索多个文件时的并发数,默认为cpu核数
+	 * @return RegexScanner
+	 */
+	public RegexScanner parallelism(int parallelism) {
+		if(parallelism <= 0) {
+			throw new IllegalArgumentException("并发数必须大于0");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * 检索通道(不关闭通道)
+	 * @param channel 通道
+	 * @param consumer 匹配回调
+	 * @return 匹配数
+	 * @throws IOException 读取失败
+	 */
+	public long scan(ReadableByteChannel channel, Consumer<RegexMatch> consumer) throws IOException {
+		return scan(new MatchIterator(channel, null), consumer);
+	}
+
+	/**
+	 * 检索文件
+	 * @param file 文件
+	 * @param consumer 匹配回调
+	 * @return 匹配数
+	 * @throws IOException 读取失败
+	 */
+	public long scan(Path file, Consumer<RegexMatch> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return scan(new MatchIterator(channel, file), consumer);
+		}
+	}
+
+	/**
+	 * 并行检索多个文件,每个文件内的匹配按顺序回调,不同文件之间的回调可能并发
+	 * <p>
+	 * 某个文件读取失败不影响其它文件,全部结束后抛出第一个异常(其它异常作为suppressed)
+	 * </p>
+	 * @param files 文件列表
+	 * @param consumer 匹配回调,需要线程安全
+	 * @return 匹配总数
+	 * @throws IOException 有文件读取失败
+	 */
+	public long scan(Collection<Path> files, Consumer<RegexMatch> consumer) throws IOException {
+		LongAdder count = new LongAdder();
+		Queue<IOException> errors = new java.util.concurrent.ConcurrentLinkedQueue<>();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.submit(() -> files.parallelStream().forEach(file -> {
+				try {
+					count.add(scan(file, consumer));
+				} catch (IOException ex) {
+					errors.add(new IOException("检索文件["+file+"]失败", ex));
+				}
+			})).get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("检索被中断", ex);
+		} catch (ExecutionException ex) {
+			throw new IOException(ex.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		IOException first = errors.poll();
+		if(first != null) {
+			errors.forEach(first::addSuppressed);
+			throw first;
+		}
+		return count.sum();
+	}
+
+	/**
+	 * 以流的形式检索文件,流关闭时关闭文件
+	 * <p>
+	 * 流是惰性的,只读取到消费的位置,可以配合limit/findFirst提前结束
+	 * </p>
+	 * @param file 文件
+	 * @return 匹配流,读取失败时抛出UncheckedIOException
+	 * @throws IOException 打开文件失败
+	 */
+	public Stream<RegexMatch> stream(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		MatchIterator itr = new MatchIterator(channel, file);
+		Iterator<RegexMatch> unchecked = new Iterator<RegexMatch>() {
+			@Override
+			public boolean hasNext() {
+				try {
+					return itr.hasNextMatch();
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}
+
+			@Override
+			public RegexMatch next() {
+				if(!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return itr.nextMatch();
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(unchecked, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(itr::close)
+				.onClose(() -> {
+					try {
+						channel.close();
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+	}
+
+	private static long scan(MatchIterator itr, Consumer<RegexMatch> consumer) throws IOException {
+		long count = 0;
+		while (itr.hasNextMatch()) {
+			consumer.accept(itr.nextMatch());
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * 在通道上逐个拉取匹配
+	 */
+	private final class MatchIterator implements Closeable {
+		private final ReadableByteChannel channel;
+		private final Path source;
+		private final CharsetDecoder decoder;
+		private final CharsetEncoder encoder;
+		private final boolean utf8;
+		private final ByteBuffer bytes;
+		private char[] chars;
+		private int len;				//窗口中的有效字符数
+		private boolean inputDone;		//通道已读完
+		private boolean eof;			//通道已读完且全部字符已解码
+
+		private Matcher matcher;		//为null代表窗口变化后需要重建
+		private int searchFrom;			//下次匹配开始的位置(窗口内下标)
+		private long lastEmptyMatch = -1;	//上一个空匹配的绝对字符位置,避免窗口推进后重复返回
+
+		/*窗口内偏移到绝对偏移的换算:cursor之前的字符已统计过字节数和行数*/
+		private int cursor;
+		private long cursorChar;
+		private long cursorByte;
+		private long cursorLine = 1;
+
+		private RegexMatch next;
+
+		MatchIterator(ReadableByteChannel channel, Path source) {
+			this.channel = channel;
+			this.source = source;
+			this.decoder = charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.encoder = charset.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.utf8 = StandardCharsets.UTF_8.equals(charset);
+			this.bytes = ByteBuffer.allocate(Math.max(windowSize, 8192));
+			this.chars = new char[Math.max(windowSize, maxMatchLength*2)];
+		}
+
+		boolean hasNextMatch() throws IOException {
+			if(next == null) {
+				next = advance();
+			}
+			return next != null;
+		}
+
+		RegexMatch nextMatch() {
+			RegexMatch m = next;
+			next = null;
+			return m;
+		}
+
+		private RegexMatch advance() throws IOException {
+			while (true) {
+				if(matcher == null) {
+					matcher = pattern.matcher(CharBuffer.wrap(chars, 0, len))
+							.useTransparentBounds(true)
+							.useAnchoringBounds(false);
+					matcher.region(searchFrom, len);
+				}
+				int needFrom;
+				if(matcher.find()) {
+					int start = matcher.start();
+					int end = matcher.end();
+					boolean partial = !eof && matcher.hitEnd();
+					if(!partial || (len == chars.length && len - start > chars.length / 2 && !canGrow())) {	//匹配已确定(或窗口已无法扩大)
+						if(start == end && cursorChar + (start - cursor) == lastEmptyMatch) {
+							continue;
+						}
+						searchFrom = end;
+						return toMatch(start, end);
+					}
+					needFrom = start;	//匹配可能随后续内容变长,读入更多后从这里重新匹配
+				} else {
+					if(eof) {
+						return null;
+					}
+					needFrom = matcher.hitEnd() ? Math.max(searchFrom, len - maxMatchLength) : len;
+				}
+				slide(needFrom);
+				fill();
+			}
+		}
+
+		private boolean canGrow() {
+			return chars.length < Math.max(windowSize, maxMatchLength) * 4;
+		}
+
+		/**
+		 * 丢弃窗口中needFrom之前的字符(保留少量上下文),窗口放不下时扩大
+		 */
+		private void slide(int needFrom) {
+			int keepFrom = Math.max(needFrom - LOOKBEHIND_CONTEXT, 0);
+			if(keepFrom > 0) {
+				moveCursor(keepFrom);
+				System.arraycopy(chars, keepFrom, chars, 0, len - keepFrom);
+				len -= keepFrom;
+				cursor -= keepFrom;
+			}
+			if(len > chars.length / 2 && canGrow()) {	//保留的内容超过窗口一半时扩大,避免每次只推进几个字符
+				chars = Arrays.copyOf(chars, chars.length * 2);
+			}
+			searchFrom = needFrom - keepFrom;
+			matcher = null;
+		}
+
+		/**
+		 * 从通道读取并解码,直到窗口填满或输入结束
+		 */
+		private void fill() throws IOException {
+			CharBuffer out = CharBuffer.wrap(chars, len, chars.length - len);
+			while (out.hasRemaining() && !eof) {
+				if(!inputDone && bytes.hasRemaining() && channel.read(bytes) < 0) {
+					inputDone = true;
+				}
+				bytes.flip();
+				CoderResult result = decoder.decode(bytes, out, inputDone);
+				bytes.compact();
+				if(result.isOverflow()) {
+					break;
+				}
+				if(inputDone) {
+					if(decoder.flush(out).isOverflow()) {
+						break;
+					}
+					eof = true;
+				}
+			}
+			len = out.position();
+		}
+
+		private RegexMatch toMatch(int start, int end) {
+			moveCursor(start);
+			long byteOffset = cursorByte;
+			long byteEnd = byteOffset + byteLength(start, end);
+			if(start == end) {
+				lastEmptyMatch = cursorChar;
+			}
+			String[] groups = new String[matcher.groupCount() + 1];
+			for (int i = 0; i < groups.length; i++) {
+				groups[i] = matcher.group(i);
+			}
+			return new RegexMatch(source, byteOffset, byteEnd, cursorChar, cursorLine, groups);
+		}
+
+		/**
+		 * 将统计位置推进到窗口下标to
+		 */
+		private void moveCursor(int to) {
+			if(to <= cursor) {
+				return;
+			}
+			for (int i = cursor; i < to; i++) {
+				if(chars[i] == '\n') {
+					cursorLine++;
+				}
+			}
+			cursorByte += byteLength(cursor, to);
+			cursorChar += to - cursor;
+			cursor = to;
+		}
+
+		private long byteLength(int from, int to) {
+			if(from >= to) {
+				return 0;
+			}
+			if(utf8) {
+				long count = 0;
+				for (int i = from; i < to; i++) {
+					char c = chars[i];
+					if(c < 0x80) {
+						count++;
+					} else if(c < 0x800) {
+						count += 2;
+					} else if(Character.isSurrogate(c)) {	//代理对按4字节计,高低位各算2,窗口边界落在代理对中间时也能算对
+						count += 2;
+					} else {
+						count += 3;
+					}
+				}
+				return count;
+			}
+			if(encoder.maxBytesPerChar() == 1) {
+				return to - from;
+			}
+			try {
+				return encoder.reset().encode(CharBuffer.wrap(chars, from, to - from)).remaining();
+			} catch (CharacterCodingException ex) {
+				return to - from;
+			}
+		}
+
+		@Override
+		public void close() {
+			chars = null;
+			matcher = null;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.ag777.util.file.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 两次文件索引之间的差异
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 22:00
+ */
+public class FileIndexDiff {
+
+	private final List<FileIndexEntry> added;
+	private final List<FileIndexEntry> modified;	//当前的记录
+	private final List<FileIndexEntry> removed;		//之前的记录
+
+	public FileIndexDiff(List<FileIndexEntry> added, List<FileIndexEntry> modified, List<FileIndexEntry> removed) {
+		this.added = Collections.unmodifiableList(added);
+		this.modified = Collections.unmodifiableList(modified);
+		this.removed = Collections.unmodifiableList(removed);
+	}
+
+	public List<FileIndexEntry> getAdded() {
+		return added;
+	}
+	public List<FileIndexEntry> getModified() {
+		return modified;
+	}
+	public List<FileIndexEntry> getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * @return 是否没有任何变化
+	 */
+	public boolean isEmpty() {
+		return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+	}
+
+	/**
+	 * @return 变化的文件总数
+	 */
+	public int size() {
+		return added.size() + modified.size() + removed.size();
+	}
+
+	@Override
+	public String toString() {
+		return "FileIndexDiff{" +
+				"added=" + added.size() +
+				", modified=" + modified.size() +
+				", removed=" + removed.size() +
+				'}';
+	}
+}
@@ -0,0 +1,50 @@
+package com.ag777.util.file.model;
+
+import java.util.Objects;
+
+/**
+ * 文件索引中的单个文件
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 22:00
+ */
+public class FileIndexEntry {
+
+	private final String path;		//相对索引根目录的路径,以/分隔
+	private final long size;
+	private final long lastModified;
+	private final String hash;		//未配置摘要计算时为null
+
+	public FileIndexEntry(String path, long size, long lastModified, String hash) {
+		this.path = path;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.hash = hash;
+	}
+
+	public String getPath() {
+		return path;
+	}
+	public long getSize() {
+		return size;
+	}
+	public long getLastModified() {
+		return lastModified;
+	}
+	public String getHash() {
+		return hash;
+	}
+
+	/**
+	 * @param other 另一条记录
+	 * @return 大小、修改时间和摘要是否都相同
+	 */
+	public boolean sameContent(FileIndexEntry other) {
+		return size == other.size && lastModified == other.lastModified && Objects.equals(hash, other.hash);
+	}
+
+	@Override
+	public String toString() {
+		return path + "(" + size + "," + lastModified + (hash == null ? "" : "," + hash) + ")";
+	}
+}
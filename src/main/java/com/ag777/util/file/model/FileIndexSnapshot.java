@@ -0,0 +1,32 @@
+package com.ag777.util.file.model;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 文件索引在某一时刻的快照(只读),用于与之后的索引做比较
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 22:00
+ */
+public class FileIndexSnapshot {
+
+	private final long time;
+	private final Map<String, FileIndexEntry> files;	//{相对路径: 文件}
+
+	public FileIndexSnapshot(long time, Map<String, FileIndexEntry> files) {
+		this.time = time;
+		this.files = Collections.unmodifiableMap(files);
+	}
+
+	public long getTime() {
+		return time;
+	}
+	public Map<String, FileIndexEntry> getFiles() {
+		return files;
+	}
+
+	public int size() {
+		return files.size();
+	}
+}
@@ -0,0 +1,115 @@
+package com.ag777.util.file.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 目录树操作(复制/移动/删除/校验)的结果
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 19:30
+ */
+public class FileTreeResult {
+
+	private final long files;		//处理成功的文件数
+	private final long dirs;		//处理成功的目录数
+	private final long bytes;		//处理的文件总字节数
+	private final long skipped;		//跳过的文件数(如目标已存在且不覆盖)
+	private final long costMillis;
+	private final List<Failure> failures;
+	private final Map<String, String> checksums;	//{相对路径: 摘要},只有校验操作不为null
+
+	public FileTreeResult(long files, long dirs, long bytes, long skipped, long costMillis, List<Failure> failures, Map<String, String> checksums) {
+		this.files = files;
+		this.dirs = dirs;
+		this.bytes = bytes;
+		this.skipped = skipped;
+		this.costMillis = costMillis;
+		this.failures = Collections.unmodifiableList(failures);
+		this.checksums = checksums;
+	}
+
+	public long getFiles() {
+		return files;
+	}
+	public long getDirs() {
+		return dirs;
+	}
+	public long getBytes() {
+		return bytes;
+	}
+	public long getSkipped() {
+		return skipped;
+	}
+	public long getCostMillis() {
+		return costMillis;
+	}
+	public List<Failure> getFailures() {
+		return failures;
+	}
+	public Map<String, String> getChecksums() {
+		return checksums;
+	}
+
+	/**
+	 * @return 是否全部成功
+	 */
+	public boolean isSuccess() {
+		return failures.isEmpty();
+	}
+
+	/**
+	 * @return 吞吐量(文件/秒)
+	 */
+	public double getFilesPerSecond() {
+		return costMillis == 0 ? files : files * 1000.0 / costMillis;
+	}
+
+	/**
+	 * @return 吞吐量(字节/秒)
+	 */
+	public double getBytesPerSecond() {
+		return costMillis == 0 ? bytes : bytes * 1000.0 / costMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "FileTreeResult{" +
+				"files=" + files +
+				", dirs=" + dirs +
+				", bytes=" + bytes +
+				", skipped=" + skipped +
+				", failures=" + failures.size() +
+				", costMillis=" + costMillis +
+				", filesPerSecond=" + String.format("%.1f", getFilesPerSecond()) +
+				'}';
+	}
+
+	/**
+	 * 单个文件/目录的失败信息
+	 */
+	public static class Failure {
+		private final Path path;
+		private final IOException exception;
+
+		public Failure(Path path, IOException exception) {
+			this.path = path;
+			this.exception = exception;
+		}
+
+		public Path getPath() {
+			return path;
+		}
+		public IOException getException() {
+			return exception;
+		}
+
+		@Override
+		public String toString() {
+			return path + ": " + exception;
+		}
+	}
+}
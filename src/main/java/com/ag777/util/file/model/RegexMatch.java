@@ -0,0 +1,68 @@
+package com.ag777.util.file.model;
+
+import java.nio.file.Path;
+
+/**
+ * 流式正则检索的单个匹配结果
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 20:40
+ */
+public class RegexMatch {
+
+	private final Path source;		//来源文件,检索通道时为null
+	private final long byteOffset;	//匹配开始处的字节偏移
+	private final long byteEnd;		//匹配结束处的字节偏移(不包含)
+	private final long charOffset;	//匹配开始处的字符偏移
+	private final long lineNumber;	//匹配开始处的行号,从1开始
+	private final String[] groups;	//groups[0]为整个匹配,之后为各个分组,未参与匹配的分组为null
+
+	public RegexMatch(Path source, long byteOffset, long byteEnd, long charOffset, long lineNumber, String[] groups) {
+		this.source = source;
+		this.byteOffset = byteOffset;
+		this.byteEnd = byteEnd;
+		this.charOffset = charOffset;
+		this.lineNumber = lineNumber;
+		this.groups = groups;
+	}
+
+	public Path getSource() {
+		return source;
+	}
+	public long getByteOffset() {
+		return byteOffset;
+	}
+	public long getByteEnd() {
+		return byteEnd;
+	}
+	public long getCharOffset() {
+		return charOffset;
+	}
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * @return 匹配的文本
+	 */
+	public String getText() {
+		return groups[0];
+	}
+
+	/**
+	 * @param group 分组下标,0为整个匹配
+	 * @return 分组内容
+	 */
+	public String group(int group) {
+		return groups[group];
+	}
+
+	public int groupCount() {
+		return groups.length - 1;
+	}
+
+	@Override
+	public String toString() {
+		return (source == null ? "" : source + ":") + lineNumber + ":" + byteOffset + ":" + groups[0];
+	}
+}
@@ -9,14 +9,21 @@ import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * gson统一管理类，全局保持一个gson对象
@@ -28,7 +35,7 @@ import java.util.function.Consumer;
  * GSON更新日志:<a href="https://github.com/google/gson/blob/master/CHANGELOG.md">...</a>
  *
  * @author ag777
- * @version create on 2017年05月27日,last modify at 2024年11月23日
+ * @version create on 2017年05月27日,last modify at 2026年10月18日
  */
 public class GsonUtils implements JsonUtilsInterf {
 	
@@ -597,6 +604,126 @@ public class GsonUtils implements JsonUtilsInterf {
 		}
 	}
 
+	/**
+	 * 从字符流直接解析json(不关闭流),不经过中间字符串
+	 * @param reader reader
+	 * @param type type
+	 * @return 对象,内容为空时为null
+	 * @throws JsonSyntaxException 读取失败(cause为IOException)或json解析异常
+	 */
+	@Override
+	public <T> T fromJsonWithException(Reader reader, Type type) throws JsonSyntaxException {
+		try {
+			return gson().fromJson(reader, type);
+		} catch(JsonIOException ex) {
+			throw new JsonSyntaxException(ex.getCause() instanceof IOException ? ex.getCause() : ex);
+		} catch(Exception ex) {
+			throw new JsonSyntaxException(ex);
+		}
+	}
+
+	/**
+	 * 流式解析顶层json数组,每解析出一个元素就回调一次,内存中只保留当前元素(不关闭流)
+	 * <p>
+	 * 回调中抛出的异常原样抛出
+	 * </p>
+	 * @param reader reader
+	 * @param elementType 元素类型
+	 * @param consumer 元素回调
+	 * @throws JsonSyntaxException 读取失败、json解析异常或顶层不是数组
+	 */
+	@Override
+	public <T> void forEachInArray(Reader reader, Type elementType, Consumer<T> consumer) throws JsonSyntaxException {
+		ArrayReader<T> arrayReader = new ArrayReader<>(reader, elementType);
+		T item;
+		while ((item = arrayReader.next()) != null || !arrayReader.end) {
+			consumer.accept(item);
+		}
+	}
+
+	/**
+	 * 将顶层json数组转为按需解析的元素流(不关闭reader,需要时通过onClose关闭)
+	 * <p>
+	 * 遍历过程中的读取异常以UncheckedIOException抛出,解析异常以com.google.gson.JsonParseException抛出
+	 * </p>
+	 * @param reader reader
+	 * @param elementType 元素类型
+	 * @return 元素流
+	 * @throws JsonSyntaxException 读取失败、json解析异常或顶层不是数组
+	 */
+	@Override
+	public <T> Stream<T> streamArray(Reader reader, Type elementType) throws JsonSyntaxException {
+		ArrayReader<T> arrayReader = new ArrayReader<>(reader, elementType);
+		Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				T item;
+				try {
+					item = arrayReader.next();
+				} catch (JsonSyntaxException ex) {
+					Throwable cause = ex.getCause();
+					if(cause instanceof MalformedJsonException) {
+						throw new com.google.gson.JsonSyntaxException(cause);
+					}
+					if(cause instanceof IOException) {
+						throw new UncheckedIOException((IOException) cause);
+					}
+					throw cause instanceof JsonParseException ? (JsonParseException) cause : new JsonParseException(ex);
+				}
+				if(arrayReader.end) {
+					return false;
+				}
+				action.accept(item);
+				return true;
+			}
+		};
+		return StreamSupport.stream(spliterator, false);
+	}
+
+	/**
+	 * 逐个读取顶层数组元素,构造时读取数组开头
+	 */
+	private class ArrayReader<T> {
+		private final JsonReader in;
+		private final TypeAdapter<T> adapter;
+		private boolean end;
+
+		@SuppressWarnings("unchecked")
+		ArrayReader(Reader reader, Type elementType) throws JsonSyntaxException {
+			try {
+				in = gson().newJsonReader(reader);
+				adapter = (TypeAdapter<T>) gson().getAdapter(TypeToken.get(elementType));
+				in.beginArray();
+			} catch (Exception ex) {
+				throw new JsonSyntaxException(ex);
+			}
+		}
+
+		/**
+		 * @return 下一个元素(可能为null),读完后end为true
+		 */
+		T next() throws JsonSyntaxException {
+			if(end) {
+				return null;
+			}
+			try {
+				if(in.hasNext()) {
+					return adapter.read(in);
+				}
+				in.endArray();
+				if(in.peek() != JsonToken.END_DOCUMENT) {
+					throw new JsonSyntaxException("json数组后存在多余内容");
+				}
+				end = true;
+				return null;
+			} catch (JsonSyntaxException ex) {
+				throw ex;
+			} catch (Exception ex) {
+				throw new JsonSyntaxException(ex);
+			}
+		}
+	}
+
 	/*=================辅助类============*/
 	/**
 	 * 重载json转换类,主要目的是为了防止转为map时double型变量错误地转换为long型变量
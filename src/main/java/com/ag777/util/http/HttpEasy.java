@@ -1,12 +1,14 @@
 package com.ag777.util.http;
 
 import com.ag777.util.http.model.ProgressResponseBody;
+import com.ag777.util.lang.TransferHelper;
+import com.ag777.util.lang.exception.model.JsonSyntaxException;
 import okhttp3.Call;
-import okhttp3.OkHttpClient;
 import okhttp3.Response;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
 import java.util.Optional;
@@ -18,7 +20,7 @@ import java.util.Optional;
  * </p>
  * 
  * @author ag777
- * @version create on 2018年03月30日,last modify at 2024年12月05日
+ * @version create on 2018年03月30日,last modify at 2026年10月18日
  */
 public class HttpEasy {
 	
@@ -61,6 +63,27 @@ public class HttpEasy {
 		return callForMapForce(call);
 	}
 	
+	/**
+	 * 发送带缓存的get请求获取map
+	 * <p>
+	 * 	只有接口返回2xx(或304)时才有返回;缓存新鲜时不发请求,过期后发送条件请求,详见HttpObjectCache
+	 * 返回的map是共享的,请不要修改
+	 * </p>
+	 *
+	 * @param url url
+	 * @param paramMap 放在请求头里的参数
+	 * @param headerMap 请求头
+	 * @return map
+	 * @throws IllegalArgumentException 一般为url异常，比如没有http(s):\\的前缀
+	 */
+	public static <K, V>Optional<Map<String, Object>> getForMapCached(String url, Map<K, V> paramMap, Map<K,V> headerMap) throws IllegalArgumentException  {
+		try {
+			return HttpHelper.getInstance().getForMapCached(url, paramMap, headerMap);
+		} catch(IOException | JsonSyntaxException ex) {
+			return Optional.empty();
+		}
+	}
+	
 	//===================POST请求===========================*/
 	
 	/**
@@ -417,8 +440,7 @@ public class HttpEasy {
 	 * @throws IllegalArgumentException 一般为url异常，比如没有http(s):\\的前缀
 	 */
 	public static <K, V>Optional<InputStream> downLoadForStream(String url, Map<K, V> paramMap, Map<K,V> headerMap, ProgressResponseBody.ProgressListener listener) throws IllegalArgumentException {
-		OkHttpClient client = HttpUtils.builderWithProgress(null, listener).build();
-		Call call = HttpUtils.getByClient(client, url, paramMap, headerMap, null);
+		Call call = HttpUtils.getWithProgress(null, url, paramMap, headerMap, null, listener);
 		return callForInputStream(call);
 	}
 	
@@ -438,11 +460,58 @@ public class HttpEasy {
 	 * @throws IllegalArgumentException 一般为url异常，比如没有http(s):\\的前缀
 	 */
 	public static <K, V>Optional<File> downLoad(String url, Map<K, V> paramMap, Map<K,V> headerMap, String targetPath, ProgressResponseBody.ProgressListener listener) throws IllegalArgumentException {
-		OkHttpClient client = HttpUtils.builderWithProgress(null, listener).build();
-		Call call = HttpUtils.getByClient(client, url, paramMap, headerMap, null);
+		Call call = HttpUtils.getWithProgress(null, url, paramMap, headerMap, null, listener);
 		return callForFile(call, targetPath);
 	}
 	
+	/**
+	 * get请求获取返回流并保存到指定路径(long计数、回调节流、限速及速度/剩余时间统计)
+	 * <p>
+	 * 	只有在接口返回200时获取返回流,总长度取自响应的Content-Length
+	 * </p>
+	 *
+	 * @param url url
+	 * @param paramMap 请求参数
+	 * @param headerMap 请求头
+	 * @param targetPath 本地用来存放文件的路径
+	 * @param helper 传输配置,如new TransferHelper().rateLimit(1 &lt;&lt; 20).onProgress(...)
+	 * @return 文件对象
+	 * @throws IllegalArgumentException 一般为url异常，比如没有http(s):\\的前缀
+	 */
+	public static <K, V>Optional<File> downLoad(String url, Map<K, V> paramMap, Map<K,V> headerMap, String targetPath, TransferHelper helper) throws IllegalArgumentException {
+		Call call = HttpUtils.getByClient(null, url, paramMap, headerMap, null);
+		try (Response response = HttpUtils.execute(call)) {
+			return HttpUtils.responseFile(response, targetPath, helper);
+		} catch(Exception ex) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * 分段并行下载到指定路径,支持断点续传
+	 * <p>
+	 * 服务端不支持Range时退化为单连接下载,更多配置(分段大小、重试、摘要校验等)见RangeDownloader
+	 * </p>
+	 *
+	 * @param url url
+	 * @param headerMap 请求头
+	 * @param targetPath 本地用来存放文件的路径
+	 * @param connections 并发连接数
+	 * @param listener 总进度监听
+	 * @return 文件对象,下载失败时返回Optional.empty(),已下载的部分会保留,再次调用时继续下载
+	 */
+	public static Optional<File> downLoadRanged(String url, Map<String, String> headerMap, String targetPath, int connections, ProgressResponseBody.ProgressListener listener) {
+		try {
+			return Optional.of(new RangeDownloader(url)
+					.headers(headerMap)
+					.connections(connections)
+					.listener(listener)
+					.download(targetPath));
+		} catch(Exception ex) {
+			return Optional.empty();
+		}
+	}
+
 	//===================内部方法===========================
 	/**
 	 * 从结果中强制获取字符串
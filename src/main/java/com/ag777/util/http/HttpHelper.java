@@ -1,12 +1,24 @@
 package com.ag777.util.http;
 
+import com.ag777.util.gson.model.TypeFactory;
+import com.ag777.util.http.model.BatchCall;
+import com.ag777.util.http.model.BatchResult;
+import com.ag777.util.http.model.HttpCacheStats;
+import com.ag777.util.http.model.HttpObjectCache;
 import com.ag777.util.http.model.MyCall;
 import com.ag777.util.http.model.ProgressResponseBody;
+import com.ag777.util.lang.exception.model.JsonSyntaxException;
 import okhttp3.*;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 有关http请求的方法类(二次封装okhttp3)
@@ -15,7 +27,7 @@ import java.util.Map;
  * </p>
  * 
  * @author ag777
- * @version create on 2018年03月30日,last modify at 2024年12月05日
+ * @version create on 2018年03月30日,last modify at 2026年10月18日
  */
 public class HttpHelper {
 	
@@ -34,6 +46,7 @@ public class HttpHelper {
 	
 	private final OkHttpClient client;
 	private final Object tag;
+	private final HttpObjectCache objectCache;
 	
 	/**
 	 * 构造函数
@@ -45,11 +58,25 @@ public class HttpHelper {
 	 * @param tag 请求的统一tag,用于请求分组管理,可以传null
 	 */
 	public HttpHelper(OkHttpClient client, Object tag) {
+		this(client, tag, null);
+	}
+
+	/**
+	 * 构造函数
+	 * @param client 默认为HttpUtils.client()
+	 * @param tag 请求的统一tag,用于请求分组管理,可以传null
+	 * @param objectCache getForXXXCached系列方法使用的对象缓存,默认为HttpObjectCache.shared()
+	 */
+	public HttpHelper(OkHttpClient client, Object tag, HttpObjectCache objectCache) {
 		if(client == null) {
 			client = HttpUtils.client();
 		}
+		if(objectCache == null) {
+			objectCache = HttpObjectCache.shared();
+		}
 		this.client = client;
 		this.tag = tag;
+		this.objectCache = objectCache;
 	}
 
 	/**
@@ -88,6 +115,99 @@ public class HttpHelper {
 		return new MyCall(call);
 	}
 
+	/**
+	 * 批量异步请求,返回各请求的响应字符串(非2xx记为失败)
+	 * @param requests 请求列表
+	 * @param concurrency 最大并发数
+	 * @return 所有请求结束后完成的future,结果与请求按下标对应
+	 * @see #batch(List, int, MyCall.ResponseHandler)
+	 */
+	public CompletableFuture<BatchResult<String>> batch(List<Request> requests, int concurrency) {
+		return batch(requests, concurrency, response -> HttpUtils.responseStr(response).orElse(null));
+	}
+
+	/**
+	 * 批量异步请求
+	 * <p>
+	 * 通过okhttp的异步线程池发送,不为每个在途请求占用线程;同时在途的请求不超过concurrency,按host轮流发送,
+	 * 单个请求的失败不影响其它请求,异常汇总在BatchResult.getErrors()中。
+	 * 没有tag的请求会加上当前HttpHelper的tag,可以通过cancelAll()取消
+	 * </p>
+	 * @param requests 请求列表
+	 * @param concurrency 最大并发数
+	 * @param handler 响应处理(在okhttp回调线程中执行,执行完后关闭响应)
+	 * @return 所有请求结束后完成的future,结果与请求按下标对应
+	 */
+	public <T> CompletableFuture<BatchResult<T>> batch(List<Request> requests, int concurrency, MyCall.ResponseHandler<T> handler) {
+		List<Request> list = requests;
+		if(tag != null) {
+			list = new ArrayList<>(requests.size());
+			for (Request request : requests) {
+				list.add(request.tag() == null ? request.newBuilder().tag(tag).build() : request);
+			}
+		}
+		return new BatchCall<>(client, list, concurrency, handler).start();
+	}
+
+	/*===================缓存===========================*/
+
+	/**
+	 * 返回使用指定对象缓存的HttpHelper(client和tag不变)
+	 * @param objectCache 对象缓存
+	 * @return 新的HttpHelper
+	 */
+	public HttpHelper objectCache(HttpObjectCache objectCache) {
+		return new HttpHelper(client, tag, objectCache);
+	}
+
+	/**
+	 * 带缓存的get请求,返回解析后的对象
+	 * <p>
+	 * 缓存新鲜时不发请求;过期后通过ETag/Last-Modified发送条件请求,304时沿用缓存的对象,详见HttpObjectCache。
+	 * 只有response.isSuccessful()时才有返回,否则抛出异常;返回的对象是共享的,请不要修改
+	 * </p>
+	 * @param url url
+	 * @param paramMap paramMap
+	 * @param headerMap headerMap
+	 * @param type 目标类型
+	 * @return 解析后的对象
+	 * @throws IOException 请求失败或非2xx
+	 * @throws JsonSyntaxException json转化异常
+	 */
+	public <K, V, T> Optional<T> getForObjCached(String url, Map<K, V> paramMap, Map<K,V> headerMap, Type type) throws IOException, JsonSyntaxException {
+		Request request = HttpUtils.getByClient(client, url, paramMap, headerMap, tag).request();
+		return objectCache.get(client, request, type);
+	}
+
+	/**
+	 * 带缓存的get请求,返回map
+	 * @param url url
+	 * @param paramMap paramMap
+	 * @param headerMap headerMap
+	 * @return 解析后的map,请不要修改
+	 * @throws IOException 请求失败或非2xx
+	 * @throws JsonSyntaxException json转化异常
+	 * @see #getForObjCached(String, Map, Map, Type)
+	 */
+	public <K, V> Optional<Map<String, Object>> getForMapCached(String url, Map<K, V> paramMap, Map<K,V> headerMap) throws IOException, JsonSyntaxException {
+		return getForObjCached(url, paramMap, headerMap, new TypeFactory(Map.class, String.class, Object.class));
+	}
+
+	/**
+	 * @return 当前对象缓存和client磁盘缓存的命中统计
+	 */
+	public HttpCacheStats cacheStats() {
+		Cache cache = client.cache();
+		return new HttpCacheStats(
+				objectCache.getHitCount(),
+				objectCache.getMissCount(),
+				objectCache.getRevalidationCount(),
+				objectCache.getEvictionCount(),
+				cache != null ? cache.requestCount() : -1,
+				cache != null ? cache.hitCount() : -1,
+				cache != null ? cache.networkCount() : -1);
+	}
+
 	/*===================其他方法===========================*/
 	/**
 	 * 取消tag对应的所有请求
@@ -251,8 +371,7 @@ public class HttpHelper {
 	 * @throws IllegalArgumentException 一般为url异常，比如没有http(s):\\的前缀
 	 */
 	public <K, V> MyCall downLoad(String url, Map<K, V> paramMap, Map<K,V> headerMap, ProgressResponseBody.ProgressListener listener) throws IllegalArgumentException {
-		OkHttpClient client = HttpUtils.builderWithProgress(this.client.newBuilder(), listener).build();
-		Call call = HttpUtils.getByClient(client, url, paramMap, headerMap, tag);
+		Call call = HttpUtils.getWithProgress(client, url, paramMap, headerMap, tag, listener);
 		return new MyCall(call);
 	}
 	
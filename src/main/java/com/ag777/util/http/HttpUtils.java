@@ -2,11 +2,13 @@ package com.ag777.util.http;
 
 import com.ag777.util.Utils;
 import com.ag777.util.file.FileUtils;
+import com.ag777.util.gson.model.TypeFactory;
 import com.ag777.util.http.model.MyCookieJar;
 import com.ag777.util.http.model.ProgressResponseBody;
 import com.ag777.util.http.model.SSLSocketClient;
 import com.ag777.util.lang.ObjectUtils;
 import com.ag777.util.lang.StringUtils;
+import com.ag777.util.lang.TransferHelper;
 import com.ag777.util.lang.collection.ListUtils;
 import com.ag777.util.lang.collection.MapUtils;
 import com.ag777.util.lang.exception.model.JsonSyntaxException;
@@ -28,6 +30,8 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 有关HTTP请求的方法类（二次封装OkHttp3）
@@ -52,11 +56,33 @@ import java.util.concurrent.TimeUnit;
  * </ul>
  *
  * @author ag777
- * @version 最后修改于 2024年12月05日
+ * @version 最后修改于 2026年10月18日
  */
 public class HttpUtils {
 	
 	private static volatile OkHttpClient mOkHttpClient;
+	/*连接池配置,须在client()第一次调用前设置*/
+	private static int maxIdleConnections = 5;
+	private static long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+	/*线程池配置,可以随时修改*/
+	private static int maxRequests = 64;
+	private static int maxRequestsPerHost = 5;
+	/*磁盘缓存,默认不开启,须在client()第一次调用前设置*/
+	private static Cache cache;
+
+	/**
+	 * 进度监听拦截器,从请求的tag(ProgressResponseBody.ProgressListener.class)中取出监听并包装响应体,没有监听的请求原样返回
+	 */
+	private static final Interceptor PROGRESS_INTERCEPTOR = chain -> {
+		Response response = chain.proceed(chain.request());
+		ProgressResponseBody.ProgressListener listener = chain.request().tag(ProgressResponseBody.ProgressListener.class);
+		if(listener == null || response.body() == null) {
+			return response;
+		}
+		return response.newBuilder()
+				.body(new ProgressResponseBody(response.body(), listener))
+				.build();
+	};
 
 	public static final MediaType FORM_CONTENT_TYPE
 			= MediaType.parse("application/x-www-form-urlencoded; charset=utf-8");//"Content-Type: application/json; charset=utf-8");//
@@ -66,34 +92,105 @@ public class HttpUtils {
 			= MediaType.parse("text/plain");
 	public static final MediaType OCTET_STREAM
 			= MediaType.parse("application/octet-stream");
+	private static final Type MAP_TYPE = new TypeFactory(Map.class, String.class, Object.class);
 	private HttpUtils() {}
 	
 	/**
 	 * 生成并获取client对象,双锁校验
+	 * <p>
+	 * 所有派生的client(defaultBuilder()及各builderWithXXX方法传null时)都基于该对象的newBuilder(),
+	 * 共享同一个连接池和线程池(Dispatcher),保证keep-alive复用且不会泄漏线程
+	 * </p>
 	 * @return OkHttpClient
 	 */
 	public static OkHttpClient client() {
 		if(mOkHttpClient == null) {
 			synchronized (HttpUtils.class) {
 				if(mOkHttpClient == null) {
-					mOkHttpClient = defaultBuilder()  
-		                    .build();  
+					Dispatcher dispatcher = new Dispatcher();
+					dispatcher.setMaxRequests(maxRequests);
+					dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+					OkHttpClient.Builder builder = baseBuilder();
+					if(cache != null) {
+						builder.cache(cache);
+					}
+					mOkHttpClient = builder
+							.connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+							.dispatcher(dispatcher)
+							.addNetworkInterceptor(PROGRESS_INTERCEPTOR)
+							.build();
 				}
 			}
 		}
 		return mOkHttpClient;
 	}
+
+	/**
+	 * 配置共享连接池,必须在client()第一次调用前设置
+	 * @param maxIdleConnections 最大空闲连接数,默认5
+	 * @param keepAlive 空闲连接保持时间,默认5分钟
+	 * @param unit 时间单位
+	 * @throws IllegalStateException 共享client已经创建
+	 */
+	public static void connectionPool(int maxIdleConnections, long keepAlive, TimeUnit unit) throws IllegalStateException {
+		synchronized (HttpUtils.class) {
+			if(mOkHttpClient != null) {
+				throw new IllegalStateException("共享client已创建,连接池配置需在第一次请求前设置");
+			}
+			HttpUtils.maxIdleConnections = maxIdleConnections;
+			HttpUtils.keepAliveMillis = unit.toMillis(keepAlive);
+		}
+	}
+
+	/**
+	 * 为共享client开启磁盘缓存(okhttp3.Cache),按Cache-Control缓存响应并自动发送条件请求,必须在client()第一次调用前设置
+	 * <p>
+	 * 同一个目录只能对应一个Cache对象,派生的client(defaultBuilder()等)会共用该缓存
+	 * </p>
+	 * @param directory 缓存目录
+	 * @param maxSize 最大字节数
+	 * @throws IllegalStateException 共享client已经创建
+	 */
+	public static void cache(File directory, long maxSize) throws IllegalStateException {
+		synchronized (HttpUtils.class) {
+			if(mOkHttpClient != null) {
+				throw new IllegalStateException("共享client已创建,磁盘缓存需在第一次请求前设置");
+			}
+			HttpUtils.cache = new Cache(directory, maxSize);
+		}
+	}
+
+	/**
+	 * 配置共享线程池的并发数,共享client已创建时立即生效
+	 * @param maxRequests 最大并发请求数,默认64
+	 * @param maxRequestsPerHost 每个host的最大并发请求数,默认5
+	 */
+	public static void dispatcher(int maxRequests, int maxRequestsPerHost) {
+		synchronized (HttpUtils.class) {
+			HttpUtils.maxRequests = maxRequests;
+			HttpUtils.maxRequestsPerHost = maxRequestsPerHost;
+			if(mOkHttpClient != null) {
+				mOkHttpClient.dispatcher().setMaxRequests(maxRequests);
+				mOkHttpClient.dispatcher().setMaxRequestsPerHost(maxRequestsPerHost);
+			}
+		}
+	}
 	
 	/**
 	 * 默认builder
 	 * <p>
 	 * 连接超时时间为15秒,写出超时时间为15秒
 	 * 绕过https验证
+	 * 基于共享client派生,与其共享连接池和线程池
 	 * </p>
 	 * @return OkHttpClient.Builder
 	 */
 	public static OkHttpClient.Builder defaultBuilder() {
-		return new OkHttpClient().newBuilder()
+		return client().newBuilder();
+	}
+
+	private static OkHttpClient.Builder baseBuilder() {
+		return new OkHttpClient.Builder()
 				.connectTimeout(15, TimeUnit.SECONDS)
 				.readTimeout(15, TimeUnit.SECONDS)  	//读取超时
 				.writeTimeout(15, TimeUnit.SECONDS)
@@ -202,6 +299,22 @@ public class HttpUtils {
 		return builder.cookieJar(new MyCookieJar());
 	}
 
+	/**
+	 * 构造带磁盘缓存的okhttpBuilder
+	 * <p>
+	 * 同一个目录只能对应一个Cache对象,多个client需要共用时传入同一个Cache
+	 * </p>
+	 * @param builder builder
+	 * @param cache 磁盘缓存,如new Cache(dir, 50L * 1024 * 1024)
+	 * @return OkHttpClient.Builder
+	 */
+	public static OkHttpClient.Builder builderWithCache(OkHttpClient.Builder builder, Cache cache) {
+		if(builder == null) {
+			builder = client().newBuilder();
+		}
+		return builder.cache(cache);
+	}
+
 	/**
 	 * 构造带代理的okhttpBuilder
 	 * @param builder builder
@@ -220,6 +333,9 @@ public class HttpUtils {
 
 	/**
 	 * 构建带进度监听的okhttpBuilder
+	 * <p>
+	 * 每个监听都会构建一个新的client,下载时推荐使用getWithProgress(),通过请求tag传递监听
+	 * </p>
 	 * @param builder builder
 	 * @param listener listener
 	 * @return OkHttpClient.Builder
@@ -315,6 +431,33 @@ public class HttpUtils {
 				client);
 	}
 	
+	/**
+	 * 带进度监听的get请求
+	 * <p>
+	 * 监听通过请求tag传递给共享client上的网络拦截器,不需要为每次下载构建新的client;
+	 * 自定义的client不是由共享client派生时(没有该拦截器),退化为builderWithProgress()
+	 * </p>
+	 * @param client client,为null时使用共享client
+	 * @param url url
+	 * @param paramMap paramMap
+	 * @param headerMap headerMap
+	 * @param tag tag
+	 * @param listener 进度监听,可以为null
+	 * @return Call
+	 * @throws IllegalArgumentException 一般为url异常，比如没有http(s):\\的前缀
+	 */
+	public static <K,V>Call getWithProgress(OkHttpClient client, String url, Map<K, V> paramMap, Map<K,V> headerMap, Object tag, ProgressResponseBody.ProgressListener listener) throws IllegalArgumentException {
+		Builder builder = getRequest(getGetUrl(url, paramMap), getHeaders(headerMap), tag).get();
+		if(listener != null) {
+			if(client != null && !client.networkInterceptors().contains(PROGRESS_INTERCEPTOR)) {
+				client = builderWithProgress(client.newBuilder(), listener).build();
+			} else {
+				builder.tag(ProgressResponseBody.ProgressListener.class, listener);
+			}
+		}
+		return call(builder.build(), client);
+	}
+	
 	/*===================POST请求===========================*/
 	
 	/**
@@ -652,11 +795,11 @@ public class HttpUtils {
 	 * @throws IOException IOException
 	 */
 	public static Optional<Map<String, Object>> responseMap(Response response) throws IOException {
-		if(response == null) {
+		try {
+			return responseJson(response, MAP_TYPE, false);
+		} catch (JsonSyntaxException ex) {
 			return Optional.empty();
 		}
-		Optional<String> str = responseStr(response);
-		return str.map(s -> Utils.jsonUtils().toMap(s));
 	}
 	
 	/**
@@ -670,11 +813,11 @@ public class HttpUtils {
 	 * @throws IOException IOException
 	 */
 	public static Optional<Map<String, Object>> responseMapForce(Response response) throws IOException{
-		if(response == null) {
+		try {
+			return responseJson(response, MAP_TYPE, true);
+		} catch (JsonSyntaxException ex) {
 			return Optional.empty();
 		}
-		Optional<String> str = responseStrForce(response);
-		return str.map(s -> Utils.jsonUtils().toMap(s));
 	}
 	
 	/**
@@ -691,14 +834,7 @@ public class HttpUtils {
 	 * @throws JsonSyntaxException json转化异常
 	 */
 	public static <T>Optional<T> responseObj(Response response, Class<T> clazz) throws IOException, JsonSyntaxException {
-		if(response == null) {
-			return Optional.empty();
-		}
-		Optional<String> str = responseStr(response);
-		if(str.isPresent()) {
-			return Optional.ofNullable(Utils.jsonUtils().fromJsonWithException(str.get(), clazz));
-		}
-		return Optional.empty();
+		return responseJson(response, clazz, false);
 	}
 	
 	/**
@@ -715,14 +851,7 @@ public class HttpUtils {
 	 * @throws JsonSyntaxException json转化异常
 	 */
 	public static <T>Optional<T> responseObjForce(Response response, Class<T> clazz) throws IOException, JsonSyntaxException {
-		if(response == null) {
-			return Optional.empty();
-		}
-		Optional<String> str = responseStrForce(response);
-		if(str.isPresent()) {
-			return Optional.ofNullable(Utils.jsonUtils().fromJsonWithException(str.get(), clazz));
-		}
-		return Optional.empty();
+		return responseJson(response, clazz, true);
 	}
 	
 	/**
@@ -739,14 +868,7 @@ public class HttpUtils {
 	 * @throws JsonSyntaxException json转化异常
 	 */
 	public static <T>Optional<T> responseObj(Response response, Type type) throws IOException, JsonSyntaxException {
-		if(response == null) {
-			return Optional.empty();
-		}
-		Optional<String> str = responseStr(response);
-		if(str.isPresent()) {
-			return Optional.ofNullable(Utils.jsonUtils().fromJsonWithException(str.get(), type));
-		}
-		return Optional.empty();
+		return responseJson(response, type, false);
 	}
 	
 	/**
@@ -763,16 +885,91 @@ public class HttpUtils {
 	 * @throws JsonSyntaxException json转化异常
 	 */
 	public static <T>Optional<T> responseObjForce(Response response, Type type) throws IOException, JsonSyntaxException {
+		return responseJson(response, type, true);
+	}
+	
+	/**
+	 * 流式解析返回体中的顶层json数组,每解析出一个元素回调一次,不会在内存中保留整个响应体
+	 * <p>
+	 * 	只有response.isSuccessful()时才解析,否则抛出异常;解析完后关闭响应体
+	 * </p>
+	 *
+	 * @param response response
+	 * @param elementType 元素类型
+	 * @param consumer 元素回调
+	 * @throws IOException IOException
+	 * @throws JsonSyntaxException json转化异常或顶层不是数组
+	 */
+	public static <T>void responseForEach(Response response, Type elementType, Consumer<T> consumer) throws IOException, JsonSyntaxException {
+		if(response == null) {
+			return;
+		}
+		if(!response.isSuccessful()) {
+			throw new IOException(response.code()+"||"+response.message());
+		}
+		if(response.body() == null) {
+			return;
+		}
+		try (Reader reader = response.body().charStream()) {
+			Utils.jsonUtils().forEachInArray(reader, elementType, consumer);
+		}
+	}
+
+	/**
+	 * 将返回体中的顶层json数组转为按需解析的元素流
+	 * <p>
+	 * 	只有response.isSuccessful()时才有返回,否则抛出异常;关闭流时关闭响应,请配合try-with-resources使用
+	 * </p>
+	 *
+	 * @param response response
+	 * @param elementType 元素类型
+	 * @return 元素流
+	 * @throws IOException IOException
+	 * @throws JsonSyntaxException json转化异常或顶层不是数组
+	 */
+	public static <T>Stream<T> responseStream(Response response, Type elementType) throws IOException, JsonSyntaxException {
+		if(response == null) {
+			return Stream.empty();
+		}
+		if(!response.isSuccessful()) {
+			response.close();
+			throw new IOException(response.code()+"||"+response.message());
+		}
+		if(response.body() == null) {
+			return Stream.empty();
+		}
+		Reader reader = response.body().charStream();
+		try {
+			return Utils.jsonUtils().<T>streamArray(reader, elementType).onClose(response::close);
+		} catch (JsonSyntaxException ex) {
+			response.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * 直接从返回体的字符流解析json,不经过中间字符串,解析完后关闭响应体
+	 */
+	private static <T>Optional<T> responseJson(Response response, Type type, boolean force) throws IOException, JsonSyntaxException {
 		if(response == null) {
 			return Optional.empty();
 		}
-		Optional<String> str = responseStrForce(response);
-		if(str.isPresent()) {
-			return Optional.ofNullable(Utils.jsonUtils().fromJsonWithException(str.get(), type));
+		if(!force && !response.isSuccessful()) {
+			throw new IOException(response.code()+"||"+response.message());
+		}
+		if(response.body() == null) {
+			return Optional.empty();
+		}
+		try (Reader reader = response.body().charStream()) {
+			return Optional.ofNullable(Utils.jsonUtils().fromJsonWithException(reader, type));
+		} catch (JsonSyntaxException ex) {
+			if(ex.getCause() instanceof IOException) {	//读取响应体失败,与原先body().string()的行为保持一致
+				throw (IOException) ex.getCause();
+			}
+			throw ex;
 		}
-		return Optional.empty();
 	}
-	
+
 	/**
 	 * 发送请求并得到返回流
 	 * <p>
@@ -821,6 +1018,33 @@ public class HttpUtils {
 		return Optional.empty();
 	}
 
+	/**
+	 * 将响应流保存成本地文件,通过TransferHelper统计进度/限速
+	 * <p>
+	 * 	只有response.isSuccessful()时才有返回,否则抛出异常;TransferHelper未指定总长度时使用响应的Content-Length
+	 * </p>
+	 *
+	 * @param response response
+	 * @param targetPath targetPath
+	 * @param helper 传输配置(进度回调、限速等)
+	 * @return 返回文件
+	 * @throws IOException IOException
+	 */
+	public static Optional<File> responseFile(Response response, String targetPath, TransferHelper helper) throws IOException {
+		if(response == null) {
+			return Optional.empty();
+		}
+		Optional<InputStream> in = responseInputStream(response);
+		if(!in.isPresent()) {
+			return Optional.empty();
+		}
+		File file = new File(targetPath);
+		try (InputStream is = in.get(); OutputStream out = FileUtils.getOutputStream(file)) {
+			helper.transfer(is, out, response.body().contentLength());
+		}
+		return file.isFile() ? Optional.of(file) : Optional.empty();
+	}
+
 	/**
 	 *
 	 * @param response response
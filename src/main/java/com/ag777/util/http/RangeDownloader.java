@@ -0,0 +1,620 @@
+package com.ag777.util.http;
+
+import com.ag777.util.http.model.MyCall;
+import com.ag777.util.http.model.ProgressResponseBody;
+import com.ag777.util.lang.BufferPool;
+import com.ag777.util.lang.IOUtils;
+import com.ag777.util.security.FileHasher;
+import okhttp3.Headers;
+import okhttp3.Response;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段并行下载,支持断点续传
+ * <p>
+ * 先通过HEAD请求获取文件长度和Accept-Ranges,把文件按segmentSize分段,由connections个线程通过共享client并发发送Range请求,
+ * 各段用FileChannel按位置写入预分配好的临时文件(目标路径.part)。下载进度记录在续传日志(目标路径.part.journal)中,
+ * 中断后再次下载同一url到同一路径时,只下载未完成的部分;服务端的ETag/Last-Modified或长度变化时重新下载,
+ * 服务端既不返回ETag也不返回Last-Modified时无法确认文件未变,每次都重新下载。
+ * 全部完成后校验长度(及可选的摘要),再原子地重命名为目标文件。
+ * 服务端不支持HEAD、没有长度或不支持Range时退化为单连接下载(不支持续传)。
+ * </p>
+ * <pre>{@code
+ *  File file = new RangeDownloader("https://example.com/big.iso")
+ *          .connections(8)
+ *          .checksum(FileHasher.Algorithm.SHA256, "9f86d0...")
+ *          .listener((cur, total, n, done) -> System.out.println(cur+"/"+total))
+ *          .download("/data/big.iso");
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 11:40
+ */
+public class RangeDownloader {
+
+	private static final String PART_SUFFIX = ".part";
+	private static final String JOURNAL_SUFFIX = ".part.journal";
+	private static final long JOURNAL_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+	private final String url;
+	private HttpHelper helper = HttpHelper.getInstance();
+	private Map<String, String> headerMap = Collections.emptyMap();
+	private int connections = 4;
+	private long segmentSize = 4L << 20;
+	private int retries = 3;
+	private FileHasher.Algorithm checksumAlgorithm;
+	private String checksum;
+	private ProgressResponseBody.ProgressListener listener;
+
+	/*单次下载的状态*/
+	private volatile boolean cancelled;
+	private volatile boolean aborted;	//某个分段失败后停止其它分段(不同于用户取消,可以重新开始)
+	private final Set<MyCall> runningCalls = ConcurrentHashMap.newKeySet();
+
+	public RangeDownloader(String url) {
+		this.url = url;
+	}
+
+	/**
+	 * @param helper 发送请求用的HttpHelper,默认HttpHelper.getInstance()(共享client)
+	 * @return RangeDownloader
+	 */
+	public RangeDownloader helper(HttpHelper helper) {
+		this.helper = helper;
+		return this;
+	}
+
+	/**
+	 * @param headerMap 附加的请求头(HEAD请求和每个分段请求都会带上)
+	 * @return RangeDownloader
+	 */
+	public RangeDownloader headers(Map<String, String> headerMap) {
+		this.headerMap = headerMap == null ? Collections.emptyMap() : headerMap;
+		return this;
+	}
+
+	/**
+	 * @param connections 并发连接数,默认4
+	 * @return RangeDownloader
+	 */
+	public RangeDownloader connections(int connections) {
+		if(connections <= 0) {
+			throw new IllegalArgumentException("连接数必须大于0");
+		}
+		this.connections = connections;
+		return this;
+	}
+
+	/**
+	 * @param segmentSize 分段大小,默认4M,续传时沿用日志中的分段大小
+	 * @return RangeDownloader
+	 */
+	public RangeDownloader segmentSize(long segmentSize) {
+		if(segmentSize <= 0) {
+			throw new IllegalArgumentException("分段大小必须大于0");
+		}
+		this.segmentSize = segmentSize;
+		return this;
+	}
+
+	/**
+	 * @param retries 每个分段失败后的重试次数(从已下载的位置继续),默认3
+	 * @return RangeDownloader
+	 */
+	public RangeDownloader retries(int retries) {
+		if(retries < 0) {
+			throw new IllegalArgumentException("重试次数不能小于0");
+		}
+		this.retries = retries;
+		return this;
+	}
+
+	/**
+	 * 下载完成后校验摘要,不一致时删除临时文件并抛出异常
+	 * @param algorithm 算法
+	 * @param expectedHex 期望的摘要(16进制,不区分大小写)
+	 * @return RangeDownloader
+	 */
+	public RangeDownloader checksum(FileHasher.Algorithm algorithm, String expectedHex) {
+		this.checksumAlgorithm = algorithm;
+		this.checksum = expectedHex;
+		return this;
+	}
+
+	/**
+	 * @param listener 总进度监听,curRead为所有分段已下载的总字节数(包括续传前已下载的部分),完成时回调一次done=true
+	 * @return RangeDownloader
+	 */
+	public RangeDownloader listener(ProgressResponseBody.ProgressListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * 取消下载,已下载的部分和续传日志会保留,之后可以继续下载
+	 */
+	public void cancel() {
+		cancelled = true;
+		cancelCalls();
+	}
+
+	/**
+	 * 下载到指定路径
+	 * @param targetPath 目标路径,已存在时覆盖
+	 * @return 下载完成的文件
+	 * @throws IOException 请求失败、重试次数用完、被取消或校验失败
+	 */
+	public File download(String targetPath) throws IOException {
+		cancelled = false;
+		Path target = Paths.get(targetPath).toAbsolutePath();
+		if(target.getParent() != null) {
+			Files.createDirectories(target.getParent());
+		}
+		Path part = Paths.get(target + PART_SUFFIX);
+		Path journalPath = Paths.get(target + JOURNAL_SUFFIX);
+
+		RemoteInfo info = head();
+		if(info == null) {
+			downloadSingle(part);
+		} else {
+			try {
+				downloadRanged(info, part, journalPath);
+			} catch (ResourceChangedException ex) {	//下载过程中服务端文件发生了变化,丢弃已下载的部分重新下载一次
+				Files.deleteIfExists(journalPath);
+				Files.deleteIfExists(part);
+				info = head();
+				if(info == null) {
+					downloadSingle(part);
+				} else {
+					downloadRanged(info, part, journalPath);
+				}
+			}
+		}
+		verify(part, journalPath, info);
+		try {
+			Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException ex) {
+			Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		Files.deleteIfExists(journalPath);
+		return target.toFile();
+	}
+
+	/*===================内部方法===========================*/
+
+	/**
+	 * @return 支持分段下载时返回文件信息,否则返回null
+	 */
+	private RemoteInfo head() {
+		try (MyCall call = helper.head(url, null, headerMap)) {
+			Response response = call.executeForResponse();
+			if(!response.isSuccessful()) {
+				return null;
+			}
+			long length = parseLong(response.header("Content-Length"));
+			if(length <= 0 || !"bytes".equalsIgnoreCase(response.header("Accept-Ranges"))) {
+				return null;
+			}
+			String validator = response.header("ETag");
+			if(validator == null) {
+				validator = response.header("Last-Modified", "");
+			}
+			return new RemoteInfo(length, validator);
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * 单连接下载,不支持续传
+	 */
+	private void downloadSingle(Path part) throws IOException {
+		try (MyCall call = helper.get(url, HttpUtils.getHeaders(headerMap))) {
+			runningCalls.add(call);
+			Response response = call.executeForResponse();
+			if(!response.isSuccessful() || response.body() == null) {
+				throw new IOException(response.code()+"||"+response.message());
+			}
+			long total = response.body().contentLength();
+			AtomicLong downloaded = new AtomicLong();
+			try (InputStream in = response.body().byteStream();
+				 FileChannel fc = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				copy(in, fc, 0, Long.MAX_VALUE, n -> notifyProgress(downloaded.addAndGet(n), total, n, false));
+				fc.force(false);
+			}
+			notifyProgress(downloaded.get(), total, 0, true);
+		} finally {
+			runningCalls.clear();
+		}
+	}
+
+	private void downloadRanged(RemoteInfo info, Path part, Path journalPath) throws IOException {
+		aborted = false;
+		Journal journal = Journal.load(journalPath);
+		if(journal == null || !journal.matches(url, info) || !Files.exists(part)) {
+			journal = new Journal(url, info, segmentSize);
+		}
+		Journal current = journal;
+		int segments = current.done.length();
+		AtomicLong downloaded = new AtomicLong();
+		Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+		for (int i = 0; i < segments; i++) {
+			downloaded.addAndGet(current.done.get(i));
+			if(current.done.get(i) < current.segmentLength(i)) {
+				queue.offer(i);
+			}
+		}
+
+		try (RandomAccessFile raf = new RandomAccessFile(part.toFile(), "rw")) {
+			if(raf.length() != info.length) {
+				raf.setLength(info.length);	//预分配
+			}
+			FileChannel fc = raf.getChannel();
+			current.save(journalPath, current.snapshot());
+			notifyProgress(downloaded.get(), info.length, 0, false);
+
+			int workers = Math.min(connections, Math.max(queue.size(), 1));
+			ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+				Thread t = new Thread(r, "RangeDownloader-"+THREAD_INDEX.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+			Object journalLock = new Object();
+			long[] lastSave = {System.nanoTime()};
+			List<Future<?>> futures = new ArrayList<>();
+			try {
+				for (int w = 0; w < workers; w++) {
+					futures.add(pool.submit(() -> {
+						Integer index;
+						while ((index = queue.poll()) != null) {
+							fetchSegment(current, index, fc, n -> {
+								long total = downloaded.addAndGet(n);
+								notifyProgress(total, info.length, n, false);
+								long now = System.nanoTime();
+								if(now - lastSave[0] >= JOURNAL_INTERVAL_NANOS) {
+									synchronized (journalLock) {
+										if(now - lastSave[0] >= JOURNAL_INTERVAL_NANOS) {
+											lastSave[0] = now;
+											long[] snapshot = current.snapshot();	//先取进度再落盘,日志记录的进度不会超过已落盘的数据
+											fc.force(false);
+											current.save(journalPath, snapshot);
+										}
+									}
+								}
+							});
+						}
+						return null;
+					}));
+				}
+				for (Future<?> future : futures) {
+					try {
+						future.get();
+					} catch (ExecutionException ex) {
+						abort();
+						Throwable cause = ex.getCause();
+						throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+					} catch (InterruptedException ex) {
+						abort();
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException("下载被中断");
+					}
+				}
+			} finally {
+				pool.shutdownNow();
+				try {
+					pool.awaitTermination(10, TimeUnit.SECONDS);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				long[] snapshot = current.snapshot();
+				fc.force(false);
+				current.save(journalPath, snapshot);
+				runningCalls.clear();
+			}
+		}
+		notifyProgress(downloaded.get(), info.length, 0, true);
+	}
+
+	/**
+	 * 下载一个分段剩余的部分,失败时从已下载的位置重试
+	 * <p>
+	 * 有强校验字段时带If-Range请求,服务端文件变化时返回200,此时抛出ResourceChangedException;
+	 * 返回的Content-Range与请求的起始位置或文件长度不一致时同样视为文件变化
+	 * </p>
+	 */
+	private void fetchSegment(Journal journal, int index, FileChannel fc, ProgressCallback callback) throws IOException {
+		long start = journal.segmentStart(index);
+		long length = journal.segmentLength(index);
+		IOException last = null;
+		for (int attempt = 0; attempt <= retries; attempt++) {
+			if(cancelled || aborted) {
+				throw new IOException("下载已取消");
+			}
+			long done = journal.done.get(index);
+			if(done >= length) {
+				return;
+			}
+			Headers.Builder builder = new Headers.Builder()
+					.addAll(headerMapToHeaders())
+					.set("Range", "bytes="+(start+done)+"-"+(start+length-1));
+			if(!journal.validator.isEmpty() && !journal.validator.startsWith("W/")) {	//弱ETag不能用于If-Range
+				builder.set("If-Range", journal.validator);
+			}
+			try (MyCall call = helper.get(url, builder.build())) {
+				runningCalls.add(call);
+				try {
+					Response response = call.executeForResponse();
+					if(response.code() == 200) {
+						throw new ResourceChangedException("服务端文件已变化(返回了完整内容)");
+					}
+					if(response.code() != 206 || response.body() == null) {
+						throw new IOException("分段请求失败:"+response.code()+"||"+response.message());
+					}
+					long rangeLength = checkContentRange(response.header("Content-Range"), start+done, start+length-1, journal.length);
+					try (InputStream in = response.body().byteStream()) {
+						copy(in, fc, start+done, Math.min(length-done, rangeLength), n -> {
+							journal.done.addAndGet(index, n);
+							callback.onProgress(n);
+						});
+					}
+					if(journal.done.get(index) < length) {
+						throw new EOFException("分段数据不完整:"+journal.done.get(index)+"/"+length);
+					}
+					return;
+				} finally {
+					runningCalls.remove(call);
+				}
+			} catch (ResourceChangedException ex) {
+				throw ex;
+			} catch (IOException ex) {
+				last = ex;
+			}
+		}
+		throw last;
+	}
+
+	/**
+	 * 校验206响应的Content-Range(bytes first-last/total)
+	 * @return 返回的字节数(服务端可能只返回请求范围的前一部分)
+	 */
+	private static long checkContentRange(String contentRange, long first, long last, long total) throws IOException {
+		if(contentRange == null || !contentRange.startsWith("bytes ")) {
+			throw new IOException("分段响应缺少Content-Range:"+contentRange);
+		}
+		String value = contentRange.substring(6).trim();
+		int dash = value.indexOf('-');
+		int slash = value.indexOf('/');
+		if(dash <= 0 || slash < dash) {
+			throw new IOException("无法解析Content-Range:"+contentRange);
+		}
+		long rangeFirst = parseLong(value.substring(0, dash));
+		long rangeLast = parseLong(value.substring(dash+1, slash));
+		String totalStr = value.substring(slash+1).trim();
+		if(!"*".equals(totalStr) && parseLong(totalStr) != total) {
+			throw new ResourceChangedException("服务端文件长度已变化:"+contentRange);
+		}
+		if(rangeFirst != first || rangeLast < rangeFirst || rangeLast > last) {
+			throw new ResourceChangedException("服务端返回的范围与请求不一致:"+contentRange+",请求"+first+"-"+last);
+		}
+		return rangeLast - rangeFirst + 1;
+	}
+
+	/**
+	 * 从流中读取最多maxBytes个字节,按位置写入文件
+	 */
+	private void copy(InputStream in, FileChannel fc, long position, long maxBytes, ProgressCallback callback) throws IOException {
+		byte[] bytes = BufferPool.shared().acquire(IOUtils.TRANSFER_BUFFSIZE);
+		try {
+			long written = 0;
+			int n;
+			while (written < maxBytes && (n = in.read(bytes, 0, (int) Math.min(bytes.length, maxBytes - written))) != -1) {
+				if(cancelled || aborted) {
+					throw new IOException("下载已取消");
+				}
+				ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, n);
+				long pos = position + written;
+				while (buffer.hasRemaining()) {
+					pos += fc.write(buffer, pos);
+				}
+				written += n;
+				callback.onProgress(n);
+			}
+		} finally {
+			BufferPool.shared().release(bytes);
+		}
+	}
+
+	private void verify(Path part, Path journalPath, RemoteInfo info) throws IOException {
+		if(info != null && Files.size(part) != info.length) {
+			throw new IOException("文件长度不一致:"+Files.size(part)+"/"+info.length);
+		}
+		if(checksumAlgorithm == null || checksum == null) {
+			return;
+		}
+		String actual;
+		try {
+			actual = new FileHasher(checksumAlgorithm).hash(part);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IOException("不支持的摘要算法:"+checksumAlgorithm.getName(), ex);
+		}
+		if(!checksum.equalsIgnoreCase(actual)) {
+			Files.deleteIfExists(part);
+			Files.deleteIfExists(journalPath);
+			throw new IOException("文件校验失败,期望"+checksum+",实际"+actual);
+		}
+	}
+
+	private void abort() {
+		aborted = true;
+		cancelCalls();
+	}
+
+	private void cancelCalls() {
+		for (MyCall call : runningCalls) {
+			call.cancel();
+		}
+	}
+
+	private void notifyProgress(long cur, long total, long bytesRead, boolean done) {
+		if(listener != null) {
+			synchronized (this) {
+				listener.update(cur, total, bytesRead, done);
+			}
+		}
+	}
+
+	private Headers headerMapToHeaders() {
+		Headers headers = HttpUtils.getHeaders(headerMap);
+		return headers == null ? new Headers.Builder().build() : headers;
+	}
+
+	private static long parseLong(String value) {
+		if(value == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * 下载过程中服务端文件发生了变化,已下载的部分不可用
+	 */
+	private static final class ResourceChangedException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		ResourceChangedException(String message) {
+			super(message);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ProgressCallback {
+		void onProgress(long bytes) throws IOException;
+	}
+
+	private static final class RemoteInfo {
+		final long length;
+		final String validator;
+
+		RemoteInfo(long length, String validator) {
+			this.length = length;
+			this.validator = validator;
+		}
+	}
+
+	/**
+	 * 续传日志,记录每个分段已下载(且已落盘)的字节数
+	 */
+	private static final class Journal {
+		final String url;
+		final long length;
+		final String validator;
+		final long segmentSize;
+		final AtomicLongArray done;
+
+		Journal(String url, RemoteInfo info, long segmentSize) {
+			this(url, info.length, info.validator, segmentSize, new AtomicLongArray((int) ((info.length + segmentSize - 1) / segmentSize)));
+		}
+
+		private Journal(String url, long length, String validator, long segmentSize, AtomicLongArray done) {
+			this.url = url;
+			this.length = length;
+			this.validator = validator;
+			this.segmentSize = segmentSize;
+			this.done = done;
+		}
+
+		long segmentStart(int index) {
+			return index * segmentSize;
+		}
+
+		long segmentLength(int index) {
+			return Math.min(segmentSize, length - segmentStart(index));
+		}
+
+		/**
+		 * 没有校验字段时只凭url和长度无法确认文件未变,不续传
+		 */
+		boolean matches(String url, RemoteInfo info) {
+			return !info.validator.isEmpty() && this.url.equals(url) && length == info.length && validator.equals(info.validator);
+		}
+
+		long[] snapshot() {
+			long[] values = new long[done.length()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = done.get(i);
+			}
+			return values;
+		}
+
+		synchronized void save(Path path, long[] snapshot) throws IOException {
+			Properties props = new Properties();
+			props.setProperty("url", url);
+			props.setProperty("length", String.valueOf(length));
+			props.setProperty("validator", validator);
+			props.setProperty("segmentSize", String.valueOf(segmentSize));
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < snapshot.length; i++) {
+				if(i > 0) {
+					sb.append(',');
+				}
+				sb.append(snapshot[i]);
+			}
+			props.setProperty("done", sb.toString());
+			Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), "."+path.getFileName(), ".tmp");
+			try {
+				try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+					props.store(writer, null);
+				}
+				try {
+					Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException ex) {
+					Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+		}
+
+		/**
+		 * @return 日志不存在或损坏时返回null
+		 */
+		static Journal load(Path path) {
+			if(!Files.exists(path)) {
+				return null;
+			}
+			try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+				Properties props = new Properties();
+				props.load(reader);
+				long length = Long.parseLong(props.getProperty("length"));
+				long segmentSize = Long.parseLong(props.getProperty("segmentSize"));
+				String[] items = props.getProperty("done").split(",");
+				AtomicLongArray done = new AtomicLongArray(items.length);
+				for (int i = 0; i < items.length; i++) {
+					done.set(i, Long.parseLong(items[i]));
+				}
+				if(items.length != (length + segmentSize - 1) / segmentSize) {
+					return null;
+				}
+				return new Journal(props.getProperty("url"), length, props.getProperty("validator", ""), segmentSize, done);
+			} catch (Exception ex) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package com.ag777.util.http.model;
+
+import com.ag777.util.lang.IOUtils;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 批量异步请求调度
+ * <p>
+ * 通过okhttp的异步线程池发送请求,不为每个请求占用调用线程;同时在途的请求不超过concurrency,
+ * 一个请求结束后立即补上下一个。待发送的请求按host分组轮流发送,且每个host在途的请求不超过client的maxRequestsPerHost,
+ * 避免某个慢host占满并发名额。取消返回的future会取消所有在途请求并停止发送。
+ * </p>
+ * <pre>{@code
+ *  BatchResult<String> result = new BatchCall<>(client, requests, 32, r -> r.body().string()).start().join();
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 23:10
+ */
+public class BatchCall<T> {
+
+	private final OkHttpClient client;
+	private final List<Request> requests;
+	private final int concurrency;
+	private final MyCall.ResponseHandler<T> handler;
+	private final CompletableFuture<BatchResult<T>> future = new CompletableFuture<>();
+
+	/*以下状态均在this锁内访问*/
+	private final Map<String, Deque<Integer>> pending = new HashMap<>();	//host->待发送的请求下标
+	private final Deque<String> hostRing = new ArrayDeque<>();	//有待发送请求的host,轮流发送
+	private final Map<String, Integer> runningPerHost = new HashMap<>();
+	private final Map<Integer, Call> running = new HashMap<>();
+	private final List<T> results;
+	private final Map<Integer, Throwable> errors = new HashMap<>();
+	private int finished;
+	private boolean started;
+
+	/**
+	 * @param client client
+	 * @param requests 请求列表
+	 * @param concurrency 最大并发数
+	 * @param handler 响应处理(在okhttp回调线程中执行,执行完后关闭响应)
+	 */
+	public BatchCall(OkHttpClient client, List<Request> requests, int concurrency, MyCall.ResponseHandler<T> handler) {
+		if(concurrency <= 0) {
+			throw new IllegalArgumentException("并发数必须大于0");
+		}
+		this.client = client;
+		this.requests = new ArrayList<>(requests);
+		this.concurrency = concurrency;
+		this.handler = handler;
+		this.results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+	}
+
+	/**
+	 * 开始发送,只能调用一次
+	 * @return 所有请求结束(成功或失败)后完成的future
+	 */
+	public CompletableFuture<BatchResult<T>> start() {
+		synchronized (this) {
+			if(started) {
+				throw new IllegalStateException("批量请求已开始");
+			}
+			started = true;
+			for (int i = 0; i < requests.size(); i++) {
+				String host = hostKey(requests.get(i));
+				pending.computeIfAbsent(host, k -> {
+					hostRing.offer(k);
+					return new ArrayDeque<>();
+				}).offer(i);
+			}
+		}
+		future.whenComplete((r, t) -> {
+			if(future.isCancelled()) {
+				cancel();
+			}
+		});
+		if(requests.isEmpty()) {
+			future.complete(new BatchResult<>(results, errors));
+		} else {
+			dispatch();
+		}
+		return future;
+	}
+
+	/**
+	 * 补足在途请求,enqueue在锁外执行
+	 */
+	private void dispatch() {
+		List<Call> toEnqueue = new ArrayList<>();
+		List<Integer> indexes = new ArrayList<>();
+		synchronized (this) {
+			int perHost = client.dispatcher().getMaxRequestsPerHost();
+			while (running.size() < concurrency && !hostRing.isEmpty() && !future.isDone()) {
+				//找到下一个未达到单host上限的host
+				String host = null;
+				for (int i = 0, size = hostRing.size(); i < size; i++) {
+					String candidate = hostRing.poll();
+					hostRing.offer(candidate);
+					if(runningPerHost.getOrDefault(candidate, 0) < perHost) {
+						host = candidate;
+						break;
+					}
+				}
+				if(host == null) {
+					break;
+				}
+				Deque<Integer> queue = pending.get(host);
+				int index = queue.poll();
+				if(queue.isEmpty()) {
+					pending.remove(host);
+					hostRing.remove(host);
+				}
+				runningPerHost.merge(host, 1, Integer::sum);
+				Call call = client.newCall(requests.get(index));
+				running.put(index, call);
+				toEnqueue.add(call);
+				indexes.add(index);
+			}
+		}
+		for (int i = 0; i < toEnqueue.size(); i++) {
+			int index = indexes.get(i);
+			toEnqueue.get(i).enqueue(new Callback() {
+				@Override
+				public void onFailure(Call call, IOException e) {
+					onFinish(index, null, e);
+				}
+
+				@Override
+				public void onResponse(Call call, Response response) {
+					try {
+						onFinish(index, handler.handle(response), null);
+					} catch (Throwable t) {
+						onFinish(index, null, t);
+					} finally {
+						IOUtils.close(response);
+					}
+				}
+			});
+		}
+	}
+
+	private void onFinish(int index, T result, Throwable error) {
+		boolean complete;
+		synchronized (this) {
+			running.remove(index);
+			runningPerHost.computeIfPresent(hostKey(requests.get(index)), (k, v) -> v > 1 ? v - 1 : null);
+			if(error == null) {
+				results.set(index, result);
+			} else {
+				errors.put(index, error);
+			}
+			finished++;
+			complete = finished == requests.size();
+		}
+		if(complete) {
+			future.complete(new BatchResult<>(results, errors));
+		} else {
+			dispatch();
+		}
+	}
+
+	private void cancel() {
+		List<Call> calls;
+		synchronized (this) {
+			pending.clear();
+			hostRing.clear();
+			calls = new ArrayList<>(running.values());
+		}
+		for (Call call : calls) {
+			call.cancel();
+		}
+	}
+
+	private static String hostKey(Request request) {
+		HttpUrl url = request.url();
+		return url.host() + ":" + url.port();
+	}
+}
@@ -0,0 +1,78 @@
+package com.ag777.util.http.model;
+
+import java.util.*;
+
+/**
+ * 批量请求的汇总结果
+ * <p>
+ * 结果与请求列表一一对应(按下标),失败的请求结果为null,异常记录在errors中
+ * </p>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 23:10
+ */
+public class BatchResult<T> {
+
+	private final List<T> results;
+	private final Map<Integer, Throwable> errors;
+
+	public BatchResult(List<T> results, Map<Integer, Throwable> errors) {
+		this.results = Collections.unmodifiableList(results);
+		this.errors = Collections.unmodifiableMap(new TreeMap<>(errors));
+	}
+
+	/**
+	 * @return 所有结果,失败的请求对应null
+	 */
+	public List<T> getResults() {
+		return results;
+	}
+
+	/**
+	 * @return 请求下标-&gt;异常,按下标排序
+	 */
+	public Map<Integer, Throwable> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @param index 请求下标
+	 * @return 对应的结果,失败时为null
+	 */
+	public T get(int index) {
+		return results.get(index);
+	}
+
+	/**
+	 * @param index 请求下标
+	 * @return 对应的异常,成功时为null
+	 */
+	public Throwable getError(int index) {
+		return errors.get(index);
+	}
+
+	public int size() {
+		return results.size();
+	}
+
+	public int getSuccessCount() {
+		return results.size() - errors.size();
+	}
+
+	public int getFailureCount() {
+		return errors.size();
+	}
+
+	public boolean isAllSuccess() {
+		return errors.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult{" +
+				"size=" + size() +
+				", success=" + getSuccessCount() +
+				", failure=" + getFailureCount() +
+				'}';
+	}
+}
@@ -0,0 +1,93 @@
+package com.ag777.util.http.model;
+
+/**
+ * http缓存统计(某一时刻的快照)
+ * <p>
+ * 内存部分来自HttpObjectCache,磁盘部分来自client上配置的okhttp3.Cache,未配置磁盘缓存时磁盘各项为-1
+ * </p>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 23:55
+ */
+public class HttpCacheStats {
+
+	private final long hitCount;
+	private final long missCount;
+	private final long revalidationCount;
+	private final long evictionCount;
+	private final long diskRequestCount;
+	private final long diskHitCount;
+	private final long diskNetworkCount;
+
+	public HttpCacheStats(long hitCount, long missCount, long revalidationCount, long evictionCount,
+						  long diskRequestCount, long diskHitCount, long diskNetworkCount) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.revalidationCount = revalidationCount;
+		this.evictionCount = evictionCount;
+		this.diskRequestCount = diskRequestCount;
+		this.diskHitCount = diskHitCount;
+		this.diskNetworkCount = diskNetworkCount;
+	}
+
+	/**
+	 * @return 内存缓存新鲜直接返回的次数
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+	/**
+	 * @return 内存缓存未命中(重新解析)的次数
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+	/**
+	 * @return 条件请求返回304、沿用内存缓存对象的次数
+	 */
+	public long getRevalidationCount() {
+		return revalidationCount;
+	}
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+	/**
+	 * @return 磁盘缓存收到的请求数
+	 */
+	public long getDiskRequestCount() {
+		return diskRequestCount;
+	}
+	/**
+	 * @return 磁盘缓存命中的次数(包括条件请求后命中)
+	 */
+	public long getDiskHitCount() {
+		return diskHitCount;
+	}
+	/**
+	 * @return 经过网络的请求数
+	 */
+	public long getDiskNetworkCount() {
+		return diskNetworkCount;
+	}
+
+	/**
+	 * @return 内存缓存命中率(直接命中和304都算命中),没有请求时为0
+	 */
+	public double getHitRate() {
+		long total = hitCount + missCount + revalidationCount;
+		return total == 0 ? 0 : (hitCount + revalidationCount) / (double) total;
+	}
+
+	@Override
+	public String toString() {
+		return "HttpCacheStats{" +
+				"hitCount=" + hitCount +
+				", missCount=" + missCount +
+				", revalidationCount=" + revalidationCount +
+				", evictionCount=" + evictionCount +
+				", diskRequestCount=" + diskRequestCount +
+				", diskHitCount=" + diskHitCount +
+				", diskNetworkCount=" + diskNetworkCount +
+				'}';
+	}
+}
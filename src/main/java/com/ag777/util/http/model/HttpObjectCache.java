@@ -0,0 +1,259 @@
+package com.ag777.util.http.model;
+
+import com.ag777.util.http.HttpUtils;
+import com.ag777.util.lang.exception.model.JsonSyntaxException;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 解析后对象的内存缓存(LRU),按Cache-Control/Expires判断是否新鲜,过期后通过ETag/Last-Modified发送条件请求
+ * <p>
+ * key为请求的url(包含参数)+请求头+目标类型,最多缓存maxEntries个,超过时淘汰最久未使用的。
+ * <ul>
+ *     <li>新鲜(max-age/Expires未过期)时直接返回缓存的对象,不发请求</li>
+ *     <li>过期且有校验字段时带If-None-Match/If-Modified-Since请求,304时沿用缓存对象并更新过期时间</li>
+ *     <li>no-store或既没有新鲜时间也没有校验字段的响应不缓存;no-cache的响应缓存但每次都重新校验</li>
+ * </ul>
+ * 缓存的对象会返回给所有调用者,请不要修改。
+ * 可以和磁盘缓存(HttpUtils.cache())同时使用,磁盘缓存保存原始响应,这里保存解析后的对象,省掉重复的解析。
+ * </p>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 23:55
+ */
+public class HttpObjectCache {
+
+	private static final HttpObjectCache SHARED = new HttpObjectCache(1000);
+
+	private final int maxEntries;
+	private final Map<String, CachedEntry> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder revalidations = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxEntries 最多缓存的对象数
+	 */
+	public HttpObjectCache(int maxEntries) {
+		if(maxEntries <= 0) {
+			throw new IllegalArgumentException("缓存数量必须大于0");
+		}
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, CachedEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedEntry> eldest) {
+				if(size() > HttpObjectCache.this.maxEntries) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return 全局共享的缓存,最多1000个对象
+	 */
+	public static HttpObjectCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * 获取请求结果解析后的对象,优先使用缓存
+	 * <p>
+	 * 只有response.isSuccessful()(或304)时才有返回,否则抛出异常
+	 * </p>
+	 * @param client client,为null时使用共享client
+	 * @param request get请求
+	 * @param type 目标类型
+	 * @return 解析后的对象
+	 * @throws IOException 请求失败或非2xx
+	 * @throws JsonSyntaxException json转化异常
+	 */
+	public <T>Optional<T> get(OkHttpClient client, Request request, Type type) throws IOException, JsonSyntaxException {
+		String key = request.url() + "\n" + request.headers() + typeKey(type);
+		CachedEntry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+		}
+		long now = System.currentTimeMillis();
+		if(entry != null && now < entry.expiresAt) {
+			hits.increment();
+			return Optional.ofNullable(cast(entry.value));
+		}
+
+		Request.Builder builder = request.newBuilder();
+		if(entry != null) {
+			if(entry.etag != null) {
+				builder.header("If-None-Match", entry.etag);
+			}
+			if(entry.lastModified != null) {
+				builder.header("If-Modified-Since", entry.lastModified);
+			}
+		}
+		try (Response response = HttpUtils.call(builder.build(), client).execute()) {
+			if(response.code() == 304 && entry != null) {
+				revalidations.increment();
+				CachedEntry updated = entry.refresh(response, now);
+				synchronized (this) {
+					entries.put(key, updated);
+				}
+				return Optional.ofNullable(cast(entry.value));
+			}
+			misses.increment();
+			Optional<T> value = HttpUtils.responseObj(response, type);
+			CachedEntry newEntry = CachedEntry.of(value.orElse(null), response, now);
+			synchronized (this) {
+				if(newEntry != null) {
+					entries.put(key, newEntry);
+				} else {
+					entries.remove(key);
+				}
+			}
+			return value;
+		}
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return 缓存新鲜直接返回的次数
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return 需要重新下载并解析的次数(包括没有缓存和校验后内容有变化)
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return 条件请求返回304、沿用缓存对象的次数
+	 */
+	public long getRevalidationCount() {
+		return revalidations.sum();
+	}
+
+	/**
+	 * @return 因超出数量被淘汰的次数
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * 类型的结构化描述,TypeFactory等自定义ParameterizedType不一定实现了getTypeName()
+	 */
+	private static String typeKey(Type type) {
+		if(type instanceof ParameterizedType) {
+			ParameterizedType pt = (ParameterizedType) type;
+			StringBuilder sb = new StringBuilder(typeKey(pt.getRawType())).append('<');
+			Type[] args = pt.getActualTypeArguments();
+			for (int i = 0; i < args.length; i++) {
+				if(i > 0) {
+					sb.append(',');
+				}
+				sb.append(typeKey(args[i]));
+			}
+			return sb.append('>').toString();
+		}
+		return type.getTypeName();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T>T cast(Object value) {
+		return (T) value;
+	}
+
+	private static final class CachedEntry {
+		final Object value;
+		final String etag;
+		final String lastModified;
+		final long expiresAt;
+
+		CachedEntry(Object value, String etag, String lastModified, long expiresAt) {
+			this.value = value;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.expiresAt = expiresAt;
+		}
+
+		/**
+		 * @return 不可缓存时返回null
+		 */
+		static CachedEntry of(Object value, Response response, long now) {
+			CacheControl cacheControl = response.cacheControl();
+			if(cacheControl.noStore()) {
+				return null;
+			}
+			String etag = response.header("ETag");
+			String lastModified = response.header("Last-Modified");
+			long expiresAt = expiresAt(response, now);
+			if(expiresAt <= now && etag == null && lastModified == null) {
+				return null;
+			}
+			return new CachedEntry(value, etag, lastModified, expiresAt);
+		}
+
+		/**
+		 * 304后更新过期时间和校验字段,对象不变
+		 */
+		CachedEntry refresh(Response response, long now) {
+			String newEtag = response.header("ETag");
+			String newLastModified = response.header("Last-Modified");
+			return new CachedEntry(value,
+					newEtag != null ? newEtag : etag,
+					newLastModified != null ? newLastModified : lastModified,
+					expiresAt(response, now));
+		}
+
+		private static long expiresAt(Response response, long now) {
+			CacheControl cacheControl = response.cacheControl();
+			if(cacheControl.noCache()) {
+				return 0;
+			}
+			if(cacheControl.maxAgeSeconds() >= 0) {
+				long age = 0;
+				String ageHeader = response.header("Age");
+				if(ageHeader != null) {
+					try {
+						age = Long.parseLong(ageHeader.trim());
+					} catch (NumberFormatException ignored) {
+					}
+				}
+				return now + TimeUnit.SECONDS.toMillis(Math.max(cacheControl.maxAgeSeconds() - age, 0));
+			}
+			Headers headers = response.headers();
+			Date expires = headers.getDate("Expires");
+			if(expires != null) {
+				Date date = headers.getDate("Date");
+				return now + expires.getTime() - (date != null ? date.getTime() : now);
+			}
+			return 0;
+		}
+	}
+}
@@ -5,6 +5,7 @@ import com.ag777.util.lang.IOUtils;
 import com.ag777.util.lang.exception.model.JsonSyntaxException;
 import com.ag777.util.lang.interf.Disposable;
 import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Headers;
 import okhttp3.Response;
 
@@ -16,18 +17,30 @@ import java.net.SocketTimeoutException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 有关Call的工具类(二次封装okhttp3)
  * <p>
  * 		发送请求并从结果中提取需要信息
  *	 	请防止二次调用
+ * 		enqueueForXXX系列方法通过okhttp的异步线程池发送请求,返回CompletableFuture,不会占用调用线程
  * </p>
  * 
  * @author ag777
- * @version create on 2018年03月30日,last modify at 2023年04月03日
+ * @version create on 2018年03月30日,last modify at 2026年10月18日
  */
 public class MyCall implements Disposable, AutoCloseable {
+
+	/**
+	 * 响应处理,在okhttp的回调线程中执行,执行完后响应会被关闭
+	 */
+	@FunctionalInterface
+	public interface ResponseHandler<T> {
+		T handle(Response response) throws IOException, JsonSyntaxException;
+	}
 	
 	private Call call;
 	private Response response;
@@ -231,6 +244,40 @@ public class MyCall implements Disposable, AutoCloseable {
 		return HttpUtils.responseObjForce(response, type);
 	}
 	
+	/**
+	 * 发送请求并流式解析返回的顶层json数组,每解析出一个元素回调一次
+	 * <p>
+	 * 只有response.isSuccessful()时才解析,否则抛出异常;不会在内存中保留整个响应体,适合大数组
+	 * </p>
+	 *
+	 * @param elementType 元素类型
+	 * @param consumer 元素回调
+	 * @throws SocketTimeoutException SocketTimeoutException
+	 * @throws IOException IOException
+	 * @throws JsonSyntaxException json转化异常或顶层不是数组
+	 */
+	public <T>void executeForEach(Type elementType, Consumer<T> consumer) throws SocketTimeoutException, IOException, JsonSyntaxException {
+		executeForResponse();
+		HttpUtils.responseForEach(response, elementType, consumer);
+	}
+
+	/**
+	 * 发送请求并将返回的顶层json数组转为按需解析的元素流
+	 * <p>
+	 * 只有response.isSuccessful()时才有返回,否则抛出异常;关闭流时关闭响应,请配合try-with-resources使用
+	 * </p>
+	 *
+	 * @param elementType 元素类型
+	 * @return 元素流
+	 * @throws SocketTimeoutException SocketTimeoutException
+	 * @throws IOException IOException
+	 * @throws JsonSyntaxException json转化异常或顶层不是数组
+	 */
+	public <T>Stream<T> executeForStream(Type elementType) throws SocketTimeoutException, IOException, JsonSyntaxException {
+		executeForResponse();
+		return HttpUtils.responseStream(response, elementType);
+	}
+
 	/**
 	 * 发送请求并得到返回流
 	 * <p>
@@ -262,6 +309,99 @@ public class MyCall implements Disposable, AutoCloseable {
 		return HttpUtils.responseFile(response, targetPath);
 	}
 
+	/*===================异步请求===========================*/
+
+	/**
+	 * 异步发送请求并获取返回的封装
+	 * <p>
+	 * 响应需要自行关闭(或调用close());取消返回的future会取消请求
+	 * </p>
+	 * @return CompletableFuture,请求失败时以IOException结束
+	 */
+	public CompletableFuture<Response> enqueueForResponse() {
+		return enqueue(r -> r, false);
+	}
+
+	/**
+	 * 异步发送请求并得到返回字符串
+	 * @return CompletableFuture,非2xx时以IOException结束
+	 */
+	public CompletableFuture<Optional<String>> enqueueForStr() {
+		return enqueue(HttpUtils::responseStr);
+	}
+
+	/**
+	 * 异步发送请求并转化为map
+	 * @return CompletableFuture,非2xx时以IOException结束
+	 */
+	public CompletableFuture<Optional<Map<String, Object>>> enqueueForMap() {
+		return enqueue(HttpUtils::responseMap);
+	}
+
+	/**
+	 * 异步发送请求并转为为javaBean
+	 * @param clazz clazz
+	 * @return CompletableFuture,非2xx时以IOException结束,转化失败以JsonSyntaxException结束
+	 */
+	public <T>CompletableFuture<Optional<T>> enqueueForObj(Class<T> clazz) {
+		return enqueue(r -> HttpUtils.responseObj(r, clazz));
+	}
+
+	/**
+	 * 异步发送请求并转为为javaBean
+	 * @param type type
+	 * @return CompletableFuture,非2xx时以IOException结束,转化失败以JsonSyntaxException结束
+	 */
+	public <T>CompletableFuture<Optional<T>> enqueueForObj(Type type) {
+		return enqueue(r -> HttpUtils.<T>responseObj(r, type));
+	}
+
+	/**
+	 * 异步发送请求,并用handler处理响应,处理完后关闭响应
+	 * @param handler 响应处理
+	 * @return CompletableFuture,请求或处理失败时以对应异常结束
+	 */
+	public <T>CompletableFuture<T> enqueue(ResponseHandler<T> handler) {
+		return enqueue(handler, true);
+	}
+
+	private <T>CompletableFuture<T> enqueue(ResponseHandler<T> handler, boolean closeResponse) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Call call = this.call;
+		call.enqueue(new Callback() {
+			@Override
+			public void onFailure(Call call, IOException e) {
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) {
+				boolean close = closeResponse;
+				if(!closeResponse) {
+					MyCall.this.response = response;
+				}
+				try {
+					if(!future.complete(handler.handle(response))) {	//已被取消
+						close = true;
+					}
+				} catch (Throwable t) {
+					close = true;
+					future.completeExceptionally(t);
+				} finally {
+					if(close) {
+						IOUtils.close(response);
+					}
+				}
+			}
+		});
+		future.whenComplete((r, t) -> {
+			if(future.isCancelled()) {
+				call.cancel();
+			}
+		});
+		return future;
+	}
+
 	@Override
 	public void dispose() {
 		try {
@@ -0,0 +1,202 @@
+package com.ag777.util.lang;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程安全的缓冲区池(堆内byte[]和直接内存ByteBuffer)
+ * <p>
+ * 按2的幂分级(1K~1M),申请时向上取整到所在级别,归还后供其它线程复用,减少高频小文件读写时的分配和gc。
+ * 超过1M的申请直接分配,不入池;每级最多缓存maxPerClass个,多余的归还直接丢弃。
+ * 归还后不能再使用该缓冲区,也不能重复归还。
+ * </p>
+ * <pre>{@code
+ *  byte[] buffer = BufferPool.shared().acquire(8192);
+ *  try {
+ *      ...
+ *  } finally {
+ *      BufferPool.shared().release(buffer);
+ *  }
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 01:15
+ */
+public class BufferPool {
+
+	private static final int MIN_SHIFT = 10;	//最小级别1K
+	private static final int MAX_SHIFT = 20;	//最大级别1M
+	private static final int CLASS_COUNT = MAX_SHIFT - MIN_SHIFT + 1;
+	private static final BufferPool SHARED = new BufferPool(32);
+
+	private final int maxPerClass;
+	private final Bucket<byte[]>[] heapBuckets;
+	private final Bucket<ByteBuffer>[] directBuckets;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param maxPerClass 每个级别最多缓存的缓冲区数
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public BufferPool(int maxPerClass) {
+		this.maxPerClass = maxPerClass;
+		heapBuckets = new Bucket[CLASS_COUNT];
+		directBuckets = new Bucket[CLASS_COUNT];
+		for (int i = 0; i < CLASS_COUNT; i++) {
+			heapBuckets[i] = new Bucket<>();
+			directBuckets[i] = new Bucket<>();
+		}
+	}
+
+	/**
+	 * @return 全局共享的缓冲区池,IOUtils/FileUtils的读写都使用它
+	 */
+	public static BufferPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * 申请堆内缓冲区
+	 * @param size 最小长度
+	 * @return 长度不小于size的数组(内容未清空)
+	 */
+	public byte[] acquire(int size) {
+		int index = classIndex(size);
+		if(index < 0) {
+			misses.increment();
+			return new byte[size];
+		}
+		byte[] buffer = heapBuckets[index].poll();
+		if(buffer != null) {
+			hits.increment();
+			return buffer;
+		}
+		misses.increment();
+		return new byte[1 << (index + MIN_SHIFT)];
+	}
+
+	/**
+	 * 归还堆内缓冲区,长度不是级别大小(非本池申请)的数组会被忽略
+	 * @param buffer 缓冲区,可以为null
+	 */
+	public void release(byte[] buffer) {
+		if(buffer == null) {
+			return;
+		}
+		int index = exactClassIndex(buffer.length);
+		if(index >= 0) {
+			heapBuckets[index].offer(buffer, maxPerClass);
+		}
+	}
+
+	/**
+	 * 申请直接内存缓冲区
+	 * @param size 最小容量
+	 * @return 已clear的缓冲区,limit为其容量
+	 */
+	public ByteBuffer acquireDirect(int size) {
+		int index = classIndex(size);
+		if(index < 0) {
+			misses.increment();
+			return ByteBuffer.allocateDirect(size);
+		}
+		ByteBuffer buffer = directBuckets[index].poll();
+		if(buffer != null) {
+			hits.increment();
+			buffer.clear();
+			return buffer;
+		}
+		misses.increment();
+		return ByteBuffer.allocateDirect(1 << (index + MIN_SHIFT));
+	}
+
+	/**
+	 * 归还直接内存缓冲区,非直接内存或容量不是级别大小的缓冲区会被忽略
+	 * @param buffer 缓冲区,可以为null
+	 */
+	public void releaseDirect(ByteBuffer buffer) {
+		if(buffer == null || !buffer.isDirect()) {
+			return;
+		}
+		int index = exactClassIndex(buffer.capacity());
+		if(index >= 0) {
+			directBuckets[index].offer(buffer, maxPerClass);
+		}
+	}
+
+	/**
+	 * @return 从池中取到缓冲区的次数
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return 新分配缓冲区的次数
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * 清空池中缓存的缓冲区
+	 */
+	public void clear() {
+		for (int i = 0; i < CLASS_COUNT; i++) {
+			heapBuckets[i].clear();
+			directBuckets[i].clear();
+		}
+	}
+
+	/**
+	 * @return size所在的级别下标,超过最大级别返回-1
+	 */
+	private static int classIndex(int size) {
+		if(size <= 1 << MIN_SHIFT) {
+			return 0;
+		}
+		int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+		return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+	}
+
+	/**
+	 * @return length正好是某个级别大小时返回其下标,否则返回-1
+	 */
+	private static int exactClassIndex(int length) {
+		if(Integer.bitCount(length) != 1) {
+			return -1;
+		}
+		int shift = Integer.numberOfTrailingZeros(length);
+		return shift < MIN_SHIFT || shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+	}
+
+	private static final class Bucket<T> {
+		private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger size = new AtomicInteger();
+
+		T poll() {
+			T item = queue.poll();
+			if(item != null) {
+				size.decrementAndGet();
+			}
+			return item;
+		}
+
+		void offer(T item, int max) {
+			if(size.incrementAndGet() > max) {
+				size.decrementAndGet();
+				return;
+			}
+			queue.offer(item);
+		}
+
+		void clear() {
+			while (poll() != null) {
+			}
+		}
+	}
+}
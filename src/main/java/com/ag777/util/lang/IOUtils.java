@@ -5,8 +5,11 @@ import com.ag777.util.lang.function.ConsumerE;
 import com.ag777.util.lang.interf.ProgressListener;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -19,11 +22,13 @@ import java.util.regex.Pattern;
  * </p>
  * <p><a href="https://www.zhihu.com/question/382972191">讲IO的文章</a></>
  * @author ag777
- * @version create on 2017年06月16日,last modify at 2024年11月24日
+ * @version create on 2017年06月16日,last modify at 2026年10月18日
  */
 public class IOUtils {
 
-	public static int BUFFSIZE = 1024;	//一次性读取的字节
+	public static int BUFFSIZE = 8 << 10;	//一次性读取的字节,缓冲区从BufferPool申请
+	public static long TRANSFER_CHUNK_SIZE = 8L << 20;	//transferTo每次传输的字节数,决定进度回调的频率
+	public static int TRANSFER_BUFFSIZE = 64 << 10;	//无法零拷贝时中转缓冲区的大小
 	
 	private IOUtils() {}
 	
@@ -158,23 +163,57 @@ public class IOUtils {
 	
 	/**
 	 * 读取字节数组
+	 * <p>
+	 * 按available()预估长度,文件流等能给出准确剩余长度的流只分配一次数组
+	 * </p>
 	 * @param in 输入流
 	 * @return 所有字节
 	 * @throws IOException 文件找不到(FileNotFoundException)或者读取异常
 	 */
 	public static byte[] readBytes(InputStream in) throws IOException {
-		ByteArrayOutputStream bout = null;
-		try{
-			bout = new ByteArrayOutputStream(); 
-	        byte[] buff = new byte[BUFFSIZE]; 
-	        while(true) { 
-	            int n = in.read(buff); 
-	            if(n == -1) { break; } 
-	            bout.write(buff,0,n); 
-	        }
-	        return bout.toByteArray();
+		int expectedSize;
+		try {
+			expectedSize = in.available();
+		} catch (IOException ex) {
+			close(in);
+			throw ex;
+		}
+		return readBytes(in, expectedSize);
+	}
+
+	/**
+	 * 读取字节数组
+	 * @param in 输入流
+	 * @param expectedSize 预估长度(如文件大小),实际长度不同时也能正确读取
+	 * @return 所有字节
+	 * @throws IOException 读取异常
+	 */
+	public static byte[] readBytes(InputStream in, int expectedSize) throws IOException {
+		try {
+			byte[] bytes = new byte[Math.max(expectedSize, 0)];
+			int count = 0;
+			int n;
+			while (count < bytes.length && (n = in.read(bytes, count, bytes.length - count)) != -1) {
+				count += n;
+			}
+			if(count < bytes.length) {	//比预估的短
+				return Arrays.copyOf(bytes, count);
+			}
+			byte[] buff = BufferPool.shared().acquire(BUFFSIZE);
+			try {
+				while ((n = in.read(buff)) != -1) {	//比预估的长(或预估为0),按需扩容
+					if(count + n > bytes.length) {
+						bytes = Arrays.copyOf(bytes, Math.max(count + n, Math.max(bytes.length * 2, BUFFSIZE)));
+					}
+					System.arraycopy(buff, 0, bytes, count, n);
+					count += n;
+				}
+			} finally {
+				BufferPool.shared().release(buff);
+			}
+			return count == bytes.length ? bytes : Arrays.copyOf(bytes, count);
 		} finally {
-			close(in, bout);
+			close(in);
 		}
 	}
 	
@@ -386,21 +425,32 @@ public class IOUtils {
 	 * @throws IOException IOException
 	 */
 	public static void write(InputStream in, OutputStream out, int buffSize) throws IOException {
+		if(in instanceof FileInputStream) {	//源为文件时走通道传输
+			try {
+				transfer(in, out, null);
+			} finally {
+				close(in, out);
+			}
+			return;
+		}
+		byte[] bytes = BufferPool.shared().acquire(buffSize);
 		try { 
 			int byteCount;
-			byte[] bytes = new byte[buffSize];
-
 			while ((byteCount = in.read(bytes)) != -1) {
 				out.write(bytes, 0, byteCount);
 			}
          out.flush();
 		} finally {
+			BufferPool.shared().release(bytes);
 			close(in,out);
 		}
 	}
 	
 	/**
 	 * 将输入流写入输出流(带进度监听)
+	 * <p>
+	 * 计数为long,总字节数只对文件流有效,其它流为-1;需要指定总长度、节流回调或限速时直接使用{@link TransferHelper}
+	 * </p>
 	 * @param in in
 	 * @param out out
 	 * @param buffSize buffSize
@@ -414,26 +464,53 @@ public class IOUtils {
 			return;
 		}
 		try {
-			int cur = 0;
-			int total = in.available();
-			listener.update(cur, total, false);
-
-			int byteCount;
-			byte[] bytes = new byte[buffSize];
-
-			while ((byteCount = in.read(bytes)) != -1) {
-				out.write(bytes, 0, byteCount);
-				cur += byteCount;
-				listener.update(cur, total, false);
-			}
-
-			out.flush();
-			listener.update(cur, total, true);
+			new TransferHelper().bufferSize(buffSize).listener(listener).transfer(in, out);
 		} finally {
 			close(in, out);
 		}
 	}
 	
+	/**
+	 * 在两个通道之间传输数据(不关闭通道)
+	 * <p>
+	 * 源为FileChannel时使用transferTo,目标为文件或socket时由操作系统直接拷贝(sendfile),数据不经过java堆;
+	 * 其它情况使用BufferPool中的直接缓冲区中转。
+	 * 从源通道的当前位置开始传输,结束后源通道位于末尾。两个通道都必须是阻塞模式。
+	 * </p>
+	 * @param src 源通道
+	 * @param dst 目标通道
+	 * @param listener 进度监听,可以为null,源不是文件时总字节数为-1
+	 * @return 传输的字节数
+	 * @throws IOException IOException
+	 */
+	public static long transfer(ReadableByteChannel src, WritableByteChannel dst, ProgressListener listener) throws IOException {
+		checkBlocking(src);
+		checkBlocking(dst);
+		return new TransferHelper().listener(listener).transfer(src, dst).getTransferred();
+	}
+
+	/**
+	 * 将输入流传输到输出流(不关闭流)
+	 * <p>
+	 * 输入流为文件流时转为通道传输(见transfer(ReadableByteChannel, WritableByteChannel, ProgressListener)),
+	 * 输出流也是文件流时由操作系统直接拷贝;否则使用BufferPool中的堆缓冲区拷贝,总字节数为-1
+	 * </p>
+	 * @param in 输入流
+	 * @param out 输出流
+	 * @param listener 进度监听,可以为null
+	 * @return 传输的字节数
+	 * @throws IOException IOException
+	 */
+	public static long transfer(InputStream in, OutputStream out, ProgressListener listener) throws IOException {
+		return new TransferHelper().listener(listener).transfer(in, out).getTransferred();
+	}
+
+	private static void checkBlocking(Channel channel) {
+		if(channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+			throw new IllegalBlockingModeException();
+		}
+	}
+
 	/**
 	 * 将内容转化为ByteArrayInputStream写出到输出流
 	 * @param content content
@@ -0,0 +1,291 @@
+package com.ag777.util.lang;
+
+import com.ag777.util.lang.interf.ProgressListener;
+import com.ag777.util.lang.model.TransferStats;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 带进度统计和限速的数据传输
+ * <p>
+ * 计数全部为long,支持超过2G的传输;总长度可以显式指定,文件流/文件通道会自动获取,其它情况视为未知(-1),不再使用available()估算。
+ * 进度回调按字节数或时间间隔节流,结束时总会回调一次done=true;限速使用令牌桶,平均速度不超过rateLimit。
+ * 源为文件通道时使用transferTo分块传输,同样受限速和回调节流控制。
+ * </p>
+ * <pre>{@code
+ *  TransferStats stats = new TransferHelper()
+ *          .rateLimit(2 << 20)		//2M/s
+ *          .notifyEvery(1 << 20, 500)	//每1M或每500毫秒回调一次
+ *          .onProgress(s -> System.out.println(s.getPercent()+"% eta:"+s.getEtaMillis()))
+ *          .transfer(in, out);
+ * }</pre>
+ * 实例不是线程安全的,但可以依次用于多次传输,每次传输单独统计。
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 22:40
+ */
+public class TransferHelper {
+
+	private int bufferSize = IOUtils.TRANSFER_BUFFSIZE;
+	private long contentLength = -1;
+	private long rateLimit;
+	private long notifyBytes;
+	private long notifyMillis;
+	private ProgressListener listener;
+	private Consumer<TransferStats> onProgress;
+
+	/*单次传输的状态*/
+	private long total;
+	private long count;
+	private long startNanos;
+	private long lastNotifyCount;
+	private long lastNotifyNanos;
+	private double tokens;
+	private long lastRefillNanos;
+
+	/**
+	 * @param bufferSize 中转缓冲区大小,默认为IOUtils.TRANSFER_BUFFSIZE
+	 * @return TransferHelper
+	 */
+	public TransferHelper bufferSize(int bufferSize) {
+		if(bufferSize <= 0) {
+			throw new IllegalArgumentException("缓冲区大小必须大于0");
+		}
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * @param contentLength 总字节数(如http响应的Content-Length),小于0时自动检测
+	 * @return TransferHelper
+	 */
+	public TransferHelper contentLength(long contentLength) {
+		this.contentLength = contentLength;
+		return this;
+	}
+
+	/**
+	 * @param bytesPerSecond 限速(字节/秒),小于等于0不限速
+	 * @return TransferHelper
+	 */
+	public TransferHelper rateLimit(long bytesPerSecond) {
+		this.rateLimit = bytesPerSecond;
+		return this;
+	}
+
+	/**
+	 * 设置回调频率,满足任一条件即回调,都为0时每次读写都回调
+	 * @param bytes 距上次回调传输的字节数
+	 * @param millis 距上次回调的毫秒数
+	 * @return TransferHelper
+	 */
+	public TransferHelper notifyEvery(long bytes, long millis) {
+		this.notifyBytes = bytes;
+		this.notifyMillis = millis;
+		return this;
+	}
+
+	/**
+	 * @param listener 进度监听,调用long版本的update
+	 * @return TransferHelper
+	 */
+	public TransferHelper listener(ProgressListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * @param onProgress 进度统计回调(含速度和剩余时间)
+	 * @return TransferHelper
+	 */
+	public TransferHelper onProgress(Consumer<TransferStats> onProgress) {
+		this.onProgress = onProgress;
+		return this;
+	}
+
+	/**
+	 * 将输入流传输到输出流(不关闭流)
+	 * @param in 输入流
+	 * @param out 输出流
+	 * @return 传输结束时的统计
+	 * @throws IOException 读写失败
+	 */
+	public TransferStats transfer(InputStream in, OutputStream out) throws IOException {
+		return transfer(in, out, -1);
+	}
+
+	/**
+	 * 将输入流传输到输出流(不关闭流)
+	 * @param in 输入流
+	 * @param out 输出流
+	 * @param defaultLength 未通过contentLength指定总长度时使用的总长度(如响应头中的长度),小于0为未知
+	 * @return 传输结束时的统计
+	 * @throws IOException 读写失败
+	 */
+	public TransferStats transfer(InputStream in, OutputStream out, long defaultLength) throws IOException {
+		if(in instanceof FileInputStream) {
+			out.flush();
+			WritableByteChannel dst = out instanceof FileOutputStream ? ((FileOutputStream) out).getChannel() : Channels.newChannel(out);
+			return transfer(((FileInputStream) in).getChannel(), dst);
+		}
+		start(contentLength >= 0 ? contentLength : defaultLength);
+		byte[] bytes = BufferPool.shared().acquire(bufferSize);
+		try {
+			int limit = Math.min(bytes.length, bufferSize);
+			int n;
+			while ((n = in.read(bytes, 0, limit)) != -1) {
+				throttle(n);
+				out.write(bytes, 0, n);
+				advance(n);
+			}
+			out.flush();
+		} finally {
+			BufferPool.shared().release(bytes);
+		}
+		return finish();
+	}
+
+	/**
+	 * 在两个通道之间传输数据(不关闭通道),源为文件通道时从当前位置传输到末尾
+	 * @param src 源通道
+	 * @param dst 目标通道
+	 * @return 传输结束时的统计
+	 * @throws IOException 读写失败
+	 */
+	public TransferStats transfer(ReadableByteChannel src, WritableByteChannel dst) throws IOException {
+		if(src instanceof FileChannel) {
+			FileChannel fc = (FileChannel) src;
+			long position = fc.position();
+			long remaining = fc.size() - position;
+			start(contentLength >= 0 ? contentLength : remaining);
+			long chunk = chunkSize();
+			long done = 0;
+			while (done < remaining) {
+				long size = Math.min(chunk, remaining - done);
+				throttle(size);
+				long n = fc.transferTo(position + done, size, dst);
+				if(n <= 0) {	//文件被截断
+					break;
+				}
+				done += n;
+				advance(n);
+			}
+			fc.position(position + done);
+			return finish();
+		}
+		start(contentLength);
+		ByteBuffer buffer = BufferPool.shared().acquireDirect(bufferSize);
+		try {
+			buffer.limit(Math.min(buffer.capacity(), bufferSize));
+			int n;
+			while ((n = src.read(buffer)) != -1) {
+				throttle(n);
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					dst.write(buffer);
+				}
+				buffer.clear().limit(Math.min(buffer.capacity(), bufferSize));
+				advance(n);
+			}
+		} finally {
+			BufferPool.shared().releaseDirect(buffer);
+		}
+		return finish();
+	}
+
+	/**
+	 * @return 当前(或最近一次)传输的统计
+	 */
+	public TransferStats getStats() {
+		return new TransferStats(count, total, System.nanoTime() - startNanos, false);
+	}
+
+	/**
+	 * transferTo每次传输的大小:不超过TRANSFER_CHUNK_SIZE,有回调节流或限速时再缩小,保证回调和限速的粒度
+	 */
+	private long chunkSize() {
+		long chunk = IOUtils.TRANSFER_CHUNK_SIZE;
+		if(notifyBytes > 0) {
+			chunk = Math.min(chunk, notifyBytes);
+		}
+		if(rateLimit > 0) {
+			chunk = Math.min(chunk, Math.max(rateLimit / 10, bufferSize));
+		}
+		return Math.max(chunk, 1);
+	}
+
+	private void start(long total) {
+		this.total = total;
+		count = 0;
+		startNanos = System.nanoTime();
+		lastNotifyCount = 0;
+		lastNotifyNanos = startNanos;
+		tokens = 0;
+		lastRefillNanos = startNanos;
+		notifyListeners(false);
+	}
+
+	private void advance(long n) {
+		count += n;
+		if(listener == null && onProgress == null) {
+			return;
+		}
+		long now = System.nanoTime();
+		boolean due = (notifyBytes <= 0 && notifyMillis <= 0)
+				|| (notifyBytes > 0 && count - lastNotifyCount >= notifyBytes)
+				|| (notifyMillis > 0 && now - lastNotifyNanos >= TimeUnit.MILLISECONDS.toNanos(notifyMillis));
+		if(due) {
+			lastNotifyCount = count;
+			lastNotifyNanos = now;
+			notifyListeners(false);
+		}
+	}
+
+	private TransferStats finish() {
+		TransferStats stats = notifyListeners(true);
+		return stats == null ? new TransferStats(count, total, System.nanoTime() - startNanos, true) : stats;
+	}
+
+	private TransferStats notifyListeners(boolean done) {
+		if(listener == null && onProgress == null) {
+			return null;
+		}
+		TransferStats stats = new TransferStats(count, total, System.nanoTime() - startNanos, done);
+		if(listener != null) {
+			listener.update(count, total, done);
+		}
+		if(onProgress != null) {
+			onProgress.accept(stats);
+		}
+		return stats;
+	}
+
+	/**
+	 * 令牌桶限速:允许欠账,欠下的令牌按速率补足后再继续,桶容量为1秒的流量
+	 */
+	private void throttle(long bytes) throws InterruptedIOException {
+		if(rateLimit <= 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		tokens = Math.min(rateLimit, tokens + (now - lastRefillNanos) * rateLimit / 1e9);
+		lastRefillNanos = now;
+		tokens -= bytes;
+		if(tokens < 0) {
+			long waitNanos = (long) (-tokens * 1e9 / rateLimit);
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("限速等待时被中断");
+			}
+		}
+	}
+}
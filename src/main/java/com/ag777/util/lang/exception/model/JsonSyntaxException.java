@@ -15,4 +15,8 @@ public class JsonSyntaxException extends Exception{
 	public JsonSyntaxException(Throwable throwable) {
 		super(throwable);
 	}
+
+	public JsonSyntaxException(String message) {
+		super(message);
+	}
 }
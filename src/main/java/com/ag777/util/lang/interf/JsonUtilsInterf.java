@@ -1,8 +1,12 @@
 package com.ag777.util.lang.interf;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.ag777.util.lang.exception.model.JsonSyntaxException;
 
@@ -10,7 +14,7 @@ import com.ag777.util.lang.exception.model.JsonSyntaxException;
  * json转化接口
  * 
  * @author wanggz
- * @version last modify at 2018年06月15日
+ * @version last modify at 2026年10月19日
  */
 public interface JsonUtilsInterf {
 
@@ -74,4 +78,64 @@ public interface JsonUtilsInterf {
 	public <T>T fromJson(String json, Type type);
 	
 	public <T>T fromJsonWithException(String json, Type type) throws JsonSyntaxException;
+
+	/**
+	 * 从字符流解析json转任意对象(不关闭流)
+	 * <p>
+	 * 默认实现读出全部内容后按字符串解析,实现类应覆盖为流式解析,避免大响应体在内存中同时存在字节和字符串两份
+	 * </p>
+	 * @param reader reader
+	 * @param type type
+	 * @return 对象,内容为空时为null
+	 * @throws JsonSyntaxException 读取失败或json解析异常
+	 */
+	default <T>T fromJsonWithException(Reader reader, Type type) throws JsonSyntaxException {
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[8192];
+		try {
+			int n;
+			while ((n = reader.read(buffer)) != -1) {
+				sb.append(buffer, 0, n);
+			}
+		} catch (IOException ex) {
+			throw new JsonSyntaxException(ex);
+		}
+		return fromJsonWithException(sb.toString(), type);
+	}
+
+	/**
+	 * 逐个解析顶层json数组中的元素并回调(不关闭流)
+	 * <p>
+	 * 默认实现整体解析后遍历,实现类应覆盖为流式解析,内存中只保留当前元素
+	 * </p>
+	 * @param reader reader
+	 * @param elementType 元素类型
+	 * @param consumer 元素回调
+	 * @throws JsonSyntaxException 读取失败、json解析异常或顶层不是数组
+	 */
+	default <T>void forEachInArray(Reader reader, Type elementType, Consumer<T> consumer) throws JsonSyntaxException {
+		List<T> list = fromJsonWithException(reader, new ListType(elementType));
+		if(list == null) {
+			throw new JsonSyntaxException("内容为空,不是json数组");
+		}
+		list.forEach(consumer);
+	}
+
+	/**
+	 * 将顶层json数组转为元素的流(不关闭reader,需要时通过onClose关闭)
+	 * <p>
+	 * 默认实现整体解析后转为流,实现类应覆盖为按需解析;遍历过程中的读取或解析异常以运行时异常抛出
+	 * </p>
+	 * @param reader reader
+	 * @param elementType 元素类型
+	 * @return 元素流
+	 * @throws JsonSyntaxException 读取失败、json解析异常或顶层不是数组
+	 */
+	default <T>Stream<T> streamArray(Reader reader, Type elementType) throws JsonSyntaxException {
+		List<T> list = fromJsonWithException(reader, new ListType(elementType));
+		if(list == null) {
+			throw new JsonSyntaxException("内容为空,不是json数组");
+		}
+		return list.stream();
+	}
 }
\ No newline at end of file
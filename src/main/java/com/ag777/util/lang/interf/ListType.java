@@ -0,0 +1,35 @@
+package com.ag777.util.lang.interf;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * List&lt;elementType&gt;的Type,供JsonUtilsInterf的默认实现使用,不依赖具体的json实现
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 12:10
+ */
+final class ListType implements ParameterizedType {
+
+	private final Type[] arguments;
+
+	ListType(Type elementType) {
+		this.arguments = new Type[]{elementType};
+	}
+
+	@Override
+	public Type[] getActualTypeArguments() {
+		return arguments.clone();
+	}
+
+	@Override
+	public Type getRawType() {
+		return List.class;
+	}
+
+	@Override
+	public Type getOwnerType() {
+		return null;
+	}
+}
@@ -4,7 +4,7 @@ package com.ag777.util.lang.interf;
  * 进度监听回调接口
  * 
  * @author ag777
- * @version create on 2018年05月15日,last modify at 2018年05月15日
+ * @version create on 2018年05月15日,last modify at 2026年10月18日
  */
 public interface ProgressListener {
 
@@ -15,4 +15,14 @@ public interface ProgressListener {
 	 * @param done 是否完成
 	 */
 	public void update(int cur, int total, boolean done);
+
+	/**
+	 * 超过2G的传输使用,默认截断到Integer.MAX_VALUE后调用int版本,需要准确进度的实现类可以重写
+	 * @param cur 已读取字节数
+	 * @param total 总字节数
+	 * @param done 是否完成
+	 */
+	default void update(long cur, long total, boolean done) {
+		update((int) Math.min(cur, Integer.MAX_VALUE), (int) Math.min(total, Integer.MAX_VALUE), done);
+	}
 }
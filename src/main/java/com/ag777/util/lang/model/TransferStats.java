@@ -0,0 +1,79 @@
+package com.ag777.util.lang.model;
+
+/**
+ * 传输进度统计(某一时刻的快照)
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/18 22:40
+ */
+public class TransferStats {
+
+	private final long transferred;	//已传输字节数
+	private final long total;		//总字节数,未知时为-1
+	private final long elapsedNanos;
+	private final boolean done;
+
+	public TransferStats(long transferred, long total, long elapsedNanos, boolean done) {
+		this.transferred = transferred;
+		this.total = total;
+		this.elapsedNanos = elapsedNanos;
+		this.done = done;
+	}
+
+	public long getTransferred() {
+		return transferred;
+	}
+	public long getTotal() {
+		return total;
+	}
+	public boolean isDone() {
+		return done;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedNanos / 1_000_000;
+	}
+
+	/**
+	 * @return 平均速度(字节/秒)
+	 */
+	public double getBytesPerSecond() {
+		return elapsedNanos <= 0 ? 0 : transferred * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * @return 进度百分比(0~100),总字节数未知时返回-1
+	 */
+	public double getPercent() {
+		if(total < 0) {
+			return -1;
+		}
+		return total == 0 ? 100 : transferred * 100.0 / total;
+	}
+
+	/**
+	 * @return 按平均速度估算的剩余毫秒数,总字节数未知或还没有速度时返回-1
+	 */
+	public long getEtaMillis() {
+		if(done) {
+			return 0;
+		}
+		double speed = getBytesPerSecond();
+		if(total < 0 || speed <= 0) {
+			return -1;
+		}
+		return (long) (Math.max(total - transferred, 0) * 1000 / speed);
+	}
+
+	@Override
+	public String toString() {
+		return "TransferStats{" +
+				"transferred=" + transferred +
+				", total=" + total +
+				", elapsedMillis=" + getElapsedMillis() +
+				", bytesPerSecond=" + String.format("%.1f", getBytesPerSecond()) +
+				", etaMillis=" + getEtaMillis() +
+				", done=" + done +
+				'}';
+	}
+}
@@ -0,0 +1,429 @@
+package com.ag777.util.security;
+
+import com.ag777.util.lang.BufferPool;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * 文件摘要计算
+ * <p>
+ * 通过FileChannel和BufferPool中的直接内存缓冲区(默认1M)读取,支持MD5/SHA-1/SHA-256/CRC32/CRC32C(需要jdk9及以上)。
+ * <ul>
+ * <li>hash:标准摘要,与md5sum/sha256sum等工具的结果一致</li>
+ * <li>hashAll:多个文件并行计算</li>
+ * <li>treeHash:大文件按chunkSize分块并行计算,再对各块摘要拼接后计算一次摘要,结果与标准摘要不同,只能与相同算法、相同分块大小的treeHash比较,适合多G文件去重</li>
+ * </ul>
+ * 开启缓存后,结果按(路径,大小,修改时间)缓存(标准摘要和treeHash分开),文件未变化时重复扫描直接返回。
+ * </p>
+ * <pre>{@code
+ *  FileHasher hasher = new FileHasher(FileHasher.Algorithm.SHA256).cache(true);
+ *  Map<Path, String> result = hasher.hashAll(files);
+ * }</pre>
+ *
+ * @author ag777＜ag777@vip.qq.com＞
+ * @version 2026/10/19 01:10
+ */
+public class FileHasher {
+
+	/**
+	 * 摘要算法
+	 */
+	public enum Algorithm {
+		MD5("MD5"),
+		SHA1("SHA-1"),
+		SHA256("SHA-256"),
+		CRC32("CRC32"),
+		CRC32C("CRC32C");
+
+		private final String name;
+
+		Algorithm(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	private static final Method CRC32C_UPDATE;	//jdk9+的java.util.zip.CRC32C.update(ByteBuffer),低版本为null
+	static {
+		Method update = null;
+		try {
+			update = Class.forName("java.util.zip.CRC32C").getMethod("update", ByteBuffer.class);
+		} catch (ReflectiveOperationException ignored) {
+		}
+		CRC32C_UPDATE = update;
+	}
+
+	private final Algorithm algorithm;
+	private int bufferSize = 1 << 20;
+	private long chunkSize = 64L << 20;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private ConcurrentMap<CacheKey, String> cache;
+
+	/**
+	 * @param algorithm 算法
+	 * @throws NoSuchAlgorithmException 当前jdk不支持该算法(如jdk8下的CRC32C)
+	 */
+	public FileHasher(Algorithm algorithm) throws NoSuchAlgorithmException {
+		this.algorithm = algorithm;
+		newHasher();	//提前校验算法
+	}
+
+	/**
+	 * @param bufferSize 读取缓冲区大小,默认1M,从BufferPool申请
+	 * @return FileHasher
+	 */
+	public FileHasher bufferSize(int bufferSize) {
+		if(bufferSize <= 0) {
+			throw new IllegalArgumentException("缓冲区大小必须大于0");
+		}
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * @param chunkSize treeHash的分块大小,默认64M
+	 * @return FileHasher
+	 */
+	public FileHasher chunkSize(long chunkSize) {
+		if(chunkSize <= 0) {
+			throw new IllegalArgumentException("分块大小必须大于0");
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * @param parallelism hashAll/treeHash的并发数,默认为cpu核数
+	 * @return FileHasher
+	 */
+	public FileHasher parallelism(int parallelism) {
+		if(parallelism <= 0) {
+			throw new IllegalArgumentException("并发数必须大于0");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * @param enable 是否按(路径,大小,修改时间)缓存结果
+	 * @return FileHasher
+	 */
+	public FileHasher cache(boolean enable) {
+		this.cache = enable ? new ConcurrentHashMap<>() : null;
+		return this;
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void clearCache() {
+		if(cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * 计算文件的标准摘要
+	 * @param file 文件
+	 * @return 小写十六进制摘要
+	 * @throws IOException 读取失败
+	 */
+	public String hash(Path file) throws IOException {
+		return cached(file, false, () -> {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				Hasher hasher = newHasherUnchecked();
+				update(hasher, channel, 0, Long.MAX_VALUE);
+				return toHex(hasher.digest());
+			}
+		});
+	}
+
+	/**
+	 * 并行计算多个文件的标准摘要,某个文件失败不影响其它文件,全部结束后抛出第一个异常(其它异常作为suppressed)
+	 * @param files 文件列表
+	 * @return {文件:摘要},顺序与传入顺序一致
+	 * @throws IOException 有文件读取失败
+	 */
+	public Map<Path, String> hashAll(Collection<Path> files) throws IOException {
+		ExecutorService executor = newExecutor(Math.min(parallelism, Math.max(files.size(), 1)));
+		try {
+			Map<Path, Future<String>> futures = new LinkedHashMap<>();
+			for (Path file : files) {
+				futures.put(file, executor.submit(() -> hash(file)));
+			}
+			Map<Path, String> result = new LinkedHashMap<>();
+			IOException error = null;
+			for (Map.Entry<Path, Future<String>> entry : futures.entrySet()) {
+				try {
+					result.put(entry.getKey(), await(entry.getValue()));
+				} catch (IOException ex) {
+					IOException wrapped = new IOException("计算文件["+entry.getKey()+"]摘要失败", ex);
+					if(error == null) {
+						error = wrapped;
+					} else {
+						error.addSuppressed(wrapped);
+					}
+				}
+			}
+			if(error != null) {
+				throw error;
+			}
+			return result;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * 分块并行计算摘要:各块摘要按顺序拼接后再计算一次摘要,不超过一块的文件等同于对其唯一一块摘要再计算摘要
+	 * @param file 文件
+	 * @return 小写十六进制摘要
+	 * @throws IOException 读取失败
+	 */
+	public String treeHash(Path file) throws IOException {
+		return cached(file, true, () -> {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long size = channel.size();
+				int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+				List<byte[]> digests = new ArrayList<>(chunks);
+				if(chunks == 1 || parallelism == 1) {
+					for (int i = 0; i < chunks; i++) {
+						digests.add(hashChunk(channel, i * chunkSize));
+					}
+				} else {
+					ExecutorService executor = newExecutor(Math.min(parallelism, chunks));
+					try {
+						List<Future<byte[]>> futures = new ArrayList<>(chunks);
+						for (int i = 0; i < chunks; i++) {
+							long position = i * chunkSize;
+							futures.add(executor.submit(() -> hashChunk(channel, position)));	//FileChannel的按位置读取是线程安全的
+						}
+						for (Future<byte[]> future : futures) {
+							digests.add(await(future));
+						}
+					} finally {
+						executor.shutdownNow();
+					}
+				}
+				Hasher root = newHasherUnchecked();
+				for (byte[] digest : digests) {
+					root.update(ByteBuffer.wrap(digest));
+				}
+				return toHex(root.digest());
+			}
+		});
+	}
+
+	/**
+	 * 字节数组转小写十六进制字符串,保留前导0
+	 * @param bytes 字节数组
+	 * @return 十六进制字符串
+	 */
+	public static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+			chars[i * 2 + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+		}
+		return new String(chars);
+	}
+
+	private byte[] hashChunk(FileChannel channel, long position) throws IOException {
+		Hasher hasher = newHasherUnchecked();
+		update(hasher, channel, position, chunkSize);
+		return hasher.digest();
+	}
+
+	/**
+	 * 从position开始按位置读取最多length字节更新摘要
+	 */
+	private void update(Hasher hasher, FileChannel channel, long position, long length) throws IOException {
+		ByteBuffer buffer = BufferPool.shared().acquireDirect(bufferSize);
+		try {
+			long end = length == Long.MAX_VALUE ? Long.MAX_VALUE : position + length;
+			while (position < end) {
+				buffer.clear();
+				if(end - position < buffer.capacity()) {
+					buffer.limit((int) (end - position));
+				}
+				int read = channel.read(buffer, position);
+				if(read < 0) {
+					break;
+				}
+				position += read;
+				buffer.flip();
+				hasher.update(buffer);
+			}
+		} finally {
+			BufferPool.shared().releaseDirect(buffer);
+		}
+	}
+
+	private String cached(Path file, boolean tree, Callable<String> loader) throws IOException {
+		CacheKey key = null;
+		if(cache != null) {
+			BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+			key = new CacheKey(file.toAbsolutePath().normalize().toString(), attrs.size(), attrs.lastModifiedTime().toMillis(), tree ? chunkSize : 0);
+			String value = cache.get(key);
+			if(value != null) {
+				return value;
+			}
+		}
+		String value;
+		try {
+			value = loader.call();
+		} catch (IOException | RuntimeException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new IOException(ex);
+		}
+		if(key != null) {
+			cache.put(key, value);
+		}
+		return value;
+	}
+
+	private Hasher newHasher() throws NoSuchAlgorithmException {
+		switch (algorithm) {
+			case CRC32:
+				return new ChecksumHasher(new CRC32());
+			case CRC32C:
+				if(CRC32C_UPDATE == null) {
+					throw new NoSuchAlgorithmException("CRC32C需要jdk9及以上版本");
+				}
+				try {
+					return new ChecksumHasher((Checksum) CRC32C_UPDATE.getDeclaringClass().getDeclaredConstructor().newInstance());
+				} catch (ReflectiveOperationException ex) {
+					throw new NoSuchAlgorithmException(ex);
+				}
+			default:
+				MessageDigest md = MessageDigest.getInstance(algorithm.getName());
+				return new Hasher() {
+					@Override
+					public void update(ByteBuffer buffer) {
+						md.update(buffer);
+					}
+
+					@Override
+					public byte[] digest() {
+						return md.digest();
+					}
+				};
+		}
+	}
+
+	private Hasher newHasherUnchecked() throws IOException {
+		try {
+			return newHasher();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private static ExecutorService newExecutor(int threads) {
+		return Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "FileHasher");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private static <T> T await(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("计算摘要被中断", ex);
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private interface Hasher {
+		void update(ByteBuffer buffer);
+		byte[] digest();
+	}
+
+	/**
+	 * 校验和(CRC32/CRC32C),结果为4字节大端
+	 */
+	private static final class ChecksumHasher implements Hasher {
+		private final Checksum checksum;
+
+		ChecksumHasher(Checksum checksum) {
+			this.checksum = checksum;
+		}
+
+		@Override
+		public void update(ByteBuffer buffer) {
+			if(checksum instanceof CRC32) {
+				((CRC32) checksum).update(buffer);
+				return;
+			}
+			try {
+				CRC32C_UPDATE.invoke(checksum, buffer);
+			} catch (ReflectiveOperationException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+
+		@Override
+		public byte[] digest() {
+			int value = (int) checksum.getValue();
+			return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+		}
+	}
+
+	private static final class CacheKey {
+		private final String path;
+		private final long size;
+		private final long modified;
+		private final long chunkSize;	//0为标准摘要
+
+		CacheKey(String path, long size, long modified, long chunkSize) {
+			this.path = path;
+			this.size = size;
+			this.modified = modified;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(!(o instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) o;
+			return size == other.size && modified == other.modified && chunkSize == other.chunkSize && path.equals(other.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, size, modified, chunkSize);
+		}
+	}
+}